@@ -0,0 +1,350 @@
+package com.exchange.cache;
+
+import com.exchange.dto.response.PriceResponse;
+import com.exchange.enums.AssetType;
+import com.exchange.enums.CallPriority;
+import com.exchange.exception.ResourceNotFoundException;
+import com.exchange.marketdata.UpstreamGovernor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * The single entry point for cached quotes, backed by the {@code prices} cache.
+ * Caching is applied explicitly here rather than through {@code @Cacheable}, so every lookup is
+ * cached no matter how it is reached; a proxy-based annotation was silently skipped whenever
+ * {@code PriceServiceImpl} called itself.
+ * <p>
+ * Loads are single-flight per key: concurrent misses for the same symbol share one in-flight
+ * upstream call instead of each spending provider quota on the same quote. A miss only joins a
+ * load made at the same or a more urgent {@link CallPriority}, so order pricing never waits in
+ * the governor's queue behind an interactive or background load's quota.
+ * <p>
+ * Entries are stale-while-revalidate: a quote older than its type's fresh window is still served
+ * at once (with its age in {@code ageMs}) while a background refresh runs, if the type's
+ * {@link RefreshBudget} allows one. Only a quote past the cache TTL costs the caller an upstream call.
+ * Order pricing is the exception: {@link #getFresh} never serves a quote past the fresh window.
+ */
+@Slf4j
+@Component
+public class QuoteCache {
+
+    public static final String CACHE_NAME = "prices";
+
+    private final Cache cache;
+    private final RefreshBudget refreshBudget;
+    private final Map<AssetType, Duration> freshFor = new EnumMap<>(AssetType.class);
+    private final Map<AssetType, DistributionSummary> ages = new EnumMap<>(AssetType.class);
+    private final ThreadPoolExecutor refreshes;
+    private final Map<AssetType, Counter> hits = new EnumMap<>(AssetType.class);
+    private final Map<AssetType, Counter> misses = new EnumMap<>(AssetType.class);
+    private final Map<AssetType, Timer> loads = new EnumMap<>(AssetType.class);
+    private final Map<AssetType, Counter> coalesced = new EnumMap<>(AssetType.class);
+    private final Map<String, CompletableFuture<PriceResponse>> inFlight = new ConcurrentHashMap<>();
+
+    public QuoteCache(CacheManager cacheManager,
+                      MeterRegistry meterRegistry,
+                      RefreshBudget refreshBudget,
+                      @Value("${app.prices.refresh.stock.fresh-seconds:60}") long stockFreshSeconds,
+                      @Value("${app.prices.refresh.crypto.fresh-seconds:15}") long cryptoFreshSeconds,
+                      @Value("${app.prices.refresh.workers:2}") int refreshWorkers) {
+        this.cache = Objects.requireNonNull(cacheManager.getCache(CACHE_NAME), "prices cache must be configured");
+        this.refreshBudget = refreshBudget;
+        freshFor.put(AssetType.STOCK, Duration.ofSeconds(stockFreshSeconds));
+        freshFor.put(AssetType.CRYPTO, Duration.ofSeconds(cryptoFreshSeconds));
+        this.refreshes = refreshPool(refreshWorkers);
+        for (AssetType type : AssetType.values()) {
+            String tag = type.name().toLowerCase();
+            hits.put(type, Counter.builder("quote.cache.requests")
+                    .description("Quote lookups served from the cache")
+                    .tag("type", tag).tag("result", "hit")
+                    .register(meterRegistry));
+            misses.put(type, Counter.builder("quote.cache.requests")
+                    .description("Quote lookups that had to go upstream")
+                    .tag("type", tag).tag("result", "miss")
+                    .register(meterRegistry));
+            loads.put(type, Timer.builder("quote.cache.load")
+                    .description("Upstream latency of quote loads on a cache miss")
+                    .tag("type", tag)
+                    .register(meterRegistry));
+            coalesced.put(type, Counter.builder("quote.cache.coalesced")
+                    .description("Cache misses that joined another caller's in-flight load")
+                    .tag("type", tag)
+                    .register(meterRegistry));
+            ages.put(type, DistributionSummary.builder("quote.cache.age")
+                    .description("Age of quotes served from the cache")
+                    .baseUnit("milliseconds")
+                    .tag("type", tag)
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Returns the cached quote, loading and caching it through {@code loader} on a miss.
+     * If a load for the same key is already running, waits for its result (or failure) instead.
+     * A stale hit is returned as is and refreshed in the background.
+     */
+    public PriceResponse get(String symbol, AssetType type, Supplier<PriceResponse> loader) {
+        String key = key(symbol, type);
+        PriceResponse cached = lookup(key, type, symbol, loader);
+        if (cached != null) {
+            return cached;
+        }
+        misses.get(type).increment();
+        return load(key, type, UpstreamGovernor.currentPriority(), loader, false);
+    }
+
+    /**
+     * A quote no older than the type's fresh window, for pricing an order. A stale or missing entry
+     * is reloaded inline rather than served, so a failed load fails the caller instead of letting
+     * it execute on an old price.
+     */
+    public PriceResponse getFresh(String symbol, AssetType type, Supplier<PriceResponse> loader) {
+        String key = key(symbol, type);
+        PriceResponse cached = cache.get(key, PriceResponse.class);
+        if (cached != null && isFresh(cached, type)) {
+            hits.get(type).increment();
+            ages.get(type).record(cached.getAgeMs());
+            return cached;
+        }
+        misses.get(type).increment();
+        PriceResponse loaded = load(key, type, CallPriority.ORDER, loader, true);
+        if (loaded == null) {
+            throw new ResourceNotFoundException("Price", "symbol", symbol);
+        }
+        return loaded;
+    }
+
+    private boolean isFresh(PriceResponse quote, AssetType type) {
+        Long ageMs = quote.getAgeMs();
+        return ageMs != null && ageMs <= freshFor.get(type).toMillis();
+    }
+
+    /** Cache hit bookkeeping shared by both lookups: records the hit and revalidates a stale quote. */
+    private PriceResponse lookup(String key, AssetType type, String symbol, Supplier<PriceResponse> loader) {
+        PriceResponse cached = cache.get(key, PriceResponse.class);
+        if (cached == null) {
+            return null;
+        }
+        hits.get(type).increment();
+        Long ageMs = cached.getAgeMs();
+        if (ageMs != null) {
+            ages.get(type).record(ageMs);
+        }
+        if (!isFresh(cached, type) && !loading(key) && refreshBudget.tryAcquire(type)
+                && !revalidate(symbol, type, loader)) {
+            refreshBudget.release(type);
+        }
+        return cached;
+    }
+
+    /** The cached quote, revalidating it in the background if stale, or null on a miss; never loads inline. */
+    public PriceResponse getIfCached(String symbol, AssetType type, Supplier<PriceResponse> loader) {
+        return lookup(key(symbol, type), type, symbol, loader);
+    }
+
+    /**
+     * Non-blocking load for a quote {@link #getIfCached} did not find: subscribes to {@code loader}
+     * instead of waiting on it, and concurrent misses share the same in-flight load. The load runs to
+     * completion and is cached even if the caller stops waiting, so a timed-out request still warms
+     * the cache for the next one. {@code priority} is the one {@code loader} calls upstream with.
+     */
+    public Mono<PriceResponse> loadReactive(String symbol, AssetType type, CallPriority priority,
+                                            Supplier<Mono<PriceResponse>> loader) {
+        return Mono.defer(() -> {
+            String key = key(symbol, type);
+            misses.get(type).increment();
+            CompletableFuture<PriceResponse> existing = joinable(key, priority);
+            if (existing != null) {
+                coalesced.get(type).increment();
+                return Mono.fromFuture(existing, true);
+            }
+            String flightKey = flightKey(key, priority);
+            CompletableFuture<PriceResponse> flight = new CompletableFuture<>();
+            existing = inFlight.putIfAbsent(flightKey, flight);
+            if (existing != null) {
+                coalesced.get(type).increment();
+                return Mono.fromFuture(existing, true);
+            }
+            Timer.Sample sample = Timer.start();
+            flight.whenComplete((loaded, error) -> {
+                sample.stop(loads.get(type));
+                inFlight.remove(flightKey, flight);
+            });
+            // Caching writes through to Redis, which must not happen on an HTTP client event loop
+            loader.get().publishOn(Schedulers.boundedElastic()).subscribe(
+                    loaded -> {
+                        store(key, loaded);
+                        flight.complete(loaded);
+                    },
+                    flight::completeExceptionally,
+                    () -> flight.complete(null));
+            return Mono.fromFuture(flight, true);
+        });
+    }
+
+    /** Caches a quote fetched outside this cache, e.g. as part of a provider batch call. */
+    public void put(String symbol, AssetType type, PriceResponse quote) {
+        store(key(symbol, type), quote);
+    }
+
+    /**
+     * Reloads the quote in the background, whether or not it is stale. Returns false if a load
+     * for it is already running or the refresh queue is full. Does not charge the refresh budget.
+     */
+    public boolean revalidate(String symbol, AssetType type, Supplier<PriceResponse> loader) {
+        String key = key(symbol, type);
+        if (loading(key)) {
+            return false;
+        }
+        try {
+            refreshes.execute(() -> {
+                if (loading(key)) {
+                    return;
+                }
+                try {
+                    // Nobody is waiting on a refresh, so it only gets quota that nobody else wants
+                    UpstreamGovernor.callAs(CallPriority.BACKGROUND,
+                            () -> load(key, type, CallPriority.BACKGROUND, loader, true));
+                } catch (Exception e) {
+                    log.warn("Background refresh of {} failed: {}", key, e.getMessage());
+                }
+            });
+            return true;
+        } catch (Exception e) {
+            log.debug("Quote refresh queue full, skipping {}", key);
+            return false;
+        }
+    }
+
+    /** When the cached quote was fetched upstream, if it is cached at all. */
+    public Optional<Instant> fetchedAt(String symbol, AssetType type) {
+        PriceResponse cached = cache.get(key(symbol, type), PriceResponse.class);
+        return Optional.ofNullable(cached).map(PriceResponse::getFetchedAt);
+    }
+
+    public Duration freshFor(AssetType type) {
+        return freshFor.get(type);
+    }
+
+    private PriceResponse load(String key, AssetType type, CallPriority priority, Supplier<PriceResponse> loader,
+                               boolean refresh) {
+        CompletableFuture<PriceResponse> existing = joinable(key, priority);
+        if (existing != null) {
+            coalesced.get(type).increment();
+            return await(existing);
+        }
+        String flightKey = flightKey(key, priority);
+        CompletableFuture<PriceResponse> flight = new CompletableFuture<>();
+        existing = inFlight.putIfAbsent(flightKey, flight);
+        if (existing != null) {
+            coalesced.get(type).increment();
+            return await(existing);
+        }
+        try {
+            // The previous flight may have landed between the miss and claiming this one
+            PriceResponse loaded = refresh ? null : cache.get(key, PriceResponse.class);
+            if (loaded == null) {
+                loaded = loads.get(type).record(loader);
+                if (loaded != null) {
+                    store(key, loaded);
+                }
+            }
+            flight.complete(loaded);
+            return loaded;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(flightKey, flight);
+        }
+    }
+
+    /** An in-flight load of the key made at {@code priority} or a more urgent one, or null. */
+    private CompletableFuture<PriceResponse> joinable(String key, CallPriority priority) {
+        for (CallPriority ahead : CallPriority.values()) {
+            if (ahead.compareTo(priority) > 0) {
+                return null;
+            }
+            CompletableFuture<PriceResponse> flight = inFlight.get(flightKey(key, ahead));
+            if (flight != null) {
+                return flight;
+            }
+        }
+        return null;
+    }
+
+    /** Whether any load of the key is in flight, at whatever priority. */
+    private boolean loading(String key) {
+        return joinable(key, CallPriority.BACKGROUND) != null;
+    }
+
+    private void store(String key, PriceResponse quote) {
+        quote.setFetchedAt(Instant.now());
+        cache.put(key, quote);
+    }
+
+    public void evict(String symbol, AssetType type) {
+        cache.evict(key(symbol, type));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        refreshes.shutdownNow();
+    }
+
+    private static ThreadPoolExecutor refreshPool(int workers) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(256),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "quote-refresh-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    private static PriceResponse await(CompletableFuture<PriceResponse> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    static String key(String symbol, AssetType type) {
+        return type + ":" + symbol.toUpperCase();
+    }
+
+    private static String flightKey(String key, CallPriority priority) {
+        return key + "@" + priority;
+    }
+}
@@ -0,0 +1,82 @@
+package com.exchange.cache;
+
+import com.exchange.entity.Asset;
+import com.exchange.enums.AssetType;
+import com.exchange.marketdata.CoinbaseTickerStream;
+import com.exchange.repository.AssetRepository;
+import com.exchange.service.PriceService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the quotes of every active asset warm so callers are served from the cache.
+ * Each pass refreshes, oldest first, the quotes that are close to leaving their fresh window,
+ * spending at most the asset type's {@link RefreshBudget}; whatever the budget cannot cover
+ * is served stale until a later pass gets to it. Crypto symbols the ticker stream is serving live
+ * are skipped.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class QuoteRefresher {
+
+    private final AssetRepository assetRepository;
+    private final PriceService priceService;
+    private final QuoteCache quoteCache;
+    private final RefreshBudget refreshBudget;
+    private final CoinbaseTickerStream coinbaseTickerStream;
+
+    @Scheduled(fixedDelayString = "${app.prices.refresh.interval-ms:5000}",
+            initialDelayString = "${app.prices.refresh.interval-ms:5000}")
+    public void refreshActiveQuotes() {
+        for (AssetType type : AssetType.values()) {
+            try {
+                refresh(type);
+            } catch (Exception e) {
+                log.warn("Quote refresh pass for {} failed: {}", type, e.getMessage());
+            }
+        }
+    }
+
+    private void refresh(AssetType type) {
+        // Refresh a little before the fresh window ends so readers rarely see a stale quote
+        Instant refreshBefore = Instant.now().minus(quoteCache.freshFor(type).multipliedBy(3).dividedBy(4));
+        Map<String, Instant> fetchedAt = assetRepository.findByTypeAndActiveTrue(type).stream()
+                .map(Asset::getSymbol)
+                .distinct()
+                // Streamed symbols are kept current by the ticker feed, not by polling
+                .filter(symbol -> type != AssetType.CRYPTO || !coinbaseTickerStream.isLive(symbol))
+                .collect(Collectors.toMap(Function.identity(),
+                        symbol -> quoteCache.fetchedAt(symbol, type).orElse(Instant.EPOCH)));
+        List<String> due = fetchedAt.entrySet().stream()
+                .filter(entry -> entry.getValue().isBefore(refreshBefore))
+                .sorted(Map.Entry.comparingByValue(Comparator.naturalOrder()))
+                .map(Map.Entry::getKey)
+                .toList();
+
+        int started = 0;
+        for (String symbol : due) {
+            if (!refreshBudget.tryAcquire(type)) {
+                break;
+            }
+            if (priceService.refreshPrice(symbol, type)) {
+                started++;
+            } else {
+                // Already loading or the refresh queue is full: nothing went upstream, so neither is it charged
+                refreshBudget.release(type);
+            }
+        }
+        if (!due.isEmpty()) {
+            log.debug("Refreshing {} of {} due {} quotes", started, due.size(), type);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.exchange.cache;
+
+import com.exchange.enums.AssetType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Upstream calls per minute that background quote refreshes may spend, per asset type.
+ * Stocks and crypto come from different providers with very different rate limits, so each gets
+ * its own budget; a refill-per-minute token bucket lets refreshes burst up to one minute's worth.
+ * Cache misses are not charged here: they are user-facing and always go upstream.
+ */
+@Component
+public class RefreshBudget {
+
+    private final Map<AssetType, Bucket> buckets = new EnumMap<>(AssetType.class);
+
+    public RefreshBudget(@Value("${app.prices.refresh.stock.calls-per-minute:4}") int stockCallsPerMinute,
+                         @Value("${app.prices.refresh.crypto.calls-per-minute:120}") int cryptoCallsPerMinute) {
+        buckets.put(AssetType.STOCK, new Bucket(stockCallsPerMinute));
+        buckets.put(AssetType.CRYPTO, new Bucket(cryptoCallsPerMinute));
+    }
+
+    /** Takes one call from the type's budget; returns false if it is spent for now. */
+    public boolean tryAcquire(AssetType type) {
+        return buckets.get(type).tryAcquire(System.nanoTime());
+    }
+
+    /** Gives back a call taken by {@link #tryAcquire} for a refresh that did not start. */
+    public void release(AssetType type) {
+        buckets.get(type).release();
+    }
+
+    private static final class Bucket {
+
+        private static final long MINUTE_NANOS = 60_000_000_000L;
+
+        private final int capacity;
+        private double tokens;
+        private long refilledAt = System.nanoTime();
+
+        Bucket(int callsPerMinute) {
+            this.capacity = callsPerMinute;
+            this.tokens = callsPerMinute;
+        }
+
+        synchronized boolean tryAcquire(long now) {
+            tokens = Math.min(capacity, tokens + (double) (now - refilledAt) * capacity / MINUTE_NANOS);
+            refilledAt = now;
+            if (tokens < 1) {
+                return false;
+            }
+            tokens--;
+            return true;
+        }
+
+        synchronized void release() {
+            tokens = Math.min(capacity, tokens + 1);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.exchange.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+
+/**
+ * A Spring {@link Cache} with an in-process Caffeine L1 in front of a shared L2 (Redis).
+ * Reads try L1, then L2, and copy L2 hits into L1; writes and evictions go to both tiers and are
+ * broadcast so other nodes drop their L1 copy. L1 entries only live for a short TTL, which bounds
+ * staleness if an invalidation message is lost.
+ * <p>
+ * L1 holds deserialized values as-is, so cached objects must not be mutated by callers.
+ */
+public class TieredCache implements Cache {
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<Object, Object> local;
+    private final Cache remote;
+    private final Consumer<Object> invalidation;
+    private final Counter localHits;
+    private final Counter localMisses;
+    private final Counter remoteHits;
+    private final Counter remoteMisses;
+
+    TieredCache(String name,
+                com.github.benmanes.caffeine.cache.Cache<Object, Object> local,
+                Cache remote,
+                Consumer<Object> invalidation,
+                MeterRegistry meterRegistry) {
+        this.name = name;
+        this.local = local;
+        this.remote = remote;
+        this.invalidation = invalidation;
+        this.localHits = gets(meterRegistry, "l1", "hit");
+        this.localMisses = gets(meterRegistry, "l1", "miss");
+        this.remoteHits = gets(meterRegistry, "l2", "hit");
+        this.remoteMisses = gets(meterRegistry, "l2", "miss");
+        Gauge.builder("cache.tier.size", local, cache -> cache.estimatedSize())
+                .description("Entries held in the in-process L1 cache")
+                .tag("cache", name)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return local;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        Object value = local.getIfPresent(key);
+        if (value != null) {
+            localHits.increment();
+            return new SimpleValueWrapper(value);
+        }
+        localMisses.increment();
+
+        ValueWrapper wrapper = remote.get(key);
+        if (wrapper == null || wrapper.get() == null) {
+            remoteMisses.increment();
+            return null;
+        }
+        remoteHits.increment();
+        local.put(key, wrapper.get());
+        return wrapper;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper wrapper = get(key);
+        if (wrapper != null) {
+            return (T) wrapper.get();
+        }
+        T value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        put(key, value);
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (value == null) {
+            evict(key);
+            return;
+        }
+        remote.put(key, value);
+        local.put(key, value);
+        invalidation.accept(key);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = remote.putIfAbsent(key, value);
+        if (existing != null && existing.get() != null) {
+            local.put(key, existing.get());
+            return existing;
+        }
+        if (value != null) {
+            local.put(key, value);
+            invalidation.accept(key);
+        }
+        return null;
+    }
+
+    @Override
+    public void evict(Object key) {
+        remote.evict(key);
+        local.invalidate(key);
+        invalidation.accept(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean present = local.asMap().remove(key) != null;
+        present |= remote.evictIfPresent(key);
+        invalidation.accept(key);
+        return present;
+    }
+
+    @Override
+    public void clear() {
+        remote.clear();
+        local.invalidateAll();
+        invalidation.accept(null);
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean hadEntries = local.estimatedSize() > 0;
+        local.invalidateAll();
+        hadEntries |= remote.invalidate();
+        invalidation.accept(null);
+        return hadEntries;
+    }
+
+    /** Drops a key from L1 only, after another node changed it. */
+    void evictLocal(Object key) {
+        local.invalidate(key);
+    }
+
+    /** Drops all of L1 only, after another node cleared the cache. */
+    void clearLocal() {
+        local.invalidateAll();
+    }
+
+    private Counter gets(MeterRegistry meterRegistry, String tier, String result) {
+        return Counter.builder("cache.tier.gets")
+                .description("Cache lookups per tier and outcome")
+                .tag("cache", name)
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,116 @@
+package com.exchange.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Wraps the Redis cache manager and puts a Caffeine L1 in front of the caches named in
+ * {@code tieredCaches}; every other cache is served by Redis alone.
+ * <p>
+ * Nodes keep their L1s coherent over a Redis pub/sub channel: each write or eviction publishes
+ * {@code nodeId|cache|key} (an empty key means the whole cache), and every other node drops the
+ * matching L1 entries. A node ignores its own messages.
+ */
+@Slf4j
+public class TieredCacheManager implements CacheManager, MessageListener {
+
+    private static final String SEPARATOR = "|";
+
+    private final CacheManager remote;
+    private final Set<String> tieredCaches;
+    private final long localMaxSize;
+    private final Duration localTtl;
+    private final StringRedisTemplate redisTemplate;
+    private final String channel;
+    private final MeterRegistry meterRegistry;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, TieredCache> caches = new ConcurrentHashMap<>();
+    private final Counter invalidationsReceived;
+
+    public TieredCacheManager(CacheManager remote,
+                              Set<String> tieredCaches,
+                              long localMaxSize,
+                              Duration localTtl,
+                              StringRedisTemplate redisTemplate,
+                              String channel,
+                              MeterRegistry meterRegistry) {
+        this.remote = remote;
+        this.tieredCaches = tieredCaches;
+        this.localMaxSize = localMaxSize;
+        this.localTtl = localTtl;
+        this.redisTemplate = redisTemplate;
+        this.channel = channel;
+        this.meterRegistry = meterRegistry;
+        this.invalidationsReceived = Counter.builder("cache.tier.invalidations")
+                .description("L1 invalidations received from other nodes")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        if (!tieredCaches.contains(name)) {
+            return remote.getCache(name);
+        }
+        return caches.computeIfAbsent(name, this::createTieredCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return remote.getCacheNames();
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\" + SEPARATOR, 3);
+        if (parts.length < 3 || parts[0].equals(nodeId)) {
+            return;
+        }
+        TieredCache cache = caches.get(parts[1]);
+        if (cache == null) {
+            return;
+        }
+        invalidationsReceived.increment();
+        if (parts[2].isEmpty()) {
+            cache.clearLocal();
+        } else {
+            cache.evictLocal(parts[2]);
+        }
+    }
+
+    private TieredCache createTieredCache(String name) {
+        Cache redisCache = remote.getCache(name);
+        if (redisCache == null) {
+            throw new IllegalStateException("No remote cache named " + name);
+        }
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> local = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfterWrite(localTtl)
+                .build();
+        return new TieredCache(name, local, redisCache, key -> publish(name, key), meterRegistry);
+    }
+
+    private void publish(String cacheName, Object key) {
+        String message = nodeId + SEPARATOR + cacheName + SEPARATOR + (key != null ? key : "");
+        try {
+            redisTemplate.convertAndSend(channel, message);
+        } catch (Exception e) {
+            // Other nodes fall back to the L1 TTL
+            log.warn("Failed to publish cache invalidation for {}: {}", cacheName, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.exchange.config;
+
+import com.exchange.marketdata.Candles;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Writes price history column by column straight from {@link Candles}, without building a
+ * {@code PriceResponse} per bar, in one of two formats chosen by the {@code Accept} header:
+ * <ul>
+ *   <li>{@value #JSON_VALUE}: {@code {"t":[...],"o":[...],"h":[...],"l":[...],"c":[...],"v":[...]}}
+ *   with times in epoch seconds.</li>
+ *   <li>{@value #BINARY_VALUE}: a 16-byte header (ASCII {@code CNDL}, format version, bar count,
+ *   reserved) followed by the count's {@code int64} times, then the {@code float64} opens, highs,
+ *   lows, closes and volumes. Everything is little-endian and every column starts on an 8-byte
+ *   boundary, so a browser can view the columns as {@code BigInt64Array}/{@code Float64Array}
+ *   over the response buffer without copying.</li>
+ * </ul>
+ * Output goes to the response stream as it is produced, so the body is never held in memory as a
+ * whole.
+ */
+@Component
+public class CandlesHttpMessageConverter extends AbstractHttpMessageConverter<Candles> {
+
+    public static final String JSON_VALUE = "application/vnd.exchange.candles+json";
+    public static final String BINARY_VALUE = "application/vnd.exchange.candles";
+    public static final MediaType JSON = MediaType.parseMediaType(JSON_VALUE);
+    public static final MediaType BINARY = MediaType.parseMediaType(BINARY_VALUE);
+
+    private static final int MAGIC = 0x4C444E43; // "CNDL" read little-endian
+    private static final int VERSION = 1;
+    private static final int CHUNK_BYTES = 64 * 1024;
+
+    private final JsonFactory jsonFactory = new JsonFactory().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    public CandlesHttpMessageConverter() {
+        super(JSON, BINARY);
+    }
+
+    /** True if the client asked for one of the columnar formats by name; wildcards do not count. */
+    public static boolean isRequested(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return false;
+        }
+        return MediaType.parseMediaTypes(accept).stream()
+                .anyMatch(type -> type.equalsTypeAndSubtype(JSON) || type.equalsTypeAndSubtype(BINARY));
+    }
+
+    @Override
+    protected boolean supports(@NonNull Class<?> clazz) {
+        return Candles.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    @NonNull
+    protected Candles readInternal(@NonNull Class<? extends Candles> clazz, @NonNull HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Candles are write-only", inputMessage);
+    }
+
+    @Override
+    protected Long getContentLength(@NonNull Candles candles, MediaType contentType) {
+        // Known up front for the binary format, so it is sent with a Content-Length instead of chunked
+        return contentType != null && contentType.equalsTypeAndSubtype(BINARY)
+                ? 16L + (long) candles.size() * (Long.BYTES + 5 * Double.BYTES)
+                : null;
+    }
+
+    @Override
+    protected void writeInternal(@NonNull Candles candles, @NonNull HttpOutputMessage outputMessage) throws IOException {
+        MediaType contentType = outputMessage.getHeaders().getContentType();
+        if (contentType != null && contentType.equalsTypeAndSubtype(BINARY)) {
+            writeBinary(candles, outputMessage.getBody());
+        } else {
+            writeJson(candles, outputMessage.getBody());
+        }
+    }
+
+    private void writeJson(Candles candles, OutputStream body) throws IOException {
+        try (JsonGenerator json = jsonFactory.createGenerator(body)) {
+            json.writeStartObject();
+            json.writeArrayFieldStart("t");
+            for (int i = 0; i < candles.size(); i++) {
+                json.writeNumber(candles.time(i));
+            }
+            json.writeEndArray();
+            writeJsonColumn(json, "o", candles.size(), candles::open);
+            writeJsonColumn(json, "h", candles.size(), candles::high);
+            writeJsonColumn(json, "l", candles.size(), candles::low);
+            writeJsonColumn(json, "c", candles.size(), candles::close);
+            writeJsonColumn(json, "v", candles.size(), candles::volume);
+            json.writeEndObject();
+        }
+    }
+
+    private static void writeJsonColumn(JsonGenerator json, String name, int size, IntToDoubleFunction column) throws IOException {
+        json.writeArrayFieldStart(name);
+        for (int i = 0; i < size; i++) {
+            json.writeNumber(column.applyAsDouble(i));
+        }
+        json.writeEndArray();
+    }
+
+    private static void writeBinary(Candles candles, OutputStream body) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(CHUNK_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(candles.size()).putInt(0);
+        for (int i = 0; i < candles.size(); i++) {
+            if (!buffer.hasRemaining()) {
+                flush(buffer, body);
+            }
+            buffer.putLong(candles.time(i));
+        }
+        writeBinaryColumn(buffer, body, candles.size(), candles::open);
+        writeBinaryColumn(buffer, body, candles.size(), candles::high);
+        writeBinaryColumn(buffer, body, candles.size(), candles::low);
+        writeBinaryColumn(buffer, body, candles.size(), candles::close);
+        writeBinaryColumn(buffer, body, candles.size(), candles::volume);
+        flush(buffer, body);
+        body.flush();
+    }
+
+    private static void writeBinaryColumn(ByteBuffer buffer, OutputStream body, int size, IntToDoubleFunction column) throws IOException {
+        for (int i = 0; i < size; i++) {
+            if (!buffer.hasRemaining()) {
+                flush(buffer, body);
+            }
+            buffer.putDouble(column.applyAsDouble(i));
+        }
+    }
+
+    private static void flush(ByteBuffer buffer, OutputStream body) throws IOException {
+        body.write(buffer.array(), 0, buffer.position());
+        buffer.clear();
+    }
+}
@@ -1,10 +1,13 @@
 package com.exchange.config;
 
+import com.exchange.cache.TieredCacheManager;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -12,18 +15,25 @@ import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import java.time.Duration;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 
 /**
  * Redis Configuration
- * Configures Redis for caching price data and sessions.
+ * Configures Redis for caching price data and sessions. Caches listed under
+ * {@code app.cache.local.caches} get an in-process L1 in front of Redis, kept coherent
+ * across nodes over Redis pub/sub.
  */
 @Configuration
 @EnableCaching
@@ -61,12 +71,33 @@ public class RedisConfig {
     }
 
     @Bean
-    public RedisCacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+    public TieredCacheManager cacheManager(RedisConnectionFactory connectionFactory,
+                                           StringRedisTemplate stringRedisTemplate,
+                                           MeterRegistry meterRegistry,
+                                           @Value("${app.cache.local.caches:prices}") List<String> localCaches,
+                                           @Value("${app.cache.local.max-size:10000}") long localMaxSize,
+                                           @Value("${app.cache.local.ttl-seconds:10}") long localTtlSeconds,
+                                           @Value("${app.cache.invalidation-channel:cache:invalidate}") String channel,
+                                           @Value("${app.prices.refresh.max-stale-seconds:600}") long pricesTtlSeconds) {
+        return new TieredCacheManager(redisCacheManager(connectionFactory, Duration.ofSeconds(pricesTtlSeconds)),
+                new HashSet<>(localCaches),
+                localMaxSize, Duration.ofSeconds(localTtlSeconds), stringRedisTemplate, channel, meterRegistry);
+    }
+
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListener(RedisConnectionFactory connectionFactory,
+                                                                   TieredCacheManager cacheManager,
+                                                                   @Value("${app.cache.invalidation-channel:cache:invalidate}") String channel) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(cacheManager, new ChannelTopic(channel));
+        return container;
+    }
+
+    private RedisCacheManager redisCacheManager(RedisConnectionFactory connectionFactory, Duration ttlPrices) {
         RedisConnectionFactory factory = Objects.requireNonNull(connectionFactory, "connectionFactory must not be null");
 
         final Duration ttlDefault = Objects.requireNonNull(Duration.ofHours(1));
-        // Increase price cache TTL to 5 minutes to avoid Polygon rate limits (5 calls/min)
-        final Duration ttlPrices  = Objects.requireNonNull(Duration.ofMinutes(5));
         final Duration ttlAssets  = Objects.requireNonNull(Duration.ofHours(1));
 
         GenericJackson2JsonRedisSerializer valueSerializer = jsonSerializer();
@@ -77,6 +108,7 @@ public class RedisConfig {
                 .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(valueSerializer))
                 .disableCachingNullValues();
 
+        // Prices are refreshed in the background long before this; the TTL only caps how stale a served quote can get
         RedisCacheConfiguration pricesConfig = RedisCacheConfiguration.defaultCacheConfig()
                 .entryTtl(ttlPrices)
                 .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
@@ -93,9 +125,11 @@ public class RedisConfig {
         cacheConfigurations.put("prices", pricesConfig);
         cacheConfigurations.put("assets", assetsConfig);
 
-        return RedisCacheManager.builder(factory)
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(factory)
                 .cacheDefaults(defaultConfig)
                 .withInitialCacheConfigurations(cacheConfigurations)
                 .build();
+        redisCacheManager.afterPropertiesSet();
+        return redisCacheManager;
     }
 }
\ No newline at end of file
@@ -1,16 +1,33 @@
 package com.exchange.config;
 
+import io.netty.channel.ChannelOption;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
 /**
  * WebClient Configuration
  * Configures WebClient instances for external API calls.
+ * <p>
+ * Each provider gets its own connection pool, so a slow or saturated provider cannot starve the
+ * others of connections. Pools, timeouts, HTTP/2 and compression are set per provider under
+ * {@code app.<provider>.http}; pool utilisation is published as
+ * {@code reactor.netty.connection.provider.*} metrics tagged with the provider's pool name.
  */
+@Slf4j
 @Configuration
 public class WebClientConfig {
 
@@ -26,34 +43,88 @@ public class WebClientConfig {
     @Value("${app.ollama.base-url:http://localhost:11434}")
     private String ollamaBaseUrl;
 
+    private final Environment environment;
+    private final List<ConnectionProvider> connectionProviders = new ArrayList<>();
+
+    public WebClientConfig(Environment environment) {
+        this.environment = environment;
+    }
+
     @Bean
     public WebClient finnhubWebClient() {
         String baseUrl = Objects.requireNonNull(finnhubBaseUrl, "finnhubBaseUrl must not be null");
-        return WebClient.builder()
-                .baseUrl(baseUrl)
-                .build();
+        return pooledClient("finnhub", baseUrl);
     }
 
     @Bean
     public WebClient coinbaseWebClient() {
         String baseUrl = Objects.requireNonNull(coinbaseBaseUrl, "coinbaseBaseUrl must not be null");
-        return WebClient.builder()
-                .baseUrl(baseUrl)
-                .build();
+        return pooledClient("coinbase", baseUrl);
     }
 
     @Bean
     public WebClient polygonWebClient() {
         String baseUrl = Objects.requireNonNull(polygonBaseUrl, "polygonBaseUrl must not be null");
-        return WebClient.builder()
-                .baseUrl(baseUrl)
-                .build();
+        return pooledClient("polygon", baseUrl);
     }
 
     @Bean
     public WebClient ollamaWebClient() {
+        return pooledClient("ollama", ollamaBaseUrl);
+    }
+
+    @PreDestroy
+    void disposePools() {
+        connectionProviders.forEach(ConnectionProvider::dispose);
+    }
+
+    private WebClient pooledClient(String provider, String baseUrl) {
+        String prefix = "app." + provider + ".http.";
+        int maxConnections = environment.getProperty(prefix + "max-connections", Integer.class, 50);
+        int pendingAcquireMax = environment.getProperty(prefix + "pending-acquire-max", Integer.class, 500);
+        Duration pendingAcquireTimeout = millis(prefix + "pending-acquire-timeout-ms", 5_000);
+        Duration connectTimeout = millis(prefix + "connect-timeout-ms", 3_000);
+        Duration responseTimeout = millis(prefix + "response-timeout-ms", 10_000);
+        Duration maxIdle = millis(prefix + "max-idle-ms", 30_000);
+        Duration maxLife = millis(prefix + "max-life-ms", 300_000);
+        boolean http2 = environment.getProperty(prefix + "http2", Boolean.class, false);
+        boolean compress = environment.getProperty(prefix + "compress", Boolean.class, true);
+        int maxInMemoryBytes = environment.getProperty(prefix + "max-in-memory-kb", Integer.class, 256) * 1024;
+
+        ConnectionProvider pool = ConnectionProvider.builder(provider)
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMax)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                // Close connections before the provider's load balancer silently drops them
+                .maxIdleTime(maxIdle)
+                .maxLifeTime(maxLife)
+                .evictInBackground(Duration.ofSeconds(30))
+                .metrics(true)
+                .build();
+        connectionProviders.add(pool);
+
+        HttpClient httpClient = HttpClient.create(pool)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .responseTimeout(responseTimeout)
+                .compress(compress)
+                .keepAlive(true);
+        if (http2) {
+            // Negotiated through ALPN, so servers without HTTP/2 still get HTTP/1.1
+            httpClient = httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+        }
+
+        log.info("HTTP client for {}: {} connections, {} pending, response timeout {}, HTTP/2 {}",
+                provider, maxConnections, pendingAcquireMax, responseTimeout, http2);
+
         return WebClient.builder()
-                .baseUrl(ollamaBaseUrl)
+                .baseUrl(baseUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(maxInMemoryBytes))
                 .build();
     }
-}
\ No newline at end of file
+
+    private Duration millis(String key, long defaultMillis) {
+        return Duration.ofMillis(environment.getProperty(key, Long.class, defaultMillis));
+    }
+}
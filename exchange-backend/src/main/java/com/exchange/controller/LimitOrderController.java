@@ -3,6 +3,7 @@ package com.exchange.controller;
 import com.exchange.dto.request.LimitOrderRequest;
 import com.exchange.dto.response.ApiResponse;
 import com.exchange.dto.response.LimitOrderResponse;
+import com.exchange.dto.response.OrderResponse;
 import com.exchange.enums.LimitOrderStatus;
 import com.exchange.security.UserPrincipal;
 import com.exchange.service.LimitOrderService;
@@ -50,6 +51,14 @@ public class LimitOrderController {
         return ResponseEntity.ok(ApiResponse.success(orders));
     }
 
+    @GetMapping("/{orderId}/fills")
+    public ResponseEntity<ApiResponse<List<OrderResponse>>> getFills(
+            @AuthenticationPrincipal UserPrincipal userPrincipal,
+            @PathVariable Long orderId) {
+        List<OrderResponse> fills = limitOrderService.getFills(userPrincipal.getId(), orderId);
+        return ResponseEntity.ok(ApiResponse.success(fills));
+    }
+
     @PostMapping("/{orderId}/cancel")
     public ResponseEntity<ApiResponse<LimitOrderResponse>> cancelLimitOrder(
             @AuthenticationPrincipal UserPrincipal userPrincipal,
@@ -1,23 +1,43 @@
 package com.exchange.controller;
 
+import com.exchange.config.CandlesHttpMessageConverter;
 import com.exchange.dto.response.ApiResponse;
 import com.exchange.dto.response.PriceResponse;
 import com.exchange.enums.AssetType;
 import com.exchange.exception.BadRequestException;
+import com.exchange.marketdata.PriceStream;
 import com.exchange.service.PriceService;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import reactor.core.Disposable;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Mono;
 
+import java.io.IOException;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
+@Slf4j
 @RestController
 @RequestMapping("/api/prices")
 @RequiredArgsConstructor
 public class PriceController {
 
     private final PriceService priceService;
+    private final PriceStream priceStream;
+
+    @Value("${app.prices.stream.max-symbols:100}")
+    private int maxStreamSymbols;
+
+    @Value("${app.prices.stream.timeout-ms:1800000}")
+    private long streamTimeoutMs;
 
     @GetMapping("/stock/{symbol}")
     public ResponseEntity<ApiResponse<PriceResponse>> getStockPrice(@PathVariable String symbol) {
@@ -32,29 +52,43 @@ public class PriceController {
     }
 
     @GetMapping("/stock/{symbol}/history")
-    public ResponseEntity<ApiResponse<List<PriceResponse>>> getStockHistory(
+    public ResponseEntity<?> getStockHistory(
             @PathVariable String symbol,
             @RequestParam(defaultValue = "D") String resolution,
             @RequestParam long from,
-            @RequestParam long to) {
-        List<PriceResponse> history = priceService.getHistoricalPrices(symbol, AssetType.STOCK, resolution, from, to);
-        return ResponseEntity.ok(ApiResponse.success(history));
+            @RequestParam long to,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        return history(symbol, AssetType.STOCK, resolution, from, to, accept);
     }
 
     @GetMapping("/crypto/{symbol}/history")
-    public ResponseEntity<ApiResponse<List<PriceResponse>>> getCryptoHistory(
+    public ResponseEntity<?> getCryptoHistory(
             @PathVariable String symbol,
             @RequestParam(defaultValue = "3600") String granularity,
             @RequestParam long from,
-            @RequestParam long to) {
-        List<PriceResponse> history = priceService.getHistoricalPrices(symbol, AssetType.CRYPTO, granularity, from, to);
+            @RequestParam long to,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        return history(symbol, AssetType.CRYPTO, granularity, from, to, accept);
+    }
+
+    /**
+     * Clients that name {@link CandlesHttpMessageConverter#JSON_VALUE} or
+     * {@link CandlesHttpMessageConverter#BINARY_VALUE} in {@code Accept} get the bars as columns;
+     * everyone else gets the list of prices as before.
+     */
+    private ResponseEntity<?> history(String symbol, AssetType type, String resolution, long from, long to, String accept) {
+        if (CandlesHttpMessageConverter.isRequested(accept)) {
+            return ResponseEntity.ok(priceService.getHistoricalCandles(symbol, type, resolution, from, to));
+        }
+        List<PriceResponse> history = priceService.getHistoricalPrices(symbol, type, resolution, from, to);
         return ResponseEntity.ok(ApiResponse.success(history));
     }
 
     private static final int MAX_BATCH_SIZE = 50;
 
+    /** Returns a Mono so the request thread is released while the upstream calls are in flight. */
     @PostMapping("/batch")
-    public ResponseEntity<ApiResponse<Map<String, PriceResponse>>> getBatchPrices(
+    public Mono<ResponseEntity<ApiResponse<Map<String, PriceResponse>>>> getBatchPrices(
             @RequestBody List<String> symbols,
             @RequestParam AssetType type) {
         if (symbols == null || symbols.isEmpty()) {
@@ -63,7 +97,60 @@ public class PriceController {
         if (symbols.size() > MAX_BATCH_SIZE) {
             throw new BadRequestException("Batch size exceeds maximum of " + MAX_BATCH_SIZE + " symbols");
         }
-        Map<String, PriceResponse> prices = priceService.getPrices(symbols, type);
-        return ResponseEntity.ok(ApiResponse.success(prices));
+        return priceService.getPricesReactive(symbols, type)
+                .map(prices -> ResponseEntity.ok(ApiResponse.success(prices)));
+    }
+
+    /**
+     * Server-sent events for a watchlist or portfolio: a {@code snapshot} event with the last known
+     * prices, then a {@code prices} event with only the symbols that moved, at most once per
+     * conflation window. The stream closes after {@code timeout-ms}; {@code EventSource} clients
+     * reconnect on their own and get a fresh snapshot.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamPrices(
+            @RequestParam(required = false) List<String> stocks,
+            @RequestParam(required = false) List<String> crypto) {
+        Map<String, AssetType> symbols = new LinkedHashMap<>();
+        addStreamSymbols(symbols, stocks, AssetType.STOCK);
+        addStreamSymbols(symbols, crypto, AssetType.CRYPTO);
+        if (symbols.isEmpty()) {
+            throw new BadRequestException("At least one stock or crypto symbol is required");
+        }
+        if (symbols.size() > maxStreamSymbols) {
+            throw new BadRequestException("Stream exceeds maximum of " + maxStreamSymbols + " symbols");
+        }
+
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        Disposable subscription = priceStream.subscribe(symbols).subscribe(push -> {
+            try {
+                if (push.isHeartbeat()) {
+                    emitter.send(SseEmitter.event().comment(push.name()));
+                } else {
+                    emitter.send(SseEmitter.event().name(push.name()).data(push.updates(), MediaType.APPLICATION_JSON));
+                }
+            } catch (IOException e) {
+                // Client went away; rethrowing cancels the subscription and lands in the error handler
+                throw Exceptions.propagate(e);
+            }
+        }, e -> {
+            log.debug("Closing price stream: {}", e.toString());
+            emitter.completeWithError(e);
+        });
+        emitter.onCompletion(subscription::dispose);
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> subscription.dispose());
+        return emitter;
+    }
+
+    private static void addStreamSymbols(Map<String, AssetType> symbols, List<String> requested, AssetType type) {
+        if (requested == null) {
+            return;
+        }
+        for (String symbol : requested) {
+            if (!symbol.isBlank()) {
+                symbols.put(symbol.trim().toUpperCase(), type);
+            }
+        }
     }
-}
\ No newline at end of file
+}
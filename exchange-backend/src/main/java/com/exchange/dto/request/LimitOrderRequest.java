@@ -1,6 +1,8 @@
 package com.exchange.dto.request;
 
 import com.exchange.enums.OrderType;
+import com.exchange.enums.TimeInForce;
+import jakarta.validation.constraints.Future;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
@@ -10,6 +12,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 
 @Data
 @Builder
@@ -33,5 +36,12 @@ public class LimitOrderRequest {
     @NotNull(message = "Quantity is required")
     @Positive(message = "Quantity must be positive")
     private BigDecimal quantity;
+
+    // Defaults to GTC
+    private TimeInForce timeInForce;
+
+    // Required for GTD
+    @Future(message = "Expiry must be in the future")
+    private LocalDateTime expiresAt;
 }
 
@@ -1,6 +1,8 @@
 package com.exchange.dto.request;
 
 import com.exchange.enums.OrderType;
+import com.exchange.enums.StopType;
+import jakarta.validation.constraints.DecimalMax;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
@@ -27,10 +29,25 @@ public class StopOrderRequest {
     @NotNull(message = "Order type is required")
     private OrderType type;
 
-    @NotNull(message = "Stop price is required")
+    // Defaults to STOP_MARKET
+    private StopType stopType;
+
+    // Required for STOP_MARKET and STOP_LIMIT
     @Positive(message = "Stop price must be positive")
     private BigDecimal stopPrice;
 
+    // Required for STOP_LIMIT
+    @Positive(message = "Limit price must be positive")
+    private BigDecimal limitPrice;
+
+    // TRAILING_STOP: exactly one of trailAmount / trailPercent
+    @Positive(message = "Trail amount must be positive")
+    private BigDecimal trailAmount;
+
+    @Positive(message = "Trail percent must be positive")
+    @DecimalMax(value = "100", inclusive = false, message = "Trail percent must be below 100")
+    private BigDecimal trailPercent;
+
     @NotNull(message = "Quantity is required")
     @Positive(message = "Quantity must be positive")
     private BigDecimal quantity;
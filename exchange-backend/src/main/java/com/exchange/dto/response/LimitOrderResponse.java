@@ -4,6 +4,7 @@ import com.exchange.entity.LimitOrder;
 import com.exchange.enums.AssetType;
 import com.exchange.enums.LimitOrderStatus;
 import com.exchange.enums.OrderType;
+import com.exchange.enums.TimeInForce;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -27,9 +28,13 @@ public class LimitOrderResponse {
     private OrderType type;
     private BigDecimal targetPrice;
     private BigDecimal quantity;
+    private BigDecimal filledQuantity;
+    private BigDecimal remainingQuantity;
     private BigDecimal reservedAmount;
     private LimitOrderStatus status;
-    private BigDecimal filledPrice;
+    private TimeInForce timeInForce;
+    private LocalDateTime expiresAt;
+    private BigDecimal filledPrice; // Average over all fills
     private LocalDateTime filledAt;
     private LocalDateTime createdAt;
     private BigDecimal currentPrice; // For UI display
@@ -46,8 +51,12 @@ public class LimitOrderResponse {
                 .type(order.getType())
                 .targetPrice(order.getTargetPrice())
                 .quantity(order.getQuantity())
+                .filledQuantity(order.getFilledQuantity())
+                .remainingQuantity(order.getRemainingQuantity())
                 .reservedAmount(order.getReservedAmount())
                 .status(order.getStatus())
+                .timeInForce(order.getTimeInForce())
+                .expiresAt(order.getExpiresAt())
                 .filledPrice(order.getFilledPrice())
                 .filledAt(order.getFilledAt())
                 .createdAt(order.getCreatedAt())
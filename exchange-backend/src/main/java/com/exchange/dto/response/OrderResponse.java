@@ -27,6 +27,7 @@ public class OrderResponse {
     private BigDecimal quantity;
     private BigDecimal pricePerUnit;
     private BigDecimal totalAmount;
+    private Long limitOrderId;
     private LocalDateTime createdAt;
 
     public static OrderResponse fromEntity(Order order) {
@@ -40,6 +41,7 @@ public class OrderResponse {
                 .quantity(order.getQuantity())
                 .pricePerUnit(order.getPricePerUnit())
                 .totalAmount(order.getTotalAmount())
+                .limitOrderId(order.getLimitOrderId())
                 .createdAt(order.getCreatedAt())
                 .build();
     }
@@ -1,11 +1,13 @@
 package com.exchange.dto.response;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDateTime;
 
 @Data
@@ -24,5 +26,12 @@ public class PriceResponse {
     private BigDecimal changePercent;
     private Long volume;
     private LocalDateTime timestamp;
+    private Instant fetchedAt; // When the quote was loaded from upstream (cached quotes only)
+
+    /** How long ago the quote was fetched upstream; lets callers judge a stale-while-revalidate answer. */
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    public Long getAgeMs() {
+        return fetchedAt != null ? Math.max(0, Instant.now().toEpochMilli() - fetchedAt.toEpochMilli()) : null;
+    }
 }
 
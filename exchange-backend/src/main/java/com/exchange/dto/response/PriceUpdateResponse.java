@@ -0,0 +1,24 @@
+package com.exchange.dto.response;
+
+import com.exchange.enums.AssetType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * One symbol's price in a streamed push. {@code change} is relative to the price last pushed to
+ * the same client, and absent in the snapshot that opens the stream.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceUpdateResponse {
+    private String symbol;
+    private AssetType assetType;
+    private BigDecimal price;
+    private BigDecimal change;
+}
@@ -4,6 +4,7 @@ import com.exchange.entity.StopOrder;
 import com.exchange.enums.AssetType;
 import com.exchange.enums.OrderType;
 import com.exchange.enums.StopOrderStatus;
+import com.exchange.enums.StopType;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -25,7 +26,13 @@ public class StopOrderResponse {
     private String assetName;
     private AssetType assetType;
     private OrderType type;
+    private StopType stopType;
     private BigDecimal stopPrice;
+    private BigDecimal limitPrice;
+    private BigDecimal trailAmount;
+    private BigDecimal trailPercent;
+    private BigDecimal highWaterMark;
+    private Long limitOrderId;
     private BigDecimal quantity;
     private StopOrderStatus status;
     private BigDecimal filledPrice;
@@ -44,7 +51,13 @@ public class StopOrderResponse {
                 .assetName(order.getAsset().getName())
                 .assetType(order.getAsset().getType())
                 .type(order.getType())
+                .stopType(order.getStopType())
                 .stopPrice(order.getStopPrice())
+                .limitPrice(order.getLimitPrice())
+                .trailAmount(order.getTrailAmount())
+                .trailPercent(order.getTrailPercent())
+                .highWaterMark(order.getHighWaterMark())
+                .limitOrderId(order.getLimitOrderId())
                 .quantity(order.getQuantity())
                 .status(order.getStatus())
                 .filledPrice(order.getFilledPrice())
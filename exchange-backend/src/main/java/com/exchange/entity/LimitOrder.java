@@ -2,12 +2,14 @@ package com.exchange.entity;
 
 import com.exchange.enums.LimitOrderStatus;
 import com.exchange.enums.OrderType;
+import com.exchange.enums.TimeInForce;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDateTime;
 
 @Entity
@@ -45,6 +47,9 @@ public class LimitOrder {
     @Column(nullable = false, precision = 19, scale = 8)
     private BigDecimal quantity;
 
+    @Column(name = "remaining_quantity", precision = 19, scale = 8)
+    private BigDecimal remainingQuantity; // Quantity not yet filled
+
     @Column(name = "reserved_amount", nullable = false, precision = 19, scale = 4)
     private BigDecimal reservedAmount; // Cash reserved for BUY orders
 
@@ -53,11 +58,19 @@ public class LimitOrder {
     @Builder.Default
     private LimitOrderStatus status = LimitOrderStatus.PENDING;
 
+    @Enumerated(EnumType.STRING)
+    @Column(name = "time_in_force")
+    @Builder.Default
+    private TimeInForce timeInForce = TimeInForce.GTC;
+
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt; // GTD only
+
     @Column(name = "filled_at")
-    private LocalDateTime filledAt;
+    private LocalDateTime filledAt; // Time of the latest fill
 
     @Column(name = "filled_price", precision = 19, scale = 4)
-    private BigDecimal filledPrice;
+    private BigDecimal filledPrice; // Average price over all fills so far
 
     @CreationTimestamp
     @Column(name = "created_at", updatable = false)
@@ -66,5 +79,50 @@ public class LimitOrder {
     @UpdateTimestamp
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
+
+    /** Orders placed before time-in-force existed are good till cancelled. */
+    public TimeInForce getTimeInForce() {
+        return timeInForce != null ? timeInForce : TimeInForce.GTC;
+    }
+
+    /** Orders placed before partial fills existed have no remaining quantity recorded. */
+    public BigDecimal getRemainingQuantity() {
+        return remainingQuantity != null ? remainingQuantity : quantity;
+    }
+
+    /**
+     * Share of {@code reservedAmount} still backing {@code remaining} units. Reserved cash is
+     * released pro rata as a BUY fills, and the differences telescope back to the full reservation.
+     */
+    public BigDecimal reservedFor(BigDecimal remaining) {
+        if (remaining.compareTo(quantity) >= 0) {
+            return reservedAmount;
+        }
+        return reservedAmount.multiply(remaining).divide(quantity, 4, RoundingMode.HALF_UP);
+    }
+
+    public BigDecimal getFilledQuantity() {
+        return quantity.subtract(getRemainingQuantity());
+    }
+
+    /**
+     * Applies one fill: shrinks the remaining quantity and folds the fill into the average fill
+     * price, without looking at earlier fills. Returns true if this fill completed the order.
+     */
+    public boolean recordFill(BigDecimal fillQuantity, BigDecimal fillPrice, LocalDateTime at) {
+        BigDecimal filledBefore = getFilledQuantity();
+        BigDecimal filledAfter = filledBefore.add(fillQuantity);
+        filledPrice = filledPrice == null || filledBefore.signum() == 0
+                ? fillPrice
+                : filledPrice.multiply(filledBefore).add(fillPrice.multiply(fillQuantity))
+                        .divide(filledAfter, 4, RoundingMode.HALF_UP);
+        remainingQuantity = getRemainingQuantity().subtract(fillQuantity);
+        filledAt = at;
+        if (remainingQuantity.signum() == 0) {
+            status = LimitOrderStatus.FILLED;
+            return true;
+        }
+        return false;
+    }
 }
 
@@ -11,7 +11,7 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = @Index(name = "idx_orders_limit_order_id", columnList = "limit_order_id"))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -49,6 +49,9 @@ public class Order {
     @Column(name = "total_amount", nullable = false, precision = 19, scale = 4)
     private BigDecimal totalAmount;
 
+    @Column(name = "limit_order_id")
+    private Long limitOrderId; // Set when this is one fill of a limit order
+
     @CreationTimestamp
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
@@ -2,6 +2,7 @@ package com.exchange.entity;
 
 import com.exchange.enums.OrderType;
 import com.exchange.enums.StopOrderStatus;
+import com.exchange.enums.StopType;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
@@ -39,8 +40,28 @@ public class StopOrder {
     @Column(nullable = false)
     private OrderType type; // SELL only for stop-loss, but kept for flexibility
 
+    @Enumerated(EnumType.STRING)
+    @Column(name = "stop_type")
+    @Builder.Default
+    private StopType stopType = StopType.STOP_MARKET;
+
     @Column(name = "stop_price", nullable = false, precision = 19, scale = 4)
-    private BigDecimal stopPrice;
+    private BigDecimal stopPrice; // For trailing stops, the stop as of the last checkpoint
+
+    @Column(name = "limit_price", precision = 19, scale = 4)
+    private BigDecimal limitPrice; // STOP_LIMIT only
+
+    @Column(name = "trail_amount", precision = 19, scale = 4)
+    private BigDecimal trailAmount; // TRAILING_STOP, absolute offset
+
+    @Column(name = "trail_percent", precision = 7, scale = 4)
+    private BigDecimal trailPercent; // TRAILING_STOP, percent offset
+
+    @Column(name = "high_water_mark", precision = 19, scale = 4)
+    private BigDecimal highWaterMark; // TRAILING_STOP, highest price seen as of the last checkpoint
+
+    @Column(name = "limit_order_id")
+    private Long limitOrderId; // STOP_LIMIT, the limit order placed on trigger
 
     @Column(nullable = false, precision = 19, scale = 8)
     private BigDecimal quantity;
@@ -66,5 +87,10 @@ public class StopOrder {
     @UpdateTimestamp
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
+
+    /** Orders placed before stop types existed are plain stop-market orders. */
+    public StopType getStopType() {
+        return stopType != null ? stopType : StopType.STOP_MARKET;
+    }
 }
 
@@ -0,0 +1,11 @@
+package com.exchange.enums;
+
+/** Who is waiting on an upstream call, in the order quota is handed out when it runs short. */
+public enum CallPriority {
+    /** Pricing an order that is being placed or executed */
+    ORDER,
+    /** A user waiting on a response */
+    INTERACTIVE,
+    /** Cache warming nobody is waiting for */
+    BACKGROUND
+}
@@ -0,0 +1,56 @@
+package com.exchange.enums;
+
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Bar lengths the history endpoints serve. Only {@link #MINUTE}, {@link #HOUR} and {@link #DAY} are
+ * fetched and stored; every other resolution is rolled up from one of them.
+ */
+public enum ChartResolution {
+    MINUTE(60, "1", "1MIN", "1M"),
+    FIVE_MINUTES(300, "5", "5MIN", "5M", "300"),
+    FIFTEEN_MINUTES(900, "15", "15MIN", "15M", "900"),
+    THIRTY_MINUTES(1800, "30", "30MIN", "30M", "1800"),
+    HOUR(3600, "60", "1H", "1HOUR", "1HR", "3600"),
+    FOUR_HOURS(14400, "240", "4H", "4HOUR", "4HR", "14400"),
+    SIX_HOURS(21600, "360", "6H", "6HOUR", "6HR", "21600"),
+    DAY(86400, "D", "1D", "DAY", "DAILY", "86400"),
+    WEEK(0, "W", "1W", "WEEK", "WEEKLY"),
+    MONTH(0, "MO", "1MO", "MONTH", "MONTHLY");
+
+    private final int seconds;
+    private final Set<String> aliases;
+
+    ChartResolution(int seconds, String... aliases) {
+        this.seconds = seconds;
+        this.aliases = Set.of(aliases);
+    }
+
+    /** Bar length in seconds; 0 for calendar weeks and months, which vary. */
+    public int seconds() {
+        return seconds;
+    }
+
+    /** The stored resolution this one is rolled up from. */
+    public ChartResolution base() {
+        if (seconds == 0 || seconds >= DAY.seconds) {
+            return DAY;
+        }
+        return seconds >= HOUR.seconds ? HOUR : MINUTE;
+    }
+
+    /**
+     * Accepts the chart library's resolutions (numbers up to 360 are minutes) as well as Coinbase
+     * granularities in seconds.
+     */
+    public static Optional<ChartResolution> parse(String resolution) {
+        String normalized = resolution.trim().toUpperCase();
+        for (ChartResolution candidate : values()) {
+            if (candidate.aliases.contains(normalized)) {
+                return Optional.of(candidate);
+            }
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,7 @@
+package com.exchange.enums;
+
+public enum StopType {
+    STOP_MARKET,   // Sell at market once the price falls to stopPrice
+    STOP_LIMIT,    // Place a limit sell at limitPrice once the price falls to stopPrice
+    TRAILING_STOP  // stopPrice trails the highest price seen by a fixed amount or percent
+}
@@ -0,0 +1,13 @@
+package com.exchange.enums;
+
+public enum TimeInForce {
+    GTC, // Good till cancelled
+    GTD, // Good till date: expires at expiresAt
+    IOC, // Immediate or cancel: fill what crosses now, cancel the rest
+    FOK; // Fill or kill: fill the whole quantity now or cancel
+
+    /** Whether unfilled quantity rests on the book. */
+    public boolean rests() {
+        return this == GTC || this == GTD;
+    }
+}
@@ -0,0 +1,11 @@
+package com.exchange.enums;
+
+/**
+ * Which way the market has to move for a resting order to fire.
+ * FALLING fires when the price drops to or below the level (limit BUY),
+ * RISING fires when the price climbs to or above it (limit SELL).
+ */
+public enum TriggerDirection {
+    FALLING,
+    RISING
+}
@@ -0,0 +1,12 @@
+package com.exchange.enums;
+
+/** External market-data APIs whose quota is governed client-side; config lives under {@code app.<provider>}. */
+public enum UpstreamProvider {
+    POLYGON,
+    FINNHUB,
+    COINBASE;
+
+    public String configKey() {
+        return name().toLowerCase();
+    }
+}
@@ -0,0 +1,13 @@
+package com.exchange.event;
+
+import com.exchange.enums.AssetType;
+
+import java.math.BigDecimal;
+
+/**
+ * Published whenever a freshly fetched quote differs from the last one seen for the symbol.
+ * {@code observedAtNanos} is a {@link System#nanoTime()} stamp taken when the quote arrived,
+ * used to measure tick-to-fill latency downstream.
+ */
+public record PriceTickEvent(String symbol, AssetType assetType, BigDecimal price, long observedAtNanos) {
+}
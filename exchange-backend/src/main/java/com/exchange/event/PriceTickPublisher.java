@@ -0,0 +1,41 @@
+package com.exchange.event;
+
+import com.exchange.enums.AssetType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Turns upstream quote refreshes into {@link PriceTickEvent}s.
+ * Repeated quotes at an unchanged price are swallowed so listeners only wake up on real moves.
+ */
+@Component
+@RequiredArgsConstructor
+public class PriceTickPublisher {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Map<String, BigDecimal> lastPrices = new ConcurrentHashMap<>();
+
+    public void publish(String symbol, AssetType type, BigDecimal price) {
+        if (symbol == null || price == null) {
+            return;
+        }
+        String key = symbol.toUpperCase();
+        BigDecimal previous = lastPrices.put(key, price);
+        if (previous != null && previous.compareTo(price) == 0) {
+            return;
+        }
+        eventPublisher.publishEvent(new PriceTickEvent(key, type, price, System.nanoTime()));
+    }
+
+    /** Last price published for the symbol, if any quote has been seen since startup. */
+    public Optional<BigDecimal> lastPrice(String symbol) {
+        return Optional.ofNullable(lastPrices.get(symbol.toUpperCase()));
+    }
+}
@@ -0,0 +1,130 @@
+package com.exchange.marketdata;
+
+import com.exchange.enums.AssetType;
+import com.exchange.enums.ChartResolution;
+import com.exchange.exception.ResourceNotFoundException;
+import com.exchange.repository.AssetRepository;
+import com.exchange.service.CoinbaseService;
+import com.exchange.service.PolygonService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Price history served from the {@link CandleStore}, fetching upstream only what the store does not
+ * have yet. Missing ranges are split into calls of at most the provider's page size (Polygon 5000
+ * bars, Coinbase 300) and fetched {@code fetch-concurrency} at a time. A call that fails is left
+ * out of the store, so the response has a gap there and the next query for that range retries it.
+ * Coarser resolutions are rolled up from the stored bars by {@link CandleRollup}.
+ * <p>
+ * Only listed assets have history: the history endpoints are public, so any other symbol is
+ * refused before it costs an upstream call or a file in the store.
+ */
+@Slf4j
+@Component
+public class CandleHistory {
+
+    private static final int POLYGON_MAX_BARS = 5000;
+    private static final int COINBASE_MAX_BARS = 300;
+    /** Stock bars are bucketed in exchange time */
+    private static final ZoneId EXCHANGE_ZONE = ZoneId.of("America/New_York");
+
+    private final CandleStore candleStore;
+    private final AssetRepository assetRepository;
+    private final PolygonService polygonService;
+    private final CoinbaseService coinbaseService;
+    private final int maxBars;
+    private final int fetchConcurrency;
+
+    public CandleHistory(CandleStore candleStore,
+                         AssetRepository assetRepository,
+                         PolygonService polygonService,
+                         CoinbaseService coinbaseService,
+                         @Value("${app.candles.max-bars:20000}") int maxBars,
+                         @Value("${app.candles.fetch-concurrency:4}") int fetchConcurrency) {
+        this.candleStore = candleStore;
+        this.assetRepository = assetRepository;
+        this.polygonService = polygonService;
+        this.coinbaseService = coinbaseService;
+        this.maxBars = maxBars;
+        this.fetchConcurrency = fetchConcurrency;
+    }
+
+    /**
+     * Bars of {@code resolution} opening in {@code [from, to)}. Only the resolution's base (minute,
+     * hour or day bars) is fetched and stored, at most {@code max-bars} of them per query, so a chart
+     * switching between 5M, 15M and 30M, or between D, W and MO, reuses one upstream fetch.
+     */
+    public Candles candles(String symbol, AssetType type, ChartResolution resolution, long from, long to) {
+        assetRepository.findBySymbol(symbol.toUpperCase())
+                .filter(asset -> asset.getType() == type)
+                .orElseThrow(() -> new ResourceNotFoundException("Asset", "symbol", symbol));
+        ChartResolution base = resolution.base();
+        int baseSeconds = base.seconds();
+        CandleRollup rollup = new CandleRollup(resolution, type == AssetType.STOCK ? EXCHANGE_ZONE : ZoneOffset.UTC);
+        long end = Math.min(to, System.currentTimeMillis() / 1000 + baseSeconds);
+        // Start on a bucket boundary so the first rolled-up bar is complete
+        long start = Math.max(rollup.bucketStart(from), end - (long) maxBars * baseSeconds);
+        if (start >= end) {
+            return new Candles(0);
+        }
+
+        List<CandleStore.TimeRange> calls = new ArrayList<>();
+        long perCall = (long) (type == AssetType.STOCK ? POLYGON_MAX_BARS : COINBASE_MAX_BARS) * baseSeconds;
+        for (CandleStore.TimeRange range : candleStore.missing(type, symbol, baseSeconds, start, end)) {
+            for (long callFrom = range.from(); callFrom < range.to(); callFrom += perCall) {
+                calls.add(new CandleStore.TimeRange(callFrom, Math.min(callFrom + perCall, range.to())));
+            }
+        }
+        if (!calls.isEmpty()) {
+            log.debug("Fetching {} {}s history for {} in {} calls", type, baseSeconds, symbol, calls.size());
+            List<Fetched> fetched = Flux.fromIterable(calls)
+                    .flatMap(call -> fetch(symbol, type, baseSeconds, call)
+                            .map(bars -> new Fetched(call, bars))
+                            .onErrorResume(e -> {
+                                log.warn("Leaving a gap in {} history for {} [{}, {}): {}",
+                                        type, symbol, call.from(), call.to(), e.getMessage());
+                                return Mono.empty();
+                            }), fetchConcurrency)
+                    .collectList()
+                    .block();
+            // Written here rather than on the HTTP client's event loop, since it is file I/O
+            if (fetched != null) {
+                fetched.forEach(result -> candleStore.write(type, symbol, baseSeconds,
+                        result.bars(), result.range().from(), result.range().to()));
+            }
+        }
+
+        Candles bars = candleStore.read(type, symbol, baseSeconds, start, end);
+        if (resolution == base) {
+            return bars;
+        }
+        Candles rolled = rollup.apply(bars);
+        if (rolled.isEmpty() || rolled.time(0) >= start) {
+            return rolled;
+        }
+        // max-bars cut into the first bucket; drop the partial bar
+        Candles complete = new Candles(rolled.size() - 1);
+        for (int i = 1; i < rolled.size(); i++) {
+            complete.add(rolled.time(i), rolled.open(i), rolled.high(i), rolled.low(i), rolled.close(i), rolled.volume(i));
+        }
+        return complete;
+    }
+
+    private Mono<Candles> fetch(String symbol, AssetType type, int resolutionSeconds, CandleStore.TimeRange range) {
+        return switch (type) {
+            case STOCK -> polygonService.getCandlesReactive(symbol, resolutionSeconds, range.from(), range.to());
+            case CRYPTO -> coinbaseService.getCandlesReactive(symbol, resolutionSeconds, range.from(), range.to());
+        };
+    }
+
+    private record Fetched(CandleStore.TimeRange range, Candles bars) {
+    }
+}
@@ -0,0 +1,76 @@
+package com.exchange.marketdata;
+
+import com.exchange.enums.ChartResolution;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * Rolls finer bars up into coarser ones in a single pass over the columns: open of the first bar,
+ * high and low across the bucket, close of the last bar, summed volume. Buckets are aligned in the
+ * market's time zone, so 4-hour stock bars start at midnight New York time and weeks start on Monday.
+ */
+public final class CandleRollup {
+
+    private final ChartResolution resolution;
+    private final ZoneId zone;
+
+    public CandleRollup(ChartResolution resolution, ZoneId zone) {
+        this.resolution = resolution;
+        this.zone = zone;
+    }
+
+    /** Open time of the bucket containing {@code time} (epoch seconds). */
+    public long bucketStart(long time) {
+        Instant instant = Instant.ofEpochSecond(time);
+        return switch (resolution) {
+            case WEEK -> startOfDay(instant.atZone(zone).toLocalDate().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)));
+            case MONTH -> startOfDay(instant.atZone(zone).toLocalDate().withDayOfMonth(1));
+            default -> {
+                long offset = zone.getRules().getOffset(instant).getTotalSeconds();
+                yield Math.floorDiv(time + offset, resolution.seconds()) * resolution.seconds() - offset;
+            }
+        };
+    }
+
+    /** Bars of this rollup's resolution built from {@code bars}, which must be in time order. */
+    public Candles apply(Candles bars) {
+        Candles rolled = new Candles(Math.max(bars.size() / 4, 1));
+        if (bars.isEmpty()) {
+            return rolled;
+        }
+        long bucket = bucketStart(bars.time(0));
+        double open = bars.open(0);
+        double high = bars.high(0);
+        double low = bars.low(0);
+        double close = bars.close(0);
+        double volume = bars.volume(0);
+        for (int i = 1; i < bars.size(); i++) {
+            long next = bucketStart(bars.time(i));
+            if (next != bucket) {
+                rolled.add(bucket, open, high, low, close, volume);
+                bucket = next;
+                open = bars.open(i);
+                high = bars.high(i);
+                low = bars.low(i);
+                volume = 0;
+            } else {
+                high = Math.max(high, bars.high(i));
+                low = Math.min(low, bars.low(i));
+            }
+            close = bars.close(i);
+            volume += bars.volume(i);
+        }
+        rolled.add(bucket, open, high, low, close, volume);
+        return rolled;
+    }
+
+    private long startOfDay(LocalDate date) {
+        ZonedDateTime start = date.atStartOfDay(zone);
+        return start.toEpochSecond();
+    }
+}
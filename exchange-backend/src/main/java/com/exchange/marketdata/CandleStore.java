@@ -0,0 +1,321 @@
+package com.exchange.marketdata;
+
+import com.exchange.enums.AssetType;
+import com.exchange.exception.BadRequestException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Persistent OHLCV store, so a chart range is fetched upstream once and served locally after that.
+ * <p>
+ * Bars are kept per asset, symbol and resolution in fixed buckets of {@value #BARS_PER_BUCKET} bar
+ * slots (one day of 1-minute bars, about four years of daily bars). A bucket is one file,
+ * {@code <dir>/<type>/<SYMBOL>/<resolution>/<bucketStart>.bin}: a header with the bucket's start and
+ * the time range that has been fetched into it, then one column per field ({@code long} open times,
+ * then {@code double} open, high, low, close and volume), slot-indexed from the bucket start.
+ * A slot with time 0 holds no bar. Files are rewritten whole and swapped in atomically, so a crash
+ * leaves either the old or the new bucket. Recently used buckets stay in memory.
+ * <p>
+ * Each bucket's fetched range is kept contiguous: {@link #missing} extends a request to meet what is
+ * already there, which bounds the bookkeeping to one interval per bucket. Bars newer than
+ * {@code settle-seconds} can still change (an open bar, or a provider's delayed feed catching up), so
+ * they are stored but never counted as fetched; a query reaching them refetches that tail at most
+ * every {@code tail-refresh-seconds}.
+ * <p>
+ * A fetch that returned no bars at all is only remembered in memory: it may as well be a symbol the
+ * provider does not know, and is not worth a bucket file.
+ */
+@Slf4j
+@Component
+public class CandleStore {
+
+    static final int BARS_PER_BUCKET = 1440;
+
+    private static final int MAGIC = 0x4F484C43;
+    private static final int VERSION = 1;
+    /** magic, version, resolution, bucket start, fetched from, fetched to */
+    private static final int HEADER_BYTES = Integer.BYTES * 3 + Long.BYTES * 3;
+    private static final int FILE_BYTES = HEADER_BYTES + BARS_PER_BUCKET * (Long.BYTES + Double.BYTES * 5);
+    private static final Pattern SYMBOL = Pattern.compile("[A-Z0-9.\\-]{1,20}");
+
+    private final Path directory;
+    private final long settleSeconds;
+    private final long tailRefreshMillis;
+    private final Cache<BucketKey, Bucket> buckets;
+
+    public CandleStore(@Value("${app.candles.dir:data/candles}") String directory,
+                       @Value("${app.candles.cached-buckets:512}") int cachedBuckets,
+                       @Value("${app.candles.settle-seconds:900}") long settleSeconds,
+                       @Value("${app.candles.tail-refresh-seconds:60}") long tailRefreshSeconds) {
+        this.directory = Paths.get(directory);
+        this.settleSeconds = settleSeconds;
+        this.tailRefreshMillis = tailRefreshSeconds * 1000;
+        this.buckets = Caffeine.newBuilder().maximumSize(cachedBuckets).build();
+    }
+
+    /** A half-open range of epoch seconds, {@code [from, to)}. */
+    public record TimeRange(long from, long to) {
+    }
+
+    /** Stored bars with {@code from <= time < to}, oldest first. */
+    public Candles read(AssetType type, String symbol, int resolution, long from, long to) {
+        Candles candles = new Candles();
+        for (long start = bucketStart(from, resolution); start < to; start += span(resolution)) {
+            Bucket bucket = bucket(type, symbol, resolution, start);
+            synchronized (bucket) {
+                for (int slot = 0; slot < BARS_PER_BUCKET; slot++) {
+                    long time = bucket.times[slot];
+                    if (time != 0 && time >= from && time < to) {
+                        candles.add(time, bucket.opens[slot], bucket.highs[slot], bucket.lows[slot],
+                                bucket.closes[slot], bucket.volumes[slot]);
+                    }
+                }
+            }
+        }
+        return candles;
+    }
+
+    /** The parts of {@code [from, to)} that have to be fetched upstream, merged into as few ranges as possible. */
+    public List<TimeRange> missing(AssetType type, String symbol, int resolution, long from, long to) {
+        List<TimeRange> missing = new ArrayList<>();
+        long nowMillis = System.currentTimeMillis();
+        for (long start = bucketStart(from, resolution); start < to; start += span(resolution)) {
+            long wantedFrom = Math.max(from, start);
+            long wantedTo = Math.min(to, start + span(resolution));
+            Bucket bucket = bucket(type, symbol, resolution, start);
+            long coveredFrom;
+            long coveredTo;
+            synchronized (bucket) {
+                coveredFrom = bucket.coveredFrom;
+                coveredTo = bucket.coveredTo;
+                if (nowMillis - bucket.tailFetchedAt < tailRefreshMillis) {
+                    if (coveredFrom >= coveredTo) {
+                        coveredFrom = bucket.tailFrom;
+                        coveredTo = bucket.tailTo;
+                    } else if (bucket.tailFrom <= coveredTo) {
+                        coveredTo = Math.max(coveredTo, bucket.tailTo);
+                    }
+                }
+            }
+            if (coveredFrom >= coveredTo) {
+                append(missing, wantedFrom, wantedTo);
+                continue;
+            }
+            // Reach back or forward to the fetched range so it stays one interval
+            if (wantedFrom < coveredFrom) {
+                append(missing, wantedFrom, Math.max(coveredFrom, wantedFrom));
+            }
+            if (wantedTo > coveredTo) {
+                append(missing, Math.min(coveredTo, wantedTo), wantedTo);
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Stores fetched bars and records {@code [fetchedFrom, fetchedTo)} as fetched, except for the part
+     * that has not settled yet. Bars outside the fetched range are stored too. A fetch with no bars
+     * is recorded but not written to disk.
+     */
+    public void write(AssetType type, String symbol, int resolution, Candles bars, long fetchedFrom, long fetchedTo) {
+        // Bars starting before this had closed settle-seconds ago
+        long settled = System.currentTimeMillis() / 1000 - settleSeconds - resolution;
+        long first = bars.isEmpty() ? fetchedFrom : Math.min(fetchedFrom, bars.time(0));
+        long last = bars.isEmpty() ? fetchedTo : Math.max(fetchedTo, bars.time(bars.size() - 1) + 1);
+        for (long start = bucketStart(first, resolution); start < last; start += span(resolution)) {
+            long end = start + span(resolution);
+            Bucket bucket = bucket(type, symbol, resolution, start);
+            synchronized (bucket) {
+                int stored = 0;
+                for (int i = 0; i < bars.size(); i++) {
+                    long time = bars.time(i);
+                    if (time >= start && time < end && time != 0) {
+                        int slot = (int) ((time - start) / resolution);
+                        bucket.times[slot] = time;
+                        bucket.opens[slot] = bars.open(i);
+                        bucket.highs[slot] = bars.high(i);
+                        bucket.lows[slot] = bars.low(i);
+                        bucket.closes[slot] = bars.close(i);
+                        bucket.volumes[slot] = bars.volume(i);
+                        stored++;
+                    }
+                }
+                long coverFrom = Math.max(fetchedFrom, start);
+                long coverTo = Math.min(Math.min(fetchedTo, end), settled);
+                boolean covered = coverFrom < coverTo && bucket.cover(coverFrom, coverTo);
+                if (fetchedTo > settled && fetchedFrom < end && fetchedTo > start) {
+                    bucket.tailFrom = Math.max(fetchedFrom, start);
+                    bucket.tailTo = Math.min(fetchedTo, end);
+                    bucket.tailFetchedAt = System.currentTimeMillis();
+                }
+                if (stored > 0 || covered && !bars.isEmpty()) {
+                    persist(type, symbol, resolution, bucket);
+                }
+            }
+        }
+    }
+
+    private static void append(List<TimeRange> ranges, long from, long to) {
+        if (from >= to) {
+            return;
+        }
+        if (!ranges.isEmpty() && ranges.get(ranges.size() - 1).to() == from) {
+            TimeRange previous = ranges.remove(ranges.size() - 1);
+            ranges.add(new TimeRange(previous.from(), to));
+        } else {
+            ranges.add(new TimeRange(from, to));
+        }
+    }
+
+    private static long span(int resolution) {
+        return (long) resolution * BARS_PER_BUCKET;
+    }
+
+    private static long bucketStart(long time, int resolution) {
+        return Math.floorDiv(time, span(resolution)) * span(resolution);
+    }
+
+    private Bucket bucket(AssetType type, String symbol, int resolution, long start) {
+        String normalized = symbol.toUpperCase();
+        if (!SYMBOL.matcher(normalized).matches()) {
+            throw new BadRequestException("Invalid symbol: " + symbol);
+        }
+        BucketKey key = new BucketKey(type, normalized, resolution, start);
+        return buckets.get(key, this::load);
+    }
+
+    private Path path(BucketKey key) {
+        return directory.resolve(key.type().name().toLowerCase())
+                .resolve(key.symbol())
+                .resolve(Integer.toString(key.resolution()))
+                .resolve(key.start() + ".bin");
+    }
+
+    private Bucket load(BucketKey key) {
+        Bucket bucket = new Bucket(key.start());
+        Path path = path(key);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(FILE_BYTES);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // keep reading until the file or the buffer is exhausted
+            }
+            buffer.flip();
+            if (buffer.remaining() != FILE_BYTES || buffer.getInt() != MAGIC || buffer.getInt() != VERSION
+                    || buffer.getInt() != key.resolution() || buffer.getLong() != key.start()) {
+                log.warn("Ignoring unreadable candle bucket {}", path);
+                return bucket;
+            }
+            bucket.coveredFrom = buffer.getLong();
+            bucket.coveredTo = buffer.getLong();
+            buffer.asLongBuffer().get(bucket.times);
+            buffer.position(buffer.position() + BARS_PER_BUCKET * Long.BYTES);
+            for (double[] column : bucket.priceColumns()) {
+                buffer.asDoubleBuffer().get(column);
+                buffer.position(buffer.position() + BARS_PER_BUCKET * Double.BYTES);
+            }
+        } catch (NoSuchFileException e) {
+            // Nothing fetched into this bucket yet
+        } catch (IOException e) {
+            log.warn("Cannot read candle bucket {}: {}", path, e.getMessage());
+        }
+        return bucket;
+    }
+
+    /** Caller holds the bucket's monitor. */
+    private void persist(AssetType type, String symbol, int resolution, Bucket bucket) {
+        Path path = path(new BucketKey(type, symbol.toUpperCase(), resolution, bucket.start));
+        ByteBuffer buffer = ByteBuffer.allocate(FILE_BYTES);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(resolution).putLong(bucket.start)
+                .putLong(bucket.coveredFrom).putLong(bucket.coveredTo);
+        buffer.asLongBuffer().put(bucket.times);
+        buffer.position(buffer.position() + BARS_PER_BUCKET * Long.BYTES);
+        for (double[] column : bucket.priceColumns()) {
+            buffer.asDoubleBuffer().put(column);
+            buffer.position(buffer.position() + BARS_PER_BUCKET * Double.BYTES);
+        }
+        buffer.flip();
+        try {
+            Files.createDirectories(path.getParent());
+            Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // The bars stay cached in memory; the range is refetched after a restart
+            log.warn("Cannot write candle bucket {}: {}", path, e.getMessage());
+        }
+    }
+
+    private record BucketKey(AssetType type, String symbol, int resolution, long start) {
+    }
+
+    private static final class Bucket {
+
+        final long start;
+        final long[] times = new long[BARS_PER_BUCKET];
+        final double[] opens = new double[BARS_PER_BUCKET];
+        final double[] highs = new double[BARS_PER_BUCKET];
+        final double[] lows = new double[BARS_PER_BUCKET];
+        final double[] closes = new double[BARS_PER_BUCKET];
+        final double[] volumes = new double[BARS_PER_BUCKET];
+        /** Settled range fetched into this bucket; empty while from == to */
+        long coveredFrom;
+        long coveredTo;
+        /** Last fetch reaching past the settled range, kept in memory only */
+        long tailFrom;
+        long tailTo;
+        long tailFetchedAt;
+
+        Bucket(long start) {
+            this.start = start;
+        }
+
+        double[][] priceColumns() {
+            return new double[][]{opens, highs, lows, closes, volumes};
+        }
+
+        /** Adds a fetched range; returns false if it neither touches nor extends what is already fetched. */
+        boolean cover(long from, long to) {
+            if (coveredFrom >= coveredTo) {
+                coveredFrom = from;
+                coveredTo = to;
+                return true;
+            }
+            if (to < coveredFrom || from > coveredTo) {
+                // Disjoint; keep whichever range is longer
+                if (to - from <= coveredTo - coveredFrom) {
+                    return false;
+                }
+                coveredFrom = from;
+                coveredTo = to;
+                return true;
+            }
+            if (from >= coveredFrom && to <= coveredTo) {
+                return false;
+            }
+            coveredFrom = Math.min(coveredFrom, from);
+            coveredTo = Math.max(coveredTo, to);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.exchange.marketdata;
+
+import com.exchange.dto.response.PriceResponse;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * OHLCV bars held column by column in primitive arrays: one {@code long[]} of bar open times
+ * (epoch seconds) and one {@code double[]} per price and volume field, so a series costs about
+ * 48 bytes per bar instead of a {@link PriceResponse} with five {@code BigDecimal}s.
+ * Bars are appended in time order by whoever builds the series; nothing here sorts them.
+ */
+public final class Candles {
+
+    private long[] times;
+    private double[] opens;
+    private double[] highs;
+    private double[] lows;
+    private double[] closes;
+    private double[] volumes;
+    private int size;
+
+    public Candles() {
+        this(64);
+    }
+
+    public Candles(int capacity) {
+        int initial = Math.max(capacity, 1);
+        times = new long[initial];
+        opens = new double[initial];
+        highs = new double[initial];
+        lows = new double[initial];
+        closes = new double[initial];
+        volumes = new double[initial];
+    }
+
+    public void add(long time, double open, double high, double low, double close, double volume) {
+        if (size == times.length) {
+            int grown = size * 2;
+            times = Arrays.copyOf(times, grown);
+            opens = Arrays.copyOf(opens, grown);
+            highs = Arrays.copyOf(highs, grown);
+            lows = Arrays.copyOf(lows, grown);
+            closes = Arrays.copyOf(closes, grown);
+            volumes = Arrays.copyOf(volumes, grown);
+        }
+        times[size] = time;
+        opens[size] = open;
+        highs[size] = high;
+        lows[size] = low;
+        closes[size] = close;
+        volumes[size] = volume;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long time(int i) {
+        return times[i];
+    }
+
+    public double open(int i) {
+        return opens[i];
+    }
+
+    public double high(int i) {
+        return highs[i];
+    }
+
+    public double low(int i) {
+        return lows[i];
+    }
+
+    public double close(int i) {
+        return closes[i];
+    }
+
+    public double volume(int i) {
+        return volumes[i];
+    }
+
+    /** The bars in the response shape the history endpoints have always returned. */
+    public List<PriceResponse> toPriceResponses(String symbol, ZoneId zone) {
+        List<PriceResponse> prices = new ArrayList<>(size);
+        String upper = symbol.toUpperCase();
+        for (int i = 0; i < size; i++) {
+            BigDecimal open = BigDecimal.valueOf(opens[i]);
+            BigDecimal close = BigDecimal.valueOf(closes[i]);
+            BigDecimal change = close.subtract(open);
+            BigDecimal changePercent = open.compareTo(BigDecimal.ZERO) > 0
+                    ? change.divide(open, 4, RoundingMode.HALF_UP).multiply(new BigDecimal("100"))
+                    : BigDecimal.ZERO;
+            prices.add(PriceResponse.builder()
+                    .symbol(upper)
+                    .price(close)
+                    .open(open)
+                    .high(BigDecimal.valueOf(highs[i]))
+                    .low(BigDecimal.valueOf(lows[i]))
+                    .previousClose(open)
+                    .change(change)
+                    .changePercent(changePercent)
+                    .volume((long) volumes[i])
+                    .timestamp(LocalDateTime.ofInstant(Instant.ofEpochSecond(times[i]), zone))
+                    .build());
+        }
+        return prices;
+    }
+}
@@ -0,0 +1,306 @@
+package com.exchange.marketdata;
+
+import com.exchange.entity.Asset;
+import com.exchange.enums.AssetType;
+import com.exchange.event.PriceTickPublisher;
+import com.exchange.repository.AssetRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.socket.WebSocketSession;
+import org.springframework.web.reactive.socket.client.ReactorNettyWebSocketClient;
+import org.springframework.web.reactive.socket.client.WebSocketClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.retry.Retry;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Streams Coinbase's ticker channel for every active CRYPTO asset into a latest-price table.
+ * <p>
+ * The table maps each symbol to an {@link AtomicReference}, so the feed thread publishes a new
+ * {@link LiveQuote} with a single volatile write and readers never lock. Every ticker is also
+ * published as a price tick, so limit and stop matching react to crypto moves as they stream in.
+ * <p>
+ * Gaps: tickers that arrive with an older sequence than the last one seen are dropped. The
+ * heartbeat channel reports each product's last trade id once a second; if it stays ahead of the
+ * last ticker's trade id for longer than {@code gap-tolerance-ms}, tickers were lost and the quote
+ * is marked gapped. A gapped, stale or disconnected quote is not served, so {@code PriceService}
+ * falls back to REST until the next ticker arrives. The connection is dropped if nothing arrives
+ * for {@code idle-timeout-ms} and re-established with exponential backoff; Coinbase sends each
+ * product's current ticker on subscribe, which closes any gap left by the outage.
+ */
+@Slf4j
+@Component
+public class CoinbaseTickerStream {
+
+    private final AssetRepository assetRepository;
+    private final PriceTickPublisher priceTickPublisher;
+    private final ObjectMapper objectMapper;
+    private final WebSocketClient client = new ReactorNettyWebSocketClient();
+    private final boolean enabled;
+    private final URI url;
+    private final Duration staleAfter;
+    private final Duration idleTimeout;
+    private final Duration maxBackoff;
+    private final long gapToleranceMs;
+
+    private final Map<String, AtomicReference<LiveQuote>> latest = new ConcurrentHashMap<>();
+    private final Map<String, Long> laggingSince = new ConcurrentHashMap<>();
+    private final Set<String> gapped = ConcurrentHashMap.newKeySet();
+    private final Set<String> products = ConcurrentHashMap.newKeySet();
+    private final Sinks.Many<String> commands = Sinks.many().multicast().directBestEffort();
+    private final AtomicBoolean connected = new AtomicBoolean();
+    private final AtomicInteger failures = new AtomicInteger();
+    private final Counter messages;
+    private final Counter reconnects;
+    private final Counter gaps;
+    private final Counter outOfOrder;
+    private Disposable connection;
+
+    public CoinbaseTickerStream(AssetRepository assetRepository,
+                                PriceTickPublisher priceTickPublisher,
+                                ObjectMapper objectMapper,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.coinbase.stream.enabled:true}") boolean enabled,
+                                @Value("${app.coinbase.stream.url:wss://ws-feed.exchange.coinbase.com}") String url,
+                                @Value("${app.coinbase.stream.stale-after-ms:30000}") long staleAfterMs,
+                                @Value("${app.coinbase.stream.idle-timeout-ms:15000}") long idleTimeoutMs,
+                                @Value("${app.coinbase.stream.max-backoff-ms:30000}") long maxBackoffMs,
+                                @Value("${app.coinbase.stream.gap-tolerance-ms:3000}") long gapToleranceMs) {
+        this.assetRepository = assetRepository;
+        this.priceTickPublisher = priceTickPublisher;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.url = URI.create(url);
+        this.staleAfter = Duration.ofMillis(staleAfterMs);
+        this.idleTimeout = Duration.ofMillis(idleTimeoutMs);
+        this.maxBackoff = Duration.ofMillis(maxBackoffMs);
+        this.gapToleranceMs = gapToleranceMs;
+        this.messages = Counter.builder("coinbase.stream.messages")
+                .description("Ticker and heartbeat messages received from the Coinbase feed")
+                .register(meterRegistry);
+        this.reconnects = Counter.builder("coinbase.stream.reconnects")
+                .description("Times the Coinbase feed connection was lost and re-established")
+                .register(meterRegistry);
+        this.gaps = Counter.builder("coinbase.stream.gaps")
+                .description("Products found to have missed tickers")
+                .register(meterRegistry);
+        this.outOfOrder = Counter.builder("coinbase.stream.out_of_order")
+                .description("Tickers dropped because a newer one was already applied")
+                .register(meterRegistry);
+        Gauge.builder("coinbase.stream.connected", connected, flag -> flag.get() ? 1 : 0)
+                .description("Whether the Coinbase feed is connected")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            log.info("Coinbase ticker stream disabled, crypto quotes come from REST");
+            return;
+        }
+        products.addAll(activeProducts());
+        connection = Mono.defer(this::connectOnce)
+                // A clean close is reconnected like a failure
+                .then(Mono.<Void>error(new IllegalStateException("Coinbase feed closed")))
+                .retryWhen(Retry.from(signals -> signals.concatMap(signal -> {
+                    onDisconnect(signal.failure());
+                    return Mono.delay(nextBackoff());
+                })))
+                .subscribe();
+    }
+
+    /** Latest streamed quote for the symbol, unless the feed is down, the quote is stale or a gap was detected. */
+    public Optional<LiveQuote> latest(String symbol) {
+        String key = symbol.toUpperCase();
+        AtomicReference<LiveQuote> ref = latest.get(key);
+        LiveQuote quote = ref != null ? ref.get() : null;
+        if (quote == null || !connected.get() || gapped.contains(key)
+                || quote.receivedAt().isBefore(Instant.now().minus(staleAfter))) {
+            return Optional.empty();
+        }
+        return Optional.of(quote);
+    }
+
+    /** Whether quotes for the symbol currently come from the stream, so REST polling can skip it. */
+    public boolean isLive(String symbol) {
+        return latest(symbol).isPresent();
+    }
+
+    /** Subscribes to newly activated assets and drops deactivated ones without reconnecting. */
+    @Scheduled(fixedDelayString = "${app.coinbase.stream.resync-interval-ms:300000}",
+            initialDelayString = "${app.coinbase.stream.resync-interval-ms:300000}")
+    public void resyncProducts() {
+        if (!enabled) {
+            return;
+        }
+        Set<String> active = activeProducts();
+        Set<String> added = new HashSet<>(active);
+        added.removeAll(products);
+        Set<String> removed = new HashSet<>(products);
+        removed.removeAll(active);
+        products.addAll(added);
+        products.removeAll(removed);
+        if (!added.isEmpty()) {
+            commands.tryEmitNext(subscription("subscribe", added));
+        }
+        if (!removed.isEmpty()) {
+            commands.tryEmitNext(subscription("unsubscribe", removed));
+            removed.forEach(productId -> latest.remove(symbolOf(productId)));
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        if (connection != null) {
+            connection.dispose();
+        }
+    }
+
+    private Mono<Void> connectOnce() {
+        return client.execute(url, session -> {
+            log.info("Connected to Coinbase feed, subscribing to {} products", products.size());
+            connected.set(true);
+            Flux<String> outbound = Flux.concat(Mono.just(subscription("subscribe", products)), commands.asFlux());
+            Mono<Void> send = session.send(outbound.map(session::textMessage));
+            Mono<Void> receive = session.receive()
+                    .timeout(idleTimeout)
+                    .doOnNext(message -> onMessage(message.getPayloadAsText()))
+                    .then();
+            return Mono.firstWithSignal(receive, send.then(Mono.never()));
+        }).doFinally(signal -> connected.set(false));
+    }
+
+    private void onMessage(String payload) {
+        messages.increment();
+        failures.set(0);
+        try {
+            JsonNode message = objectMapper.readTree(payload);
+            switch (message.path("type").asText()) {
+                case "ticker" -> onTicker(message);
+                case "heartbeat" -> onHeartbeat(message);
+                case "error" -> log.warn("Coinbase feed error: {}", message.path("message").asText());
+                default -> { }
+            }
+        } catch (Exception e) {
+            log.debug("Ignoring unreadable Coinbase message: {}", e.getMessage());
+        }
+    }
+
+    private void onTicker(JsonNode message) {
+        String symbol = symbolOf(message.path("product_id").asText());
+        if (symbol.isEmpty() || !message.hasNonNull("price")) {
+            return;
+        }
+        long sequence = message.path("sequence").asLong();
+        AtomicReference<LiveQuote> ref = latest.computeIfAbsent(symbol, key -> new AtomicReference<>());
+        LiveQuote previous = ref.get();
+        if (previous != null && sequence <= previous.sequence()) {
+            outOfOrder.increment();
+            return;
+        }
+
+        Instant now = Instant.now();
+        LiveQuote quote = new LiveQuote(symbol,
+                new BigDecimal(message.get("price").asText()),
+                decimal(message, "open_24h"),
+                decimal(message, "high_24h"),
+                decimal(message, "low_24h"),
+                decimal(message, "volume_24h"),
+                sequence,
+                message.path("trade_id").asLong(),
+                message.hasNonNull("time") ? Instant.parse(message.get("time").asText()) : now,
+                now);
+        ref.set(quote);
+        laggingSince.remove(symbol);
+        gapped.remove(symbol);
+        priceTickPublisher.publish(symbol, AssetType.CRYPTO, quote.price());
+    }
+
+    private void onHeartbeat(JsonNode message) {
+        String symbol = symbolOf(message.path("product_id").asText());
+        AtomicReference<LiveQuote> ref = latest.get(symbol);
+        LiveQuote quote = ref != null ? ref.get() : null;
+        if (quote == null) {
+            return;
+        }
+        if (message.path("last_trade_id").asLong() <= quote.tradeId()) {
+            laggingSince.remove(symbol);
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long since = laggingSince.computeIfAbsent(symbol, key -> now);
+        if (now - since > gapToleranceMs && gapped.add(symbol)) {
+            gaps.increment();
+            log.warn("Missed Coinbase tickers for {}, serving REST quotes until the next ticker", symbol);
+        }
+    }
+
+    private void onDisconnect(Throwable cause) {
+        connected.set(false);
+        reconnects.increment();
+        log.warn("Coinbase feed disconnected ({}), reconnecting", cause.getMessage());
+    }
+
+    private Duration nextBackoff() {
+        long millis = 1000L << Math.min(failures.getAndIncrement(), 10);
+        return Duration.ofMillis(Math.min(millis, maxBackoff.toMillis()));
+    }
+
+    private Set<String> activeProducts() {
+        return assetRepository.findByTypeAndActiveTrue(AssetType.CRYPTO).stream()
+                .map(Asset::getSymbol)
+                .map(CoinbaseTickerStream::productIdOf)
+                .collect(Collectors.toSet());
+    }
+
+    private String subscription(String type, Collection<String> productIds) {
+        ObjectNode message = objectMapper.createObjectNode();
+        message.put("type", type);
+        message.putArray("product_ids").addAll(productIds.stream().map(objectMapper.getNodeFactory()::textNode).toList());
+        message.putArray("channels").add("ticker").add("heartbeat");
+        return message.toString();
+    }
+
+    private static BigDecimal decimal(JsonNode message, String field) {
+        JsonNode value = message.get(field);
+        return value != null && !value.isNull() ? new BigDecimal(value.asText()) : null;
+    }
+
+    private static String productIdOf(String symbol) {
+        String upper = symbol.toUpperCase();
+        return upper.contains("-") ? upper : upper + "-USD";
+    }
+
+    /** Maps a product id back to the asset symbol ({@code BTC-USD} to {@code BTC}). */
+    private static String symbolOf(String productId) {
+        return productId.endsWith("-USD") ? productId.substring(0, productId.length() - 4) : productId;
+    }
+}
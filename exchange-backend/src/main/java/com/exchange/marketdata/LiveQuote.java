@@ -0,0 +1,48 @@
+package com.exchange.marketdata;
+
+import com.exchange.dto.response.PriceResponse;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Latest ticker for one product as streamed by Coinbase.
+ * {@code sequence} orders messages within the product; {@code tradeId} is the last match the
+ * ticker reflects, compared against heartbeats to detect missed tickers.
+ */
+public record LiveQuote(String symbol,
+                        BigDecimal price,
+                        BigDecimal open24h,
+                        BigDecimal high24h,
+                        BigDecimal low24h,
+                        BigDecimal volume24h,
+                        long sequence,
+                        long tradeId,
+                        Instant time,
+                        Instant receivedAt) {
+
+    /** Same shape as a REST stats quote, so callers cannot tell the sources apart. */
+    public PriceResponse toPriceResponse() {
+        BigDecimal open = open24h != null ? open24h : price;
+        BigDecimal change = price.subtract(open);
+        BigDecimal changePercent = open.compareTo(BigDecimal.ZERO) > 0
+                ? change.divide(open, 4, RoundingMode.HALF_UP).multiply(new BigDecimal("100"))
+                : BigDecimal.ZERO;
+        return PriceResponse.builder()
+                .symbol(symbol)
+                .price(price)
+                .open(open)
+                .high(high24h != null ? high24h : price)
+                .low(low24h != null ? low24h : price)
+                .previousClose(open)
+                .change(change)
+                .changePercent(changePercent)
+                .volume(volume24h != null ? volume24h.longValue() : 0L)
+                .timestamp(LocalDateTime.ofInstant(time, ZoneId.systemDefault()))
+                .fetchedAt(receivedAt)
+                .build();
+    }
+}
@@ -0,0 +1,141 @@
+package com.exchange.marketdata;
+
+import com.exchange.dto.response.PriceUpdateResponse;
+import com.exchange.enums.AssetType;
+import com.exchange.event.PriceTickEvent;
+import com.exchange.event.PriceTickPublisher;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fans the application's {@link PriceTickEvent}s out to streaming clients. Every client shares one
+ * multicast of ticks; per client, ticks for its symbols are conflated over {@code conflation-ms}
+ * so a symbol moving many times in a window is pushed once, at its latest price, and a window
+ * with no moves pushes nothing.
+ * <p>
+ * A subscription opens with a snapshot of the last known prices, then carries only the symbols
+ * whose price changed since the previous push. Pushes are handed to subscribers on
+ * {@link Schedulers#boundedElastic()}, so a subscriber may write to a blocking connection; one
+ * that falls {@code max-pending} pushes behind is terminated with an error rather than buffered
+ * without bound, and is expected to reconnect for a fresh snapshot.
+ */
+@Component
+public class PriceStream {
+
+    private final Sinks.Many<PriceTickEvent> ticks = Sinks.many().multicast().directBestEffort();
+    private final PriceTickPublisher priceTickPublisher;
+    private final Duration conflation;
+    private final Duration heartbeat;
+    private final int maxPending;
+    private final AtomicInteger subscribers = new AtomicInteger();
+
+    public PriceStream(PriceTickPublisher priceTickPublisher,
+                       MeterRegistry meterRegistry,
+                       @Value("${app.prices.stream.conflation-ms:500}") long conflationMs,
+                       @Value("${app.prices.stream.heartbeat-ms:15000}") long heartbeatMs,
+                       @Value("${app.prices.stream.max-pending:32}") int maxPending) {
+        this.priceTickPublisher = priceTickPublisher;
+        this.conflation = Duration.ofMillis(conflationMs);
+        this.heartbeat = Duration.ofMillis(heartbeatMs);
+        this.maxPending = maxPending;
+        Gauge.builder("price.stream.subscribers", subscribers, AtomicInteger::get)
+                .description("Clients subscribed to streamed prices")
+                .register(meterRegistry);
+    }
+
+    @EventListener
+    public void onPriceTick(PriceTickEvent tick) {
+        // Ticks arrive from the refresher and the ticker stream at once; a sink takes one emitter at a time
+        synchronized (ticks) {
+            ticks.tryEmitNext(tick);
+        }
+    }
+
+    /**
+     * Pushes for the given symbols, keyed by upper-case symbol: a {@link Push#SNAPSHOT}, then
+     * {@link Push#PRICES} deltas and a {@link Push#HEARTBEAT} every {@code heartbeat-ms}. Never
+     * completes on its own.
+     */
+    public Flux<Push> subscribe(Map<String, AssetType> symbols) {
+        return Flux.defer(() -> {
+            // Only touched by this subscriber's conflation step, which runs serially
+            Map<String, BigDecimal> pushed = new HashMap<>();
+
+            List<PriceUpdateResponse> snapshot = new ArrayList<>();
+            symbols.forEach((symbol, type) -> priceTickPublisher.lastPrice(symbol).ifPresent(price -> {
+                pushed.put(symbol, price);
+                snapshot.add(update(symbol, type, price, null));
+            }));
+
+            Flux<Push> updates = ticks.asFlux()
+                    .filter(tick -> symbols.get(tick.symbol()) == tick.assetType())
+                    .buffer(conflation)
+                    .map(window -> delta(window, pushed))
+                    .filter(delta -> !delta.isEmpty())
+                    .map(delta -> new Push(Push.PRICES, delta));
+            Flux<Push> heartbeats = Flux.interval(heartbeat).map(i -> Push.HEARTBEAT_PUSH);
+
+            return Flux.concat(Mono.just(new Push(Push.SNAPSHOT, snapshot)), Flux.merge(updates, heartbeats));
+        })
+                .onBackpressureBuffer(maxPending)
+                .publishOn(Schedulers.boundedElastic(), 1)
+                .doOnSubscribe(subscription -> subscribers.incrementAndGet())
+                .doFinally(signal -> subscribers.decrementAndGet());
+    }
+
+    /** Latest tick per symbol in the window, for the symbols whose price differs from the last push. */
+    private static List<PriceUpdateResponse> delta(List<PriceTickEvent> window, Map<String, BigDecimal> pushed) {
+        Map<String, PriceTickEvent> latest = new LinkedHashMap<>();
+        for (PriceTickEvent tick : window) {
+            latest.put(tick.symbol(), tick);
+        }
+        List<PriceUpdateResponse> delta = new ArrayList<>(latest.size());
+        for (PriceTickEvent tick : latest.values()) {
+            BigDecimal previous = pushed.put(tick.symbol(), tick.price());
+            if (previous == null || previous.compareTo(tick.price()) != 0) {
+                delta.add(update(tick.symbol(), tick.assetType(), tick.price(),
+                        previous == null ? null : tick.price().subtract(previous)));
+            }
+        }
+        return delta;
+    }
+
+    private static PriceUpdateResponse update(String symbol, AssetType type, BigDecimal price, BigDecimal change) {
+        return PriceUpdateResponse.builder()
+                .symbol(symbol)
+                .assetType(type)
+                .price(price)
+                .change(change)
+                .build();
+    }
+
+    /** One message to a client: {@code updates} is empty for a heartbeat. */
+    public record Push(String name, List<PriceUpdateResponse> updates) {
+        public static final String SNAPSHOT = "snapshot";
+        public static final String PRICES = "prices";
+        public static final String HEARTBEAT = "heartbeat";
+
+        static final Push HEARTBEAT_PUSH = new Push(HEARTBEAT, List.of());
+
+        public boolean isHeartbeat() {
+            return HEARTBEAT.equals(name);
+        }
+    }
+}
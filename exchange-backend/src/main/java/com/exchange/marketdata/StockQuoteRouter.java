@@ -0,0 +1,213 @@
+package com.exchange.marketdata;
+
+import com.exchange.dto.response.PriceResponse;
+import com.exchange.enums.CallPriority;
+import com.exchange.enums.UpstreamProvider;
+import com.exchange.exception.ResourceNotFoundException;
+import com.exchange.service.FinnhubService;
+import com.exchange.service.PolygonService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Routes stock quotes to the providers in the order of {@code app.prices.stock.providers}, failing
+ * over to the next one when a provider cannot answer in time. Every source returns the previous
+ * session's close, so a failover never changes what kind of price is served.
+ * <p>
+ * A provider is passed over when its {@link UpstreamGovernor} bucket would not free up a call within
+ * {@code attempt-timeout-ms}, and an attempt still running after that long is abandoned and counted
+ * as a failure, so neither a provider out of quota nor a slow one holds up a quote that the next
+ * provider could serve.
+ * <p>
+ * Each provider also has a circuit breaker: {@code failure-threshold} consecutive failures open
+ * it for {@code open-ms}, after which a single probe call decides whether it closes again.
+ * Unknown symbols and client-side throttling say nothing about a provider's health, so they fail
+ * over without counting against it.
+ */
+@Slf4j
+@Component
+public class StockQuoteRouter {
+
+    private final UpstreamGovernor upstreamGovernor;
+    private final Map<UpstreamProvider, Function<String, Mono<PriceResponse>>> sources = new EnumMap<>(UpstreamProvider.class);
+    private final Map<UpstreamProvider, ProviderHealth> health = new EnumMap<>(UpstreamProvider.class);
+    private final List<UpstreamProvider> preference = new ArrayList<>();
+    private final int failureThreshold;
+    private final long openMillis;
+    private final Duration attemptTimeout;
+
+    public StockQuoteRouter(PolygonService polygonService,
+                            FinnhubService finnhubService,
+                            UpstreamGovernor upstreamGovernor,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.prices.stock.providers:polygon,finnhub}") List<String> providers,
+                            @Value("${app.prices.stock.failover.failure-threshold:5}") int failureThreshold,
+                            @Value("${app.prices.stock.failover.open-ms:30000}") long openMillis,
+                            @Value("${app.prices.stock.failover.attempt-timeout-ms:3000}") long attemptTimeoutMs) {
+        this.upstreamGovernor = upstreamGovernor;
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+        this.attemptTimeout = Duration.ofMillis(attemptTimeoutMs);
+        Map<UpstreamProvider, Function<String, Mono<PriceResponse>>> available = Map.of(
+                UpstreamProvider.POLYGON, polygonService::getStockQuoteReactive,
+                UpstreamProvider.FINNHUB, finnhubService::getPreviousCloseReactive);
+        for (String name : providers) {
+            UpstreamProvider provider = UpstreamProvider.valueOf(name.trim().toUpperCase());
+            if (!available.containsKey(provider)) {
+                throw new IllegalStateException("No stock quote source for provider " + provider);
+            }
+            preference.add(provider);
+            sources.put(provider, available.get(provider));
+            health.put(provider, new ProviderHealth(provider, meterRegistry));
+        }
+        if (preference.isEmpty()) {
+            throw new IllegalStateException("app.prices.stock.providers must name at least one provider");
+        }
+    }
+
+    public Mono<PriceResponse> quote(String symbol) {
+        return Mono.deferContextual(context -> attempt(symbol,
+                context.getOrDefault(CallPriority.class, UpstreamGovernor.currentPriority()), 0, null));
+    }
+
+    private Mono<PriceResponse> attempt(String symbol, CallPriority priority, int index, Throwable lastError) {
+        if (index >= preference.size()) {
+            return Mono.error(lastError != null ? lastError
+                    : new IllegalStateException("Every stock quote provider is unavailable"));
+        }
+        UpstreamProvider provider = preference.get(index);
+        ProviderHealth providerHealth = health.get(provider);
+        Duration quotaWait = upstreamGovernor.estimatedWait(provider, priority);
+        if (quotaWait.compareTo(attemptTimeout) >= 0) {
+            log.debug("Skipping {} for {}: no quota for about {} ms", provider, symbol, quotaWait.toMillis());
+            providerHealth.skipped.increment();
+            return attempt(symbol, priority, index + 1,
+                    new UpstreamThrottledException(provider, priority, "no quota for " + quotaWait.toMillis() + " ms"));
+        }
+        if (!providerHealth.tryPermit()) {
+            return attempt(symbol, priority, index + 1, lastError);
+        }
+        return sources.get(provider).apply(symbol)
+                .doOnNext(quote -> providerHealth.recordSuccess())
+                .doOnCancel(providerHealth::releasePermit)
+                .timeout(attemptTimeout, Mono.error(() -> new IllegalStateException(
+                        provider.configKey() + " did not answer within " + attemptTimeout.toMillis() + " ms")))
+                .onErrorResume(e -> {
+                    if (hasCause(e, ResourceNotFoundException.class) || hasCause(e, UpstreamThrottledException.class)) {
+                        providerHealth.releasePermit();
+                    } else {
+                        providerHealth.recordFailure();
+                    }
+                    if (index + 1 < preference.size()) {
+                        providerHealth.failovers.increment();
+                        log.warn("{} quote for {} failed ({}), failing over to {}",
+                                provider, symbol, e.getMessage(), preference.get(index + 1));
+                    }
+                    return attempt(symbol, priority, index + 1, e);
+                });
+    }
+
+    private static boolean hasCause(Throwable error, Class<? extends Throwable> type) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (type.isInstance(cause)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private enum CircuitState {
+        CLOSED, HALF_OPEN, OPEN
+    }
+
+    private final class ProviderHealth {
+
+        private final UpstreamProvider provider;
+        private final Counter failovers;
+        private final Counter skipped;
+        private int consecutiveFailures;
+        private CircuitState state = CircuitState.CLOSED;
+        private long openedAt;
+        private boolean probing;
+
+        ProviderHealth(UpstreamProvider provider, MeterRegistry meterRegistry) {
+            this.provider = provider;
+            String tag = provider.configKey();
+            this.failovers = Counter.builder("quote.router.failovers")
+                    .description("Stock quotes that failed on this provider and moved on to the next")
+                    .tag("provider", tag)
+                    .register(meterRegistry);
+            this.skipped = Counter.builder("quote.router.skipped")
+                    .description("Stock quotes that passed this provider over because its quota would not free up in time")
+                    .tag("provider", tag)
+                    .register(meterRegistry);
+            Gauge.builder("quote.router.circuit", this, health -> health.currentState().ordinal())
+                    .description("Circuit breaker state: 0 closed, 1 half-open, 2 open")
+                    .tag("provider", tag)
+                    .register(meterRegistry);
+        }
+
+        synchronized boolean tryPermit() {
+            switch (state) {
+                case CLOSED:
+                    return true;
+                case OPEN:
+                    if (System.currentTimeMillis() - openedAt < openMillis) {
+                        return false;
+                    }
+                    state = CircuitState.HALF_OPEN;
+                    probing = true;
+                    log.info("Probing {} after its circuit was open for {} ms", provider, openMillis);
+                    return true;
+                default:
+                    if (probing) {
+                        return false;
+                    }
+                    probing = true;
+                    return true;
+            }
+        }
+
+        synchronized void recordSuccess() {
+            consecutiveFailures = 0;
+            if (state != CircuitState.CLOSED) {
+                log.info("Closing circuit for {}", provider);
+            }
+            state = CircuitState.CLOSED;
+            probing = false;
+        }
+
+        synchronized void recordFailure() {
+            consecutiveFailures++;
+            if (state == CircuitState.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+                if (state != CircuitState.OPEN) {
+                    log.warn("Opening circuit for {} after {} consecutive failures", provider, consecutiveFailures);
+                }
+                state = CircuitState.OPEN;
+                openedAt = System.currentTimeMillis();
+                probing = false;
+            }
+        }
+
+        /** Gives back a half-open probe whose outcome said nothing about the provider. */
+        synchronized void releasePermit() {
+            probing = false;
+        }
+
+        synchronized CircuitState currentState() {
+            return state;
+        }
+    }
+}
@@ -0,0 +1,327 @@
+package com.exchange.marketdata;
+
+import com.exchange.enums.CallPriority;
+import com.exchange.enums.UpstreamProvider;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Client-side rate limit for each market-data provider, so quota is spent deliberately instead of
+ * being discovered through 429s.
+ * <p>
+ * Every upstream call first {@link #acquire}s a token from its provider's bucket, refilled at
+ * {@code app.<provider>.rate.calls-per-minute} with bursts up to {@code burst}. When no token is
+ * free the call queues without holding a thread, and tokens go to waiting calls by
+ * {@link CallPriority}: order pricing first, then interactive requests, then background refreshes.
+ * {@code reserved-for-orders} tokens are only ever handed to order pricing, so a burst of chart
+ * or watchlist traffic cannot leave an order without a quote. A call that would wait longer than
+ * {@code max-wait-ms}, or find {@code max-queued} calls ahead of it, fails with
+ * {@link UpstreamThrottledException}. Order pricing holds up a request thread, so it gives up
+ * sooner, after {@code order-max-wait-ms}.
+ * <p>
+ * The priority travels in the Reactor context ({@link #withPriority}); blocking callers set it for
+ * the current thread with {@link #callAs}. Calls that set neither count as interactive.
+ */
+@Slf4j
+@Component
+public class UpstreamGovernor {
+
+    private static final ThreadLocal<CallPriority> THREAD_PRIORITY = new ThreadLocal<>();
+
+    private final Map<UpstreamProvider, Bucket> buckets = new EnumMap<>(UpstreamProvider.class);
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "upstream-governor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public UpstreamGovernor(Environment environment, MeterRegistry meterRegistry) {
+        for (UpstreamProvider provider : UpstreamProvider.values()) {
+            String prefix = "app." + provider.configKey() + ".rate.";
+            int callsPerMinute = environment.getProperty(prefix + "calls-per-minute", Integer.class, 0);
+            if (callsPerMinute <= 0) {
+                continue;
+            }
+            long maxWaitMs = environment.getProperty(prefix + "max-wait-ms", Long.class, 10_000L);
+            Bucket bucket = new Bucket(provider,
+                    callsPerMinute,
+                    environment.getProperty(prefix + "burst", Integer.class, callsPerMinute),
+                    environment.getProperty(prefix + "reserved-for-orders", Integer.class, 0),
+                    environment.getProperty(prefix + "max-queued", Integer.class, 100),
+                    Duration.ofMillis(maxWaitMs),
+                    Duration.ofMillis(environment.getProperty(prefix + "order-max-wait-ms", Long.class,
+                            Math.min(maxWaitMs, 2_000L))),
+                    meterRegistry);
+            buckets.put(provider, bucket);
+            log.info("Upstream governor for {}: {} calls/min, burst {}, {} reserved for orders",
+                    provider, callsPerMinute, bucket.capacity, bucket.reserved);
+        }
+    }
+
+    /** Completes once a call to the provider may go out, at the priority found in the subscriber's context. */
+    public Mono<Void> acquire(UpstreamProvider provider) {
+        return Mono.deferContextual(context -> acquire(provider, context.getOrDefault(CallPriority.class, currentPriority())));
+    }
+
+    public Mono<Void> acquire(UpstreamProvider provider, CallPriority priority) {
+        Bucket bucket = buckets.get(provider);
+        if (bucket == null) {
+            return Mono.empty();
+        }
+        Duration maxWait = priority == CallPriority.ORDER ? bucket.orderMaxWait : bucket.maxWait;
+        return Mono.<Void>create(sink -> bucket.request(new Waiter(sink, priority)))
+                .timeout(maxWait, Mono.error(() -> bucket.rejected(priority, "waited longer than " + maxWait)));
+    }
+
+    /**
+     * Roughly how long a call to the provider at {@code priority} would wait for quota if made now,
+     * counting the calls already queued ahead of it; zero if it is not governed.
+     */
+    public Duration estimatedWait(UpstreamProvider provider, CallPriority priority) {
+        Bucket bucket = buckets.get(provider);
+        return bucket != null ? bucket.estimatedWait(priority) : Duration.ZERO;
+    }
+
+    /** Reactor context carrying the priority that {@link #acquire(UpstreamProvider)} picks up. */
+    public static Context withPriority(CallPriority priority) {
+        return Context.of(CallPriority.class, priority);
+    }
+
+    /** Runs a blocking call with upstream calls made on this thread at the given priority. */
+    public static <T> T callAs(CallPriority priority, Supplier<T> call) {
+        CallPriority previous = THREAD_PRIORITY.get();
+        THREAD_PRIORITY.set(priority);
+        try {
+            return call.get();
+        } finally {
+            if (previous != null) {
+                THREAD_PRIORITY.set(previous);
+            } else {
+                THREAD_PRIORITY.remove();
+            }
+        }
+    }
+
+    /** Priority set by {@link #callAs} on this thread, interactive if none. */
+    public static CallPriority currentPriority() {
+        CallPriority priority = THREAD_PRIORITY.get();
+        return priority != null ? priority : CallPriority.INTERACTIVE;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        timer.shutdownNow();
+    }
+
+    private static final class Waiter {
+
+        final MonoSink<Void> sink;
+        final CallPriority priority;
+        volatile boolean cancelled;
+
+        Waiter(MonoSink<Void> sink, CallPriority priority) {
+            this.sink = sink;
+            this.priority = priority;
+            sink.onCancel(() -> cancelled = true);
+        }
+    }
+
+    private final class Bucket {
+
+        private static final double MINUTE_NANOS = 60_000_000_000d;
+
+        private final UpstreamProvider provider;
+        private final int capacity;
+        private final int reserved;
+        private final int maxQueued;
+        private final Duration maxWait;
+        private final Duration orderMaxWait;
+        private final double tokensPerNano;
+        private final Map<CallPriority, ArrayDeque<Waiter>> queues = new EnumMap<>(CallPriority.class);
+        private final Map<CallPriority, Counter> acquired = new EnumMap<>(CallPriority.class);
+        private final Map<CallPriority, Counter> rejected = new EnumMap<>(CallPriority.class);
+        private double tokens;
+        private long refilledAt = System.nanoTime();
+        private int queued;
+        private boolean drainScheduled;
+
+        Bucket(UpstreamProvider provider, int callsPerMinute, int burst, int reserved, int maxQueued,
+               Duration maxWait, Duration orderMaxWait, MeterRegistry meterRegistry) {
+            this.provider = provider;
+            this.capacity = Math.max(1, burst);
+            this.reserved = Math.min(reserved, capacity - 1);
+            this.maxQueued = maxQueued;
+            this.maxWait = maxWait;
+            this.orderMaxWait = orderMaxWait;
+            this.tokensPerNano = callsPerMinute / MINUTE_NANOS;
+            this.tokens = capacity;
+            String tag = provider.configKey();
+            for (CallPriority priority : CallPriority.values()) {
+                queues.put(priority, new ArrayDeque<>());
+                acquired.put(priority, Counter.builder("upstream.governor.acquired")
+                        .description("Upstream calls let through by the rate governor")
+                        .tag("provider", tag).tag("priority", priority.name().toLowerCase())
+                        .register(meterRegistry));
+                rejected.put(priority, Counter.builder("upstream.governor.rejected")
+                        .description("Upstream calls refused because the provider quota would not free up in time")
+                        .tag("provider", tag).tag("priority", priority.name().toLowerCase())
+                        .register(meterRegistry));
+            }
+            Gauge.builder("upstream.governor.queued", this, bucket -> bucket.queuedCount())
+                    .description("Upstream calls waiting for quota")
+                    .tag("provider", tag)
+                    .register(meterRegistry);
+            Gauge.builder("upstream.governor.tokens", this, bucket -> bucket.availableTokens())
+                    .description("Upstream calls that could go out right now")
+                    .tag("provider", tag)
+                    .register(meterRegistry);
+        }
+
+        void request(Waiter waiter) {
+            boolean granted = false;
+            boolean full = false;
+            synchronized (this) {
+                refill(System.nanoTime());
+                if (nobodyAhead(waiter.priority) && tokens >= needed(waiter.priority)) {
+                    tokens--;
+                    granted = true;
+                } else if (queued >= maxQueued) {
+                    full = true;
+                } else {
+                    queues.get(waiter.priority).addLast(waiter);
+                    queued++;
+                    scheduleDrain();
+                }
+            }
+            if (granted) {
+                grant(waiter);
+            } else if (full) {
+                waiter.sink.error(rejected(waiter.priority, maxQueued + " calls already queued"));
+            }
+        }
+
+        private void drain() {
+            List<Waiter> ready = new ArrayList<>();
+            synchronized (this) {
+                drainScheduled = false;
+                refill(System.nanoTime());
+                Waiter next;
+                while ((next = head()) != null && tokens >= needed(next.priority)) {
+                    queues.get(next.priority).pollFirst();
+                    queued--;
+                    tokens--;
+                    ready.add(next);
+                }
+                if (queued > 0) {
+                    scheduleDrain();
+                }
+            }
+            ready.forEach(this::grant);
+        }
+
+        /** Highest-priority live waiter; cancelled (timed out) waiters are dropped on the way. */
+        private Waiter head() {
+            for (ArrayDeque<Waiter> queue : queues.values()) {
+                while (!queue.isEmpty() && queue.peekFirst().cancelled) {
+                    queue.pollFirst();
+                    queued--;
+                }
+                if (!queue.isEmpty()) {
+                    return queue.peekFirst();
+                }
+            }
+            return null;
+        }
+
+        private boolean nobodyAhead(CallPriority priority) {
+            for (CallPriority ahead : CallPriority.values()) {
+                if (ahead.compareTo(priority) > 0) {
+                    return true;
+                }
+                if (queues.get(ahead).stream().anyMatch(waiter -> !waiter.cancelled)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private double needed(CallPriority priority) {
+            return priority == CallPriority.ORDER ? 1 : 1 + reserved;
+        }
+
+        private void scheduleDrain() {
+            if (drainScheduled) {
+                return;
+            }
+            drainScheduled = true;
+            Waiter next = head();
+            double missing = next != null ? Math.max(0, needed(next.priority) - tokens) : 0;
+            long delayNanos = Math.max(1_000_000L, (long) Math.ceil(missing / tokensPerNano));
+            timer.schedule(this::drain, delayNanos, TimeUnit.NANOSECONDS);
+        }
+
+        private void refill(long now) {
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+            refilledAt = now;
+        }
+
+        private void grant(Waiter waiter) {
+            if (waiter.cancelled) {
+                // Timed out between being picked and being granted; hand the token back
+                synchronized (this) {
+                    tokens = Math.min(capacity, tokens + 1);
+                }
+                return;
+            }
+            acquired.get(waiter.priority).increment();
+            waiter.sink.success();
+        }
+
+        UpstreamThrottledException rejected(CallPriority priority, String reason) {
+            rejected.get(priority).increment();
+            log.warn("Refusing {} call to {}: {}", priority, provider, reason);
+            return new UpstreamThrottledException(provider, priority, reason);
+        }
+
+        synchronized Duration estimatedWait(CallPriority priority) {
+            refill(System.nanoTime());
+            long ahead = 0;
+            for (CallPriority queue : CallPriority.values()) {
+                if (queue.compareTo(priority) > 0) {
+                    break;
+                }
+                ahead += queues.get(queue).stream().filter(waiter -> !waiter.cancelled).count();
+            }
+            double missing = ahead + needed(priority) - tokens;
+            return missing <= 0 ? Duration.ZERO : Duration.ofNanos((long) Math.ceil(missing / tokensPerNano));
+        }
+
+        synchronized int queuedCount() {
+            return queued;
+        }
+
+        synchronized double availableTokens() {
+            refill(System.nanoTime());
+            return Math.floor(tokens);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.exchange.marketdata;
+
+import com.exchange.enums.CallPriority;
+import com.exchange.enums.UpstreamProvider;
+
+/** An upstream call was refused client-side because the provider's quota would not free up in time. */
+public class UpstreamThrottledException extends RuntimeException {
+
+    public UpstreamThrottledException(UpstreamProvider provider, CallPriority priority, String reason) {
+        super(provider.configKey() + " quota exhausted for " + priority.name().toLowerCase() + " call: " + reason);
+    }
+}
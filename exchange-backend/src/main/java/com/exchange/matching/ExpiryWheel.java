@@ -0,0 +1,147 @@
+package com.exchange.matching;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Hierarchical timer wheel for limit order expiry.
+ * Four levels of 64 slots; level {@code n} slots are {@code 64^n} ticks wide, so with one-second
+ * ticks the wheel spans about 194 days and anything further out waits in an overflow map.
+ * Scheduling and cancelling are O(1); each tick fires one level-0 slot and, on level boundaries,
+ * cascades one higher slot down. Cancellation is lazy: an id only fires if its current deadline
+ * is due, so stale slot entries from cancelled or rescheduled orders are dropped when reached.
+ * <p>
+ * Deadlines are in memory only; {@link MatchingEngine} reschedules GTD orders from the journal on startup.
+ */
+@Component
+public class ExpiryWheel {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int LEVELS = 4;
+    private static final long SPAN = 1L << (SLOT_BITS * LEVELS);
+
+    private final long tickMs;
+    private final List<List<Long>>[] wheel;
+    private final NavigableMap<Long, List<Long>> overflow = new TreeMap<>();
+    private final Map<Long, Long> deadlines = new HashMap<>();
+    private List<Long> overdue = new ArrayList<>();
+    private long currentTick;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public ExpiryWheel(MeterRegistry meterRegistry,
+                       @Value("${app.matching.expiry.tick-ms:1000}") long tickMs) {
+        this.tickMs = tickMs;
+        this.wheel = new List[LEVELS];
+        for (int level = 0; level < LEVELS; level++) {
+            wheel[level] = new ArrayList<>(SLOTS);
+            for (int slot = 0; slot < SLOTS; slot++) {
+                wheel[level].add(new ArrayList<>());
+            }
+        }
+        this.currentTick = System.currentTimeMillis() / tickMs;
+        Gauge.builder("matching.expiry.scheduled", this, ExpiryWheel::size)
+                .description("Limit orders waiting on the expiry wheel")
+                .register(meterRegistry);
+    }
+
+    /** Schedules (or reschedules) an order to expire at the given instant. */
+    public synchronized void schedule(long orderId, Instant deadline) {
+        long tick = Math.floorDiv(deadline.toEpochMilli() + tickMs - 1, tickMs);
+        deadlines.put(orderId, tick);
+        place(orderId, tick);
+    }
+
+    public synchronized void cancel(long orderId) {
+        deadlines.remove(orderId);
+    }
+
+    public synchronized int size() {
+        return deadlines.size();
+    }
+
+    /** Advances the wheel to {@code now} and returns every order whose deadline has passed. */
+    public synchronized List<Long> advance(Instant now) {
+        List<Long> due = new ArrayList<>();
+        long target = now.toEpochMilli() / tickMs;
+        while (currentTick < target) {
+            currentTick++;
+            for (int level = 1; level < LEVELS; level++) {
+                if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) != 0) {
+                    break;
+                }
+                cascade(wheel[level].get(slotOf(currentTick, level)));
+            }
+            if (!overflow.isEmpty() && overflow.firstKey() - currentTick < SPAN) {
+                cascadeOverflow();
+            }
+            List<Long> slot = wheel[0].get(slotOf(currentTick, 0));
+            fire(slot, due);
+            slot.clear();
+        }
+        // Scheduled in the past, or cascaded onto the current tick
+        fire(overdue, due);
+        overdue = new ArrayList<>();
+        return due;
+    }
+
+    private void place(long orderId, long tick) {
+        long delta = tick - currentTick;
+        if (delta <= 0) {
+            overdue.add(orderId);
+            return;
+        }
+        for (int level = 0; level < LEVELS; level++) {
+            if (delta < 1L << (SLOT_BITS * (level + 1))) {
+                wheel[level].get(slotOf(tick, level)).add(orderId);
+                return;
+            }
+        }
+        overflow.computeIfAbsent(tick, key -> new ArrayList<>()).add(orderId);
+    }
+
+    private void cascade(List<Long> slot) {
+        if (slot.isEmpty()) {
+            return;
+        }
+        List<Long> entries = new ArrayList<>(slot);
+        slot.clear();
+        for (Long orderId : entries) {
+            Long tick = deadlines.get(orderId);
+            if (tick != null) {
+                place(orderId, tick);
+            }
+        }
+    }
+
+    private void cascadeOverflow() {
+        NavigableMap<Long, List<Long>> reachable = overflow.headMap(currentTick + SPAN, false);
+        List<List<Long>> entries = new ArrayList<>(reachable.values());
+        reachable.clear();
+        entries.forEach(this::cascade);
+    }
+
+    private void fire(List<Long> slot, List<Long> due) {
+        for (Long orderId : slot) {
+            Long tick = deadlines.get(orderId);
+            if (tick != null && tick <= currentTick) {
+                deadlines.remove(orderId);
+                due.add(orderId);
+            }
+        }
+    }
+
+    private static int slotOf(long tick, int level) {
+        return (int) ((tick >>> (SLOT_BITS * level)) & (SLOTS - 1));
+    }
+}
@@ -0,0 +1,101 @@
+package com.exchange.matching;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point {@code long} encodings of prices and quantities for code that compares and multiplies
+ * them per order or per tick. Prices are ticks of 0.0001 and quantities units of 10^-8, the scales of
+ * the {@code price}/{@code quantity} columns, so converting a stored value is exact and the hot path
+ * does no {@link BigDecimal} work at all. Conversion happens once at the edges: when an order enters
+ * a book, when a tick arrives, and when a result is persisted or returned.
+ * <p>
+ * Market quotes can be finer than a tick (sub-cent coins), so valuation takes them as units of
+ * 10^-8 ({@link #toQuoteUnits}) rather than rounding them to ticks.
+ * <p>
+ * Products are exact and rounded half-up like {@code setScale(4, HALF_UP)}; they throw
+ * {@link ArithmeticException} rather than overflow, which needs notionals beyond ~10^14.
+ */
+public final class FixedPoint {
+
+    public static final int PRICE_SCALE = 4;
+    public static final int QUANTITY_SCALE = 8;
+
+    private static final long UNITS_PER_WHOLE = 100_000_000L;
+    private static final long TICKS_PER_WHOLE = 10_000L;
+
+    private FixedPoint() {
+    }
+
+    public static long toTicks(BigDecimal price) {
+        return price.setScale(PRICE_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /** Largest tick count not above {@code price}: {@code price >= level} exactly when {@code toTicksFloor(price) >= level}. */
+    public static long toTicksFloor(BigDecimal price) {
+        return price.setScale(PRICE_SCALE, RoundingMode.FLOOR).unscaledValue().longValueExact();
+    }
+
+    /** Smallest tick count not below {@code price}: {@code price <= level} exactly when {@code toTicksCeiling(price) <= level}. */
+    public static long toTicksCeiling(BigDecimal price) {
+        return price.setScale(PRICE_SCALE, RoundingMode.CEILING).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal fromTicks(long ticks) {
+        return BigDecimal.valueOf(ticks, PRICE_SCALE);
+    }
+
+    public static long toUnits(BigDecimal quantity) {
+        return quantity.setScale(QUANTITY_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal fromUnits(long units) {
+        return BigDecimal.valueOf(units, QUANTITY_SCALE);
+    }
+
+    /** A market quote in units of 10^-8, for {@link #marketValue}. */
+    public static long toQuoteUnits(BigDecimal price) {
+        return price.setScale(QUANTITY_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /** {@code quantity * price} in ticks, for a price in ticks. */
+    public static long notional(long quantityUnits, long priceTicks) {
+        long whole = quantityUnits / UNITS_PER_WHOLE;
+        long fraction = quantityUnits % UNITS_PER_WHOLE;
+        return Math.addExact(Math.multiplyExact(whole, priceTicks),
+                divideHalfUp(Math.multiplyExact(fraction, priceTicks), UNITS_PER_WHOLE));
+    }
+
+    /** {@code quantity * quote} in ticks, for a quote in units of 10^-8. */
+    public static long marketValue(long quantityUnits, long quoteUnits) {
+        // (qw + qf/1e8) * (pw + pf/1e8), split so no partial product leaves a long
+        long quantityWhole = quantityUnits / UNITS_PER_WHOLE;
+        long quantityFraction = quantityUnits % UNITS_PER_WHOLE;
+        long quoteWhole = quoteUnits / UNITS_PER_WHOLE;
+        long quoteFraction = quoteUnits % UNITS_PER_WHOLE;
+        long wholeTicks = Math.multiplyExact(Math.multiplyExact(quantityWhole, quoteWhole), TICKS_PER_WHOLE);
+        // Both cross terms are in units of 10^-8, i.e. 10^4 per tick
+        long cross = Math.addExact(Math.multiplyExact(quantityWhole, quoteFraction),
+                Math.multiplyExact(quantityFraction, quoteWhole));
+        long crossTicks = cross / TICKS_PER_WHOLE;
+        // What is left, in units of 10^-16: 10^12 per tick
+        long rest = Math.addExact(Math.multiplyExact(cross % TICKS_PER_WHOLE, UNITS_PER_WHOLE),
+                quantityFraction * quoteFraction);
+        return Math.addExact(Math.addExact(wholeTicks, crossTicks), divideHalfUp(rest, 1_000_000_000_000L));
+    }
+
+    /** {@code numerator / denominator} as a percentage in ticks, rounded like {@code divide(.., 4, HALF_UP) * 100}. */
+    public static long percentTicks(long numerator, long denominator) {
+        return Math.multiplyExact(divideHalfUp(Math.multiplyExact(numerator, TICKS_PER_WHOLE), denominator), 100);
+    }
+
+    /** Integer division rounding half away from zero, as {@link RoundingMode#HALF_UP} does. */
+    static long divideHalfUp(long numerator, long denominator) {
+        long quotient = numerator / denominator;
+        long remainder = numerator % denominator;
+        if (Math.abs(remainder) * 2 >= Math.abs(denominator)) {
+            quotient += (numerator < 0) == (denominator < 0) ? 1 : -1;
+        }
+        return quotient;
+    }
+}
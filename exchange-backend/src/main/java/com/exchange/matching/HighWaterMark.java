@@ -0,0 +1,7 @@
+package com.exchange.matching;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/** A high-water mark reached by a group of trailing stops that has not been written back yet. */
+public record HighWaterMark(BigDecimal price, List<Long> orderIds) {}
@@ -0,0 +1,35 @@
+package com.exchange.matching;
+
+import com.exchange.entity.LimitOrder;
+import com.exchange.enums.AssetType;
+import com.exchange.enums.OrderType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A resting limit order as the matching journal knows it: enough to rebuild the trigger book
+ * and the order book without loading the entity. {@link #UNKNOWN_OWNER} marks records journaled
+ * before owners were, which self-trade prevention cannot match.
+ */
+public record JournaledOrder(long orderId,
+                             long ownerId,
+                             String symbol,
+                             AssetType assetType,
+                             OrderType side,
+                             BigDecimal price,
+                             BigDecimal remaining,
+                             LocalDateTime expiresAt) {
+
+    public static final long UNKNOWN_OWNER = 0;
+
+    public static JournaledOrder of(LimitOrder order) {
+        return new JournaledOrder(order.getId(), order.getUser().getId(), order.getAsset().getSymbol(),
+                order.getAsset().getType(), order.getType(), order.getTargetPrice(), order.getRemainingQuantity(),
+                order.getExpiresAt());
+    }
+
+    JournaledOrder withRemaining(BigDecimal remaining) {
+        return new JournaledOrder(orderId, ownerId, symbol, assetType, side, price, remaining, expiresAt);
+    }
+}
@@ -0,0 +1,36 @@
+package com.exchange.matching;
+
+import com.exchange.entity.LimitOrder;
+import com.exchange.enums.OrderType;
+import com.exchange.enums.TriggerDirection;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+
+/**
+ * Trigger book for pending limit orders.
+ * BUY orders rest on the FALLING side (highest target first), SELL orders on the RISING side (lowest first).
+ * Restored from the matching journal at startup (see {@link MatchingEngine#load()}), then maintained
+ * by {@code LimitOrderServiceImpl} on create, cancel and fill.
+ */
+@Component
+public class LimitTriggerBook extends OrderTriggerBook {
+
+    public void restore(Collection<JournaledOrder> orders) {
+        for (JournaledOrder order : orders) {
+            add(order.symbol(), order.assetType(), toEntry(order.orderId(), order.side(), order.price()));
+        }
+    }
+
+    public void add(LimitOrder order) {
+        add(order.getAsset(), toEntry(order.getId(), order.getType(), order.getTargetPrice()));
+    }
+
+    private static TriggerEntry toEntry(long orderId, OrderType side, BigDecimal targetPrice) {
+        TriggerDirection direction = side == OrderType.BUY
+                ? TriggerDirection.FALLING
+                : TriggerDirection.RISING;
+        return new TriggerEntry(orderId, direction, FixedPoint.toTicks(targetPrice));
+    }
+}
@@ -0,0 +1,13 @@
+package com.exchange.matching;
+
+import java.util.List;
+
+/**
+ * What submitting an order to a {@link SymbolOrderBook} did: the trades it made, and whether it
+ * stopped at a resting order of the same owner. A stopped order traded what it could before
+ * that point, did not rest, and is to be cancelled.
+ */
+record MatchResult(List<Trade> trades, boolean selfTradePrevented) {
+
+    static final MatchResult NONE = new MatchResult(List.of(), false);
+}
@@ -0,0 +1,219 @@
+package com.exchange.matching;
+
+import com.exchange.entity.LimitOrder;
+import com.exchange.enums.AssetType;
+import com.exchange.enums.LimitOrderStatus;
+import com.exchange.enums.OrderType;
+import com.exchange.enums.TimeInForce;
+import com.exchange.repository.LimitOrderRepository;
+import com.exchange.service.TradeSettlementService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Matches users' limit orders against each other with price-time priority.
+ * Each symbol's {@link SymbolOrderBook} is owned by its matching shard, so every book has a single
+ * writer and needs no locks. Trades are settled right away on the shard; if settlement rejects a
+ * trade (an order changed underneath the book), the symbol's book is rebuilt from the database.
+ * Orders with no counterparty keep resting in {@link LimitTriggerBook} and fill against the
+ * external quote as before. Book contents survive restarts through {@link MatchingJournal}.
+ * IOC and FOK orders only take liquidity: they never rest in the book. An order that would trade
+ * with its owner's own resting order is cancelled instead.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MatchingEngine {
+
+    private static final int MAX_REBUILD_ATTEMPTS = 3;
+
+    private final MatchingShards matchingShards;
+    private final LimitOrderRepository limitOrderRepository;
+    private final LimitTriggerBook limitTriggerBook;
+    private final TradeSettlementService tradeSettlementService;
+    private final MatchingJournal matchingJournal;
+    private final ExpiryWheel expiryWheel;
+    private final Map<String, SymbolOrderBook> books = new ConcurrentHashMap<>();
+
+    /**
+     * Restores the trigger book, every order book and the expiry wheel from the matching journal,
+     * settling anything that crossed while the engine was down. IOC and FOK orders left pending
+     * by a crash are due at once, so the expiry scheduler cancels them.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        List<JournaledOrder> resting = matchingJournal.recover();
+        limitTriggerBook.restore(resting);
+        for (JournaledOrder order : resting) {
+            if (order.expiresAt() != null) {
+                expiryWheel.schedule(order.orderId(), order.expiresAt().atZone(ZoneId.systemDefault()).toInstant());
+            }
+        }
+        limitOrderRepository.findIdsByStatusAndTimeInForceIn(LimitOrderStatus.PENDING,
+                        List.of(TimeInForce.IOC, TimeInForce.FOK))
+                .forEach(orderId -> expiryWheel.schedule(orderId, Instant.EPOCH));
+
+        Map<String, List<JournaledOrder>> bySymbol = resting.stream()
+                .collect(Collectors.groupingBy(JournaledOrder::symbol));
+        bySymbol.forEach((symbol, orders) -> {
+            AssetType assetType = orders.get(0).assetType();
+            matchingShards.execute(symbol, assetType, () -> restore(symbol, assetType, orders));
+        });
+        log.info("Restored {} resting limit orders into {} order books", resting.size(), bySymbol.size());
+    }
+
+    /**
+     * Queues a newly placed order for matching on its symbol's shard. The future completes on
+     * the shard once the order's trades are settled, or fails if the shard was full.
+     */
+    public CompletableFuture<Void> submit(LimitOrder order) {
+        String symbol = order.getAsset().getSymbol();
+        AssetType assetType = order.getAsset().getType();
+        long orderId = order.getId();
+        long ownerId = order.getUser().getId();
+        OrderType side = order.getType();
+        BigDecimal limitPrice = order.getTargetPrice();
+        BigDecimal quantity = order.getRemainingQuantity();
+        TimeInForce timeInForce = order.getTimeInForce();
+
+        CompletableFuture<Void> matched = matchingShards.submit(symbol, assetType, () -> {
+            MatchResult result = book(symbol, assetType).submit(orderId, ownerId, side, limitPrice, quantity,
+                    timeInForce.rests(), timeInForce == TimeInForce.FOK);
+            settle(symbol, assetType, result.trades());
+            if (result.selfTradePrevented()) {
+                cancelSelfTrades(List.of(orderId));
+            }
+            return null;
+        });
+        if (matched.isCompletedExceptionally()) {
+            log.warn("Matching shard full, limit order {} will only fill against the external price", orderId);
+        }
+        return matched;
+    }
+
+    /** Takes an order out of its book after it was cancelled or filled elsewhere. */
+    public void remove(String symbol, long orderId) {
+        SymbolOrderBook book = books.get(symbol);
+        if (book != null) {
+            matchingShards.execute(symbol, book.assetType, () -> books.get(symbol).cancel(orderId));
+        }
+    }
+
+    private SymbolOrderBook book(String symbol, AssetType assetType) {
+        return books.computeIfAbsent(symbol, key -> new SymbolOrderBook(assetType));
+    }
+
+    private void settle(String symbol, AssetType assetType, List<Trade> trades) {
+        if (!trades.isEmpty() && !trySettle(trades)) {
+            rebuild(symbol, assetType);
+        }
+    }
+
+    /**
+     * Returns true if every trade settled. Settled fills are journaled and closed orders dropped
+     * from the trigger book either way.
+     */
+    private boolean trySettle(List<Trade> trades) {
+        try {
+            TradeSettlement settlement = tradeSettlementService.settle(trades);
+            for (Trade trade : settlement.settled()) {
+                matchingJournal.recordFill(trade.buyOrderId(), trade.quantity());
+                matchingJournal.recordFill(trade.sellOrderId(), trade.quantity());
+            }
+            for (Long orderId : settlement.closedOrderIds()) {
+                limitTriggerBook.remove(orderId);
+                matchingJournal.recordRemove(orderId);
+                expiryWheel.cancel(orderId);
+            }
+            return settlement.rejected() == 0;
+        } catch (Exception e) {
+            log.warn("Settlement of {} trades failed: {}", trades.size(), e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Cancels orders the book stopped from trading with their owner's own orders, and drops them
+     * from the trigger book. An order that cannot be cancelled stays pending and keeps filling
+     * against the external quote.
+     */
+    private void cancelSelfTrades(List<Long> orderIds) {
+        for (Long orderId : orderIds) {
+            try {
+                if (tradeSettlementService.cancelSelfTrade(orderId)) {
+                    limitTriggerBook.remove(orderId);
+                    matchingJournal.recordRemove(orderId);
+                    expiryWheel.cancel(orderId);
+                }
+            } catch (Exception e) {
+                log.warn("Cancelling self-trading limit order {} failed: {}", orderId, e.getMessage());
+            }
+        }
+    }
+
+    private void restore(String symbol, AssetType assetType, List<JournaledOrder> orders) {
+        SymbolOrderBook book = new SymbolOrderBook(assetType);
+        List<Trade> trades = new ArrayList<>();
+        List<Long> selfTrades = new ArrayList<>();
+        for (JournaledOrder order : orders) {
+            MatchResult result = book.submit(order.orderId(), order.ownerId(), order.side(), order.price(),
+                    order.remaining());
+            trades.addAll(result.trades());
+            if (result.selfTradePrevented()) {
+                selfTrades.add(order.orderId());
+            }
+        }
+        books.put(symbol, book);
+        settle(symbol, assetType, trades);
+        cancelSelfTrades(selfTrades);
+    }
+
+    /**
+     * Replays the symbol's pending orders from the database into a fresh book in time order and
+     * settles whatever crosses. Every rejected trade closes or shrinks an order in the database,
+     * so this converges.
+     */
+    private void rebuild(String symbol, AssetType assetType) {
+        for (int attempt = 1; attempt <= MAX_REBUILD_ATTEMPTS; attempt++) {
+            List<LimitOrder> pending = limitOrderRepository.findBySymbolAndStatusOrderById(symbol, LimitOrderStatus.PENDING)
+                    .stream()
+                    .filter(order -> order.getTimeInForce().rests())
+                    .toList();
+            matchingJournal.resync(symbol, pending);
+
+            SymbolOrderBook book = new SymbolOrderBook(assetType);
+            List<Trade> trades = new ArrayList<>();
+            List<Long> selfTrades = new ArrayList<>();
+            for (LimitOrder order : pending) {
+                MatchResult result = book.submit(order.getId(), order.getUser().getId(), order.getType(),
+                        order.getTargetPrice(), order.getRemainingQuantity());
+                trades.addAll(result.trades());
+                if (result.selfTradePrevented()) {
+                    selfTrades.add(order.getId());
+                }
+            }
+            books.put(symbol, book);
+            boolean consistent = trades.isEmpty() || trySettle(trades);
+            // After settling, so the trades a stopped order made before the stop still apply
+            cancelSelfTrades(selfTrades);
+            if (consistent) {
+                log.debug("Rebuilt order book for {} with {} resting orders", symbol, book.size());
+                return;
+            }
+        }
+        log.error("Order book for {} still inconsistent after {} rebuilds", symbol, MAX_REBUILD_ATTEMPTS);
+    }
+}
@@ -0,0 +1,507 @@
+package com.exchange.matching;
+
+import com.exchange.entity.LimitOrder;
+import com.exchange.enums.AssetType;
+import com.exchange.enums.LimitOrderStatus;
+import com.exchange.enums.OrderType;
+import com.exchange.repository.LimitOrderRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Append-only journal of resting limit order events, with periodic snapshots.
+ * <p>
+ * Events are appended after their transaction commits to memory-mapped segment files:
+ * {@code [length][crc32][seq][type][payload]}. A snapshot writes every resting order at a
+ * sequence number, after which older segments are deleted. On startup the newest valid snapshot
+ * is loaded and later records are replayed, stopping at the first torn or corrupt record.
+ * <p>
+ * The database stays the source of truth: settlement still checks status and remaining quantity
+ * under row locks, so replaying an event twice can never fill twice. Recovery reconciles the
+ * replayed state against the ids of pending orders (a scalar query), which covers events lost
+ * between a commit and its append.
+ */
+@Slf4j
+@Component
+public class MatchingJournal {
+
+    private static final byte ADD = 1;
+    private static final byte FILL = 2;
+    private static final byte REMOVE = 3;
+
+    /** length + crc32 */
+    private static final int FRAME_BYTES = Integer.BYTES * 2;
+    private static final int SNAPSHOT_MAGIC = 0x4D4A534E;
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".bin";
+    private static final long NO_EXPIRY = Long.MIN_VALUE;
+
+    private final LimitOrderRepository limitOrderRepository;
+    private final Path directory;
+    private final int segmentBytes;
+    private final boolean forceOnWrite;
+
+    // All state below is guarded by this
+    private final Map<Long, JournaledOrder> orders = new HashMap<>();
+    private final ByteBuffer scratch = ByteBuffer.allocate(512);
+    private final CRC32 crc = new CRC32();
+    private MappedByteBuffer segment;
+    private long lastSeq;
+    private long snapshotSeq;
+
+    public MatchingJournal(LimitOrderRepository limitOrderRepository,
+                           @Value("${app.matching.journal.dir:data/journal}") String directory,
+                           @Value("${app.matching.journal.segment-bytes:67108864}") int segmentBytes,
+                           @Value("${app.matching.journal.force-on-write:false}") boolean forceOnWrite) {
+        this.limitOrderRepository = limitOrderRepository;
+        this.directory = Paths.get(directory);
+        this.segmentBytes = segmentBytes;
+        this.forceOnWrite = forceOnWrite;
+    }
+
+    /**
+     * Loads the snapshot and replays the journal so events appended before recovery land on top of it.
+     * An unreadable journal directory only costs a full reload: {@link #recover()} finds every order missing.
+     */
+    @PostConstruct
+    synchronized void open() {
+        long startedAt = System.currentTimeMillis();
+        int replayed = 0;
+        try {
+            Files.createDirectories(directory);
+            snapshotSeq = loadLatestSnapshot();
+            lastSeq = snapshotSeq;
+            for (Path path : files(SEGMENT_PREFIX, SEGMENT_SUFFIX)) {
+                replayed += replay(path);
+            }
+        } catch (IOException e) {
+            orders.clear();
+            log.error("Cannot read matching journal in {}, recovering from the database: {}", directory, e.getMessage(), e);
+        }
+        openSegment(lastSeq + 1);
+        log.info("Matching journal opened: {} resting orders from snapshot @{} and {} journal records in {}ms",
+                orders.size(), snapshotSeq, replayed, System.currentTimeMillis() - startedAt);
+    }
+
+    /**
+     * Reconciles the replayed state against the database and returns every resting order, oldest first.
+     * Only ids are queried; entities are loaded just for orders the journal missed.
+     */
+    public List<JournaledOrder> recover() {
+        long highestId = limitOrderRepository.findMaxId();
+        Set<Long> pendingIds = new HashSet<>(limitOrderRepository.findIdsByStatus(LimitOrderStatus.PENDING));
+
+        List<Long> missing;
+        List<Long> stale;
+        synchronized (this) {
+            missing = pendingIds.stream().filter(id -> !orders.containsKey(id)).toList();
+            // Orders placed after the id query have higher ids and are not stale
+            stale = orders.keySet().stream().filter(id -> id <= highestId && !pendingIds.contains(id)).toList();
+        }
+        stale.forEach(this::recordRemove);
+        if (!missing.isEmpty()) {
+            limitOrderRepository.findAllWithAssetByIdIn(missing).stream()
+                    .filter(order -> order.getStatus() == LimitOrderStatus.PENDING)
+                    .forEach(this::recordAdd);
+        }
+        log.info("Matching journal reconciled: {} orders added, {} removed", missing.size(), stale.size());
+
+        snapshot();
+        synchronized (this) {
+            return orders.values().stream()
+                    .sorted(Comparator.comparingLong(JournaledOrder::orderId))
+                    .toList();
+        }
+    }
+
+    /** Journals a resting order; IOC and FOK orders never rest, so they are ignored. */
+    public synchronized void recordAdd(LimitOrder order) {
+        JournaledOrder journaled = JournaledOrder.of(order);
+        if (journaled.remaining().signum() <= 0 || !order.getTimeInForce().rests()) {
+            return;
+        }
+        scratch.clear();
+        writeOrder(scratch, journaled);
+        append(ADD);
+        orders.put(journaled.orderId(), journaled);
+    }
+
+    public synchronized void recordFill(long orderId, BigDecimal quantity) {
+        scratch.clear();
+        scratch.putLong(orderId);
+        writeDecimal(scratch, quantity);
+        append(FILL);
+        applyFill(orderId, quantity);
+    }
+
+    public synchronized void recordRemove(long orderId) {
+        if (!orders.containsKey(orderId)) {
+            return;
+        }
+        scratch.clear();
+        scratch.putLong(orderId);
+        append(REMOVE);
+        orders.remove(orderId);
+    }
+
+    /** Replaces what the journal holds for one symbol with the given pending orders (after a book rebuild). */
+    public synchronized void resync(String symbol, List<LimitOrder> pending) {
+        Set<Long> pendingIds = new HashSet<>();
+        for (LimitOrder order : pending) {
+            pendingIds.add(order.getId());
+            recordAdd(order);
+        }
+        orders.values().stream()
+                .filter(order -> order.symbol().equals(symbol) && !pendingIds.contains(order.orderId()))
+                .map(JournaledOrder::orderId)
+                .toList()
+                .forEach(this::recordRemove);
+    }
+
+    /**
+     * Writes the resting orders as of the last appended record, then deletes the segments and
+     * snapshots it supersedes. Appends continue into a fresh segment while the file is written.
+     */
+    @Scheduled(fixedDelayString = "${app.matching.journal.snapshot-interval-ms:300000}",
+            initialDelayString = "${app.matching.journal.snapshot-interval-ms:300000}")
+    public void snapshot() {
+        List<JournaledOrder> state;
+        long seq;
+        synchronized (this) {
+            if (lastSeq == snapshotSeq) {
+                return;
+            }
+            state = new ArrayList<>(orders.values());
+            seq = lastSeq;
+            openSegment(seq + 1);
+        }
+
+        try {
+            writeSnapshot(seq, state);
+        } catch (IOException e) {
+            log.error("Failed to write matching snapshot @{}: {}", seq, e.getMessage(), e);
+            return;
+        }
+        synchronized (this) {
+            snapshotSeq = Math.max(snapshotSeq, seq);
+        }
+        deleteSupersededFiles(seq);
+        log.debug("Matching snapshot @{} written with {} resting orders", seq, state.size());
+    }
+
+    @PreDestroy
+    void close() {
+        snapshot();
+    }
+
+    // ---- journal segments ----
+
+    /** Frames the payload in {@code scratch} and appends it; the journal is best effort and never fails the caller. */
+    private void append(byte type) {
+        scratch.flip();
+        int payloadBytes = scratch.remaining();
+        int bodyBytes = Long.BYTES + 1 + payloadBytes;
+        if (segment == null) {
+            return;
+        }
+        if (segment.remaining() < FRAME_BYTES + bodyBytes + Integer.BYTES) {
+            openSegment(lastSeq + 1);
+            if (segment == null) {
+                return;
+            }
+        }
+
+        long seq = ++lastSeq;
+        int start = segment.position();
+        segment.position(start + FRAME_BYTES);
+        segment.putLong(seq);
+        segment.put(type);
+        segment.put(scratch);
+
+        crc.reset();
+        crc.update(segment.slice(start + FRAME_BYTES, bodyBytes));
+        // Length goes in last so a reader never sees a complete-looking record that is still being written
+        segment.putInt(start + Integer.BYTES, (int) crc.getValue());
+        segment.putInt(start, bodyBytes);
+        if (forceOnWrite) {
+            segment.force(start, FRAME_BYTES + bodyBytes);
+        }
+    }
+
+    private void openSegment(long firstSeq) {
+        Path path = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSeq, SEGMENT_SUFFIX));
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+            segment.position(endOfRecords(segment));
+        } catch (IOException e) {
+            segment = null;
+            log.error("Cannot open matching journal segment {}, journaling disabled: {}", path, e.getMessage(), e);
+        }
+    }
+
+    /** Applies every intact record after the snapshot; returns how many were applied. */
+    private int replay(Path path) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        int applied = 0;
+        while (buffer.remaining() >= FRAME_BYTES) {
+            int start = buffer.position();
+            int bodyBytes = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (bodyBytes <= 0) {
+                break;
+            }
+            if (bodyBytes > buffer.remaining() || !intact(buffer.slice(start + FRAME_BYTES, bodyBytes), checksum)) {
+                log.warn("Matching journal {} ends in a torn record at offset {}", path.getFileName(), start);
+                break;
+            }
+
+            long seq = buffer.getLong();
+            byte type = buffer.get();
+            ByteBuffer payload = buffer.slice(buffer.position(), bodyBytes - Long.BYTES - 1);
+            buffer.position(start + FRAME_BYTES + bodyBytes);
+            if (seq <= snapshotSeq) {
+                continue;
+            }
+            switch (type) {
+                case ADD -> {
+                    JournaledOrder order = readOrder(payload);
+                    orders.put(order.orderId(), order);
+                }
+                case FILL -> applyFill(payload.getLong(), readDecimal(payload));
+                case REMOVE -> orders.remove(payload.getLong());
+                default -> log.warn("Unknown matching journal record type {} at seq {}", type, seq);
+            }
+            lastSeq = Math.max(lastSeq, seq);
+            applied++;
+        }
+        return applied;
+    }
+
+    private boolean intact(ByteBuffer body, int checksum) {
+        crc.reset();
+        crc.update(body);
+        return (int) crc.getValue() == checksum;
+    }
+
+    private static int endOfRecords(ByteBuffer buffer) {
+        int position = 0;
+        while (position + FRAME_BYTES <= buffer.limit()) {
+            int bodyBytes = buffer.getInt(position);
+            if (bodyBytes <= 0) {
+                break;
+            }
+            position += FRAME_BYTES + bodyBytes;
+        }
+        return Math.min(position, buffer.limit());
+    }
+
+    private void applyFill(long orderId, BigDecimal quantity) {
+        JournaledOrder order = orders.get(orderId);
+        if (order == null) {
+            return;
+        }
+        BigDecimal remaining = order.remaining().subtract(quantity);
+        if (remaining.signum() > 0) {
+            orders.put(orderId, order.withRemaining(remaining));
+        } else {
+            orders.remove(orderId);
+        }
+    }
+
+    // ---- snapshots ----
+
+    private long loadLatestSnapshot() throws IOException {
+        List<Path> snapshots = files(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+        for (int i = snapshots.size() - 1; i >= 0; i--) {
+            Path path = snapshots.get(i);
+            try {
+                return readSnapshot(path);
+            } catch (IOException e) {
+                orders.clear();
+                log.warn("Ignoring unreadable matching snapshot {}: {}", path.getFileName(), e.getMessage());
+            }
+        }
+        return 0;
+    }
+
+    private long readSnapshot(Path path) throws IOException {
+        CRC32 checksum = new CRC32();
+        try (InputStream file = new BufferedInputStream(Files.newInputStream(path))) {
+            DataInputStream in = new DataInputStream(new CheckedInputStream(file, checksum));
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("bad magic");
+            }
+            long seq = in.readLong();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                int length = in.readUnsignedShort();
+                byte[] record = new byte[length];
+                in.readFully(record);
+                JournaledOrder order = readOrder(ByteBuffer.wrap(record));
+                orders.put(order.orderId(), order);
+            }
+            long expected = checksum.getValue();
+            if (new DataInputStream(file).readLong() != expected) {
+                throw new IOException("checksum mismatch");
+            }
+            return seq;
+        }
+    }
+
+    private void writeSnapshot(long seq, List<JournaledOrder> state) throws IOException {
+        Path target = directory.resolve(String.format("%s%020d%s", SNAPSHOT_PREFIX, seq, SNAPSHOT_SUFFIX));
+        Path temp = directory.resolve(target.getFileName() + ".tmp");
+        CRC32 checksum = new CRC32();
+        ByteBuffer record = ByteBuffer.allocate(scratch.capacity());
+        try (OutputStream file = Files.newOutputStream(temp);
+             BufferedOutputStream buffered = new BufferedOutputStream(file)) {
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(buffered, checksum));
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeLong(seq);
+            out.writeInt(state.size());
+            for (JournaledOrder order : state) {
+                record.clear();
+                writeOrder(record, order);
+                out.writeShort(record.position());
+                out.write(record.array(), 0, record.position());
+            }
+            out.flush();
+            new DataOutputStream(buffered).writeLong(checksum.getValue());
+        }
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** Deletes snapshots older than {@code seq} and segments that only hold records up to it. */
+    private void deleteSupersededFiles(long seq) {
+        try {
+            List<Path> segments = files(SEGMENT_PREFIX, SEGMENT_SUFFIX);
+            for (int i = 0; i < segments.size(); i++) {
+                boolean nextStartsAfterSnapshot = i + 1 < segments.size()
+                        && sequenceOf(segments.get(i + 1), SEGMENT_PREFIX, SEGMENT_SUFFIX) <= seq + 1;
+                if (nextStartsAfterSnapshot) {
+                    Files.deleteIfExists(segments.get(i));
+                }
+            }
+            for (Path path : files(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX)) {
+                if (sequenceOf(path, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX) < seq) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Failed to clean up matching journal files: {}", e.getMessage());
+        }
+    }
+
+    /** Files with the given prefix and suffix, ordered by the sequence number in their name. */
+    private List<Path> files(String prefix, String suffix) throws IOException {
+        try (Stream<Path> paths = Files.list(directory)) {
+            return paths
+                    .filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(prefix) && name.endsWith(suffix);
+                    })
+                    .sorted(Comparator.comparingLong(path -> sequenceOf(path, prefix, suffix)))
+                    .toList();
+        }
+    }
+
+    private static long sequenceOf(Path path, String prefix, String suffix) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length()));
+    }
+
+    // ---- encoding ----
+
+    private static void writeOrder(ByteBuffer out, JournaledOrder order) {
+        out.putLong(order.orderId());
+        byte[] symbol = order.symbol().getBytes(StandardCharsets.UTF_8);
+        out.putShort((short) symbol.length);
+        out.put(symbol);
+        out.put((byte) order.assetType().ordinal());
+        out.put((byte) order.side().ordinal());
+        writeDecimal(out, order.price());
+        writeDecimal(out, order.remaining());
+        out.putLong(order.expiresAt() != null ? order.expiresAt().toInstant(ZoneOffset.UTC).toEpochMilli() : NO_EXPIRY);
+        out.putLong(order.ownerId());
+    }
+
+    private static JournaledOrder readOrder(ByteBuffer in) {
+        long orderId = in.getLong();
+        byte[] symbol = new byte[in.getShort()];
+        in.get(symbol);
+        AssetType assetType = AssetType.values()[in.get()];
+        OrderType side = OrderType.values()[in.get()];
+        BigDecimal price = readDecimal(in);
+        BigDecimal remaining = readDecimal(in);
+        // Records written before time-in-force existed end here
+        long expiry = in.remaining() >= Long.BYTES ? in.getLong() : NO_EXPIRY;
+        LocalDateTime expiresAt = expiry != NO_EXPIRY
+                ? LocalDateTime.ofInstant(Instant.ofEpochMilli(expiry), ZoneOffset.UTC)
+                : null;
+        // ... and those written before self-trade prevention here
+        long ownerId = in.remaining() >= Long.BYTES ? in.getLong() : JournaledOrder.UNKNOWN_OWNER;
+        return new JournaledOrder(orderId, ownerId, new String(symbol, StandardCharsets.UTF_8), assetType, side,
+                price, remaining, expiresAt);
+    }
+
+    private static void writeDecimal(ByteBuffer out, BigDecimal value) {
+        byte[] unscaled = value.unscaledValue().toByteArray();
+        out.put((byte) value.scale());
+        out.put((byte) unscaled.length);
+        out.put(unscaled);
+    }
+
+    private static BigDecimal readDecimal(ByteBuffer in) {
+        int scale = in.get();
+        byte[] unscaled = new byte[in.get()];
+        in.get(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), scale);
+    }
+}
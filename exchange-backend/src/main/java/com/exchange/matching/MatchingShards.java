@@ -0,0 +1,157 @@
+package com.exchange.matching;
+
+import com.exchange.enums.AssetType;
+import com.exchange.service.PriceService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Per-symbol matching shards on a worker pool per asset type.
+ * Every piece of matching work for a symbol (tick evaluation, sweep, fills) goes through that
+ * symbol's {@link SymbolShard}, so it runs serially for the symbol but in parallel across symbols.
+ * Stocks and crypto get separate pools, so a Polygon backoff cannot starve crypto fills, and
+ * one stuck stock only occupies one of the stock workers.
+ */
+@Slf4j
+@Component
+public class MatchingShards {
+
+    private final Map<AssetType, ThreadPoolExecutor> workers = new EnumMap<>(AssetType.class);
+    private final Map<String, SymbolShard> shards = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Void>> sweepsInFlight = new ConcurrentHashMap<>();
+    private final int shardQueueCapacity;
+    private final long sweepTimeoutMs;
+    private final Counter rejectedTasks;
+
+    public MatchingShards(MeterRegistry meterRegistry,
+                          @Value("${app.matching.workers.stock:2}") int stockWorkers,
+                          @Value("${app.matching.workers.crypto:4}") int cryptoWorkers,
+                          @Value("${app.matching.shard-queue-capacity:1000}") int shardQueueCapacity,
+                          @Value("${app.matching.sweep-timeout-ms:20000}") long sweepTimeoutMs) {
+        this.shardQueueCapacity = shardQueueCapacity;
+        this.sweepTimeoutMs = sweepTimeoutMs;
+        workers.put(AssetType.STOCK, workerPool("matching-stock-", stockWorkers));
+        workers.put(AssetType.CRYPTO, workerPool("matching-crypto-", cryptoWorkers));
+        this.rejectedTasks = Counter.builder("matching.shard.rejected")
+                .description("Matching tasks dropped because the symbol's shard queue was full")
+                .register(meterRegistry);
+        Gauge.builder("matching.shard.queued", this, MatchingShards::queuedTasks)
+                .description("Matching tasks waiting across all symbol shards")
+                .register(meterRegistry);
+    }
+
+    /** Queues a task on the symbol's shard; returns false (and drops it) if the shard is full. */
+    public boolean execute(String symbol, AssetType assetType, Runnable task) {
+        boolean accepted = shard(symbol, assetType).offer(task);
+        if (!accepted) {
+            rejectedTasks.increment();
+        }
+        return accepted;
+    }
+
+    /** Like {@link #execute} but exposes the result; a full shard yields a future failed with RejectedExecutionException. */
+    public <T> CompletableFuture<T> submit(String symbol, AssetType assetType, Supplier<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        boolean accepted = execute(symbol, assetType, () -> {
+            try {
+                result.complete(task.get());
+            } catch (Exception e) {
+                result.completeExceptionally(e);
+            }
+        });
+        if (!accepted) {
+            result.completeExceptionally(new RejectedExecutionException("Matching shard full for " + symbol));
+        }
+        return result;
+    }
+
+    /**
+     * Runs one reconciliation task per symbol on its shard. The returned future completes once
+     * every task has finished or the sweep timeout has passed, so the calling scheduler thread
+     * never waits on the shards. Symbols still busy from the previous sweep are skipped; symbols
+     * that overrun the timeout keep running in the background and are reported as deferred.
+     */
+    public CompletableFuture<SweepStats> sweep(String book, Collection<SweepTarget> targets, PriceService priceService) {
+        long startedAt = System.currentTimeMillis();
+        PriceSnapshot snapshot = new PriceSnapshot(priceService);
+        AtomicInteger evaluated = new AtomicInteger();
+        AtomicInteger filled = new AtomicInteger();
+        List<CompletableFuture<Void>> running = new ArrayList<>();
+        int skipped = 0;
+
+        for (SweepTarget target : targets) {
+            String key = book + ":" + target.symbol();
+            CompletableFuture<Void> previous = sweepsInFlight.get(key);
+            if (previous != null && !previous.isDone()) {
+                skipped++;
+                continue;
+            }
+            CompletableFuture<Void> task = submit(target.symbol(), target.assetType(), () -> {
+                snapshot.priceOf(target.symbol(), target.assetType()).ifPresent(price -> {
+                    evaluated.addAndGet(target.orders());
+                    filled.addAndGet(target.fill().applyAsInt(price));
+                });
+                return null;
+            });
+            sweepsInFlight.put(key, task);
+            running.add(task);
+        }
+
+        int deferredBefore = skipped;
+        return CompletableFuture.allOf(running.toArray(CompletableFuture[]::new))
+                // Failures are reported below through the per-symbol futures
+                .exceptionally(e -> null)
+                .completeOnTimeout(null, sweepTimeoutMs, TimeUnit.MILLISECONDS)
+                .thenApply(done -> {
+                    int deferred = deferredBefore + (int) running.stream()
+                            .filter(task -> !task.isDone() || task.isCompletedExceptionally())
+                            .count();
+                    return new SweepStats(book, snapshot.symbolsFetched(), snapshot.symbolsFailed(), deferred,
+                            evaluated.get(), filled.get(), System.currentTimeMillis() - startedAt);
+                });
+    }
+
+    public int queuedTasks() {
+        return shards.values().stream().mapToInt(SymbolShard::depth).sum();
+    }
+
+    private SymbolShard shard(String symbol, AssetType assetType) {
+        return shards.computeIfAbsent(symbol,
+                key -> new SymbolShard(key, workers.get(assetType), shardQueueCapacity));
+    }
+
+    private static ThreadPoolExecutor workerPool(String namePrefix, int size) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, namePrefix + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.values().forEach(ThreadPoolExecutor::shutdown);
+    }
+}
@@ -0,0 +1,64 @@
+package com.exchange.matching;
+
+import com.exchange.entity.Asset;
+import com.exchange.enums.AssetType;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index of resting orders, one {@link SymbolTriggerBook} per symbol.
+ * Safe for concurrent use: request threads add and remove while the matching sweep reads.
+ */
+public class OrderTriggerBook {
+
+    private final Map<String, SymbolTriggerBook> books = new ConcurrentHashMap<>();
+    private final Map<Long, Indexed> byOrderId = new ConcurrentHashMap<>();
+
+    public void add(Asset asset, TriggerEntry entry) {
+        add(asset.getSymbol(), asset.getType(), entry);
+    }
+
+    public void add(String symbol, AssetType assetType, TriggerEntry entry) {
+        SymbolTriggerBook book = books.computeIfAbsent(symbol, key -> new SymbolTriggerBook(key, assetType));
+        Indexed previous = byOrderId.put(entry.orderId(), new Indexed(book, entry));
+        if (previous != null) {
+            previous.book().remove(previous.entry());
+        }
+        book.add(entry);
+    }
+
+    public void remove(long orderId) {
+        Indexed indexed = byOrderId.remove(orderId);
+        if (indexed != null) {
+            indexed.book().remove(indexed.entry());
+        }
+    }
+
+    public boolean contains(long orderId) {
+        return byOrderId.containsKey(orderId);
+    }
+
+    public List<TriggerEntry> crossedBy(String symbol, BigDecimal price) {
+        SymbolTriggerBook book = books.get(symbol);
+        return book == null ? List.of() : book.crossedBy(price);
+    }
+
+    public Collection<SymbolTriggerBook> books() {
+        return books.values();
+    }
+
+    public int size() {
+        return byOrderId.size();
+    }
+
+    public void clear() {
+        byOrderId.clear();
+        books.clear();
+    }
+
+    private record Indexed(SymbolTriggerBook book, TriggerEntry entry) {}
+}
@@ -0,0 +1,57 @@
+package com.exchange.matching;
+
+import com.exchange.enums.AssetType;
+import com.exchange.service.PriceService;
+import lombok.extern.slf4j.Slf4j;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per-sweep price memo: each symbol is resolved at most once, however many orders rest on it.
+ * Failures are remembered too, so one broken feed costs a single lookup per sweep.
+ * Shared by the shard tasks of one sweep; a slow fetch never blocks lookups for other symbols.
+ */
+@Slf4j
+public class PriceSnapshot {
+
+    private final PriceService priceService;
+    private final Map<String, Optional<BigDecimal>> prices = new ConcurrentHashMap<>();
+    private final AtomicInteger symbolsFailed = new AtomicInteger();
+
+    public PriceSnapshot(PriceService priceService) {
+        this.priceService = priceService;
+    }
+
+    public Optional<BigDecimal> priceOf(String symbol, AssetType type) {
+        Optional<BigDecimal> known = prices.get(symbol);
+        if (known != null) {
+            return known;
+        }
+        // Deliberately not computeIfAbsent: an upstream call can take a long time
+        Optional<BigDecimal> fetched = fetch(symbol, type);
+        Optional<BigDecimal> raced = prices.putIfAbsent(symbol, fetched);
+        return raced != null ? raced : fetched;
+    }
+
+    private Optional<BigDecimal> fetch(String symbol, AssetType type) {
+        try {
+            return Optional.of(priceService.getExecutionPrice(symbol, type));
+        } catch (Exception e) {
+            symbolsFailed.incrementAndGet();
+            log.warn("Failed to price {} for matching sweep: {}", symbol, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    public int symbolsFetched() {
+        return prices.size();
+    }
+
+    public int symbolsFailed() {
+        return symbolsFailed.get();
+    }
+}
@@ -0,0 +1,92 @@
+package com.exchange.matching;
+
+import com.exchange.event.PriceTickEvent;
+import com.exchange.service.LimitOrderService;
+import com.exchange.service.StopOrderService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs limit and stop evaluation for a symbol as soon as its price moves.
+ * Ticks are handed to the symbol's matching shard so the thread that refreshed the quote
+ * (often an HTTP request) never waits on fills. Ticks arriving while the symbol is still busy
+ * are conflated: only the latest price is evaluated. The scheduled sweeps remain as a
+ * reconciliation pass for anything a dropped tick might have missed.
+ */
+@Slf4j
+@Component
+public class PriceTickMatcher {
+
+    private final LimitOrderService limitOrderService;
+    private final StopOrderService stopOrderService;
+    private final MatchingShards matchingShards;
+    private final Map<String, AtomicReference<PriceTickEvent>> latestTicks = new ConcurrentHashMap<>();
+    private final Timer limitTickToFill;
+    private final Timer stopTickToFill;
+
+    public PriceTickMatcher(LimitOrderService limitOrderService,
+                            StopOrderService stopOrderService,
+                            MatchingShards matchingShards,
+                            MeterRegistry meterRegistry) {
+        this.limitOrderService = limitOrderService;
+        this.stopOrderService = stopOrderService;
+        this.matchingShards = matchingShards;
+        this.limitTickToFill = tickToFillTimer(meterRegistry, "limit");
+        this.stopTickToFill = tickToFillTimer(meterRegistry, "stop");
+    }
+
+    @EventListener
+    public void onPriceTick(PriceTickEvent tick) {
+        AtomicReference<PriceTickEvent> latest = latestTicks.computeIfAbsent(tick.symbol(), key -> new AtomicReference<>());
+        if (latest.getAndSet(tick) != null) {
+            return; // an evaluation is already queued and will pick up this newer price
+        }
+        boolean accepted = matchingShards.execute(tick.symbol(), tick.assetType(), () -> match(latest.getAndSet(null)));
+        if (!accepted) {
+            // Only clear our own tick: a newer one stored since was coalesced into this rejected task
+            latest.compareAndSet(tick, null);
+            log.warn("Matching shard full, dropping tick for {} @ {}", tick.symbol(), tick.price());
+        }
+    }
+
+    private void match(PriceTickEvent tick) {
+        if (tick == null) {
+            return;
+        }
+        try {
+            int filled = limitOrderService.fillCrossedOrders(tick.symbol(), tick.price());
+            recordFills(limitTickToFill, filled, tick);
+        } catch (Exception e) {
+            log.error("Error matching limit orders for {}: {}", tick.symbol(), e.getMessage(), e);
+        }
+        try {
+            int filled = stopOrderService.triggerCrossedOrders(tick.symbol(), tick.price());
+            recordFills(stopTickToFill, filled, tick);
+        } catch (Exception e) {
+            log.error("Error matching stop orders for {}: {}", tick.symbol(), e.getMessage(), e);
+        }
+    }
+
+    private void recordFills(Timer timer, int filled, PriceTickEvent tick) {
+        long elapsed = System.nanoTime() - tick.observedAtNanos();
+        for (int i = 0; i < filled; i++) {
+            timer.record(elapsed, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static Timer tickToFillTimer(MeterRegistry meterRegistry, String book) {
+        return Timer.builder("matching.tick.to.fill")
+                .description("Time from a price tick arriving to the orders it crossed being filled")
+                .tag("book", book)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+}
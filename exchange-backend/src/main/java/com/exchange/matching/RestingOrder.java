@@ -0,0 +1,27 @@
+package com.exchange.matching;
+
+import com.exchange.enums.OrderType;
+
+/**
+ * A limit order's open quantity sitting in a {@link SymbolOrderBook}.
+ * Only the shard that owns the book ever touches it, so it needs no synchronization.
+ * The open quantity is kept in units of 10^-8 (the scale of {@code quantity}) so repeated
+ * partial fills against it are plain long arithmetic. {@code ownerId} is the placing user, for
+ * self-trade prevention.
+ */
+class RestingOrder {
+
+    final long orderId;
+    final long ownerId;
+    final OrderType side;
+    final long priceTicks;
+    long remainingUnits;
+
+    RestingOrder(long orderId, long ownerId, OrderType side, long priceTicks, long remainingUnits) {
+        this.orderId = orderId;
+        this.ownerId = ownerId;
+        this.side = side;
+        this.priceTicks = priceTicks;
+        this.remainingUnits = remainingUnits;
+    }
+}
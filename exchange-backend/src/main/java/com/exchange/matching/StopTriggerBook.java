@@ -0,0 +1,39 @@
+package com.exchange.matching;
+
+import com.exchange.entity.StopOrder;
+import com.exchange.enums.StopOrderStatus;
+import com.exchange.enums.StopType;
+import com.exchange.enums.TriggerDirection;
+import com.exchange.repository.StopOrderRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Trigger book for pending stop-market and stop-limit orders.
+ * Stops are SELL only and rest on the FALLING side (highest stop first). Trailing stops move
+ * and live in {@link TrailingStopTracker} instead. Built from the database once at startup, then
+ * maintained by {@code StopOrderServiceImpl} on create, cancel and trigger.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StopTriggerBook extends OrderTriggerBook {
+
+    private final StopOrderRepository stopOrderRepository;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        stopOrderRepository.findAllPendingWithDetails(StopOrderStatus.PENDING).stream()
+                .filter(order -> order.getStopType() != StopType.TRAILING_STOP)
+                .forEach(this::add);
+        log.info("Loaded {} pending stop orders into the trigger book ({} symbols)", size(), books().size());
+    }
+
+    public void add(StopOrder order) {
+        add(order.getAsset(), new TriggerEntry(order.getId(), TriggerDirection.FALLING,
+                FixedPoint.toTicks(order.getStopPrice())));
+    }
+}
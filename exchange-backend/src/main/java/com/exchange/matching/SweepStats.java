@@ -0,0 +1,15 @@
+package com.exchange.matching;
+
+/**
+ * Outcome of one reconciliation sweep over a trigger book.
+ * {@code symbolsFetched} versus {@code ordersEvaluated} shows how well price lookups were shared;
+ * {@code symbolsDeferred} counts symbols whose shard was full or did not finish within the sweep timeout.
+ */
+public record SweepStats(String book,
+                         int symbolsFetched,
+                         int symbolsFailed,
+                         int symbolsDeferred,
+                         int ordersEvaluated,
+                         int ordersFilled,
+                         long durationMs) {
+}
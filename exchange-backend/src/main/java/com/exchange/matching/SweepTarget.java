@@ -0,0 +1,13 @@
+package com.exchange.matching;
+
+import com.exchange.enums.AssetType;
+
+import java.math.BigDecimal;
+import java.util.function.ToIntFunction;
+
+/**
+ * One symbol's share of a reconciliation sweep: how many orders rest on it and how to fill
+ * the crossed ones once its price is known ({@code fill} returns the number filled).
+ */
+public record SweepTarget(String symbol, AssetType assetType, int orders, ToIntFunction<BigDecimal> fill) {
+}
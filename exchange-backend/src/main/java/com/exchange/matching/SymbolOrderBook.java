@@ -0,0 +1,162 @@
+package com.exchange.matching;
+
+import com.exchange.enums.AssetType;
+import com.exchange.enums.OrderType;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Continuous double-auction book for one symbol with price-time priority.
+ * Prices are kept as {@link FixedPoint} ticks so levels are plain long keys, and quantities as
+ * units of 10^-8; each level is a FIFO of resting orders.
+ * <p>
+ * An incoming order walks the opposite side best level first and trades at the resting order's
+ * price; whatever is left rests on its own side. The book is never left crossed. A large resting
+ * order hit by many small ones costs one {@link Trade} per hit and nothing else.
+ * <p>
+ * Orders never trade with orders of the same owner: an incoming order that reaches one stops
+ * there and is cancelled (cancel newest), see {@link MatchResult}.
+ * <p>
+ * Not thread-safe by design: every book is owned by its symbol's matching shard.
+ */
+class SymbolOrderBook {
+
+    final AssetType assetType;
+
+    private final NavigableMap<Long, ArrayDeque<RestingOrder>> bids = new TreeMap<>(Comparator.reverseOrder());
+    private final NavigableMap<Long, ArrayDeque<RestingOrder>> asks = new TreeMap<>();
+    private final Map<Long, RestingOrder> byOrderId = new HashMap<>();
+
+    SymbolOrderBook(AssetType assetType) {
+        this.assetType = assetType;
+    }
+
+    /**
+     * Matches an incoming order and rests any remainder.
+     * Re-submitting an order that is already resting is a no-op.
+     */
+    MatchResult submit(long orderId, long ownerId, OrderType side, BigDecimal limitPrice, BigDecimal quantity) {
+        return submit(orderId, ownerId, side, limitPrice, quantity, true, false);
+    }
+
+    /**
+     * Matches an incoming order. A remainder rests only if {@code rest} is set (IOC and FOK
+     * orders never rest); with {@code allOrNone} nothing trades unless the whole quantity can.
+     * Reaching a resting order of the same owner ends matching and the remainder never rests:
+     * the newer order is the one cancelled, the resting one keeps its place.
+     */
+    MatchResult submit(long orderId, long ownerId, OrderType side, BigDecimal limitPrice, BigDecimal quantity,
+                       boolean rest, boolean allOrNone) {
+        if (byOrderId.containsKey(orderId)) {
+            return MatchResult.NONE;
+        }
+        RestingOrder incoming = new RestingOrder(orderId, ownerId, side, FixedPoint.toTicks(limitPrice),
+                FixedPoint.toUnits(quantity));
+        NavigableMap<Long, ArrayDeque<RestingOrder>> opposite = side == OrderType.BUY ? asks : bids;
+        List<Trade> trades = List.of();
+        if (allOrNone && !fillable(incoming, opposite)) {
+            return MatchResult.NONE;
+        }
+
+        boolean selfTrade = false;
+        while (incoming.remainingUnits > 0 && !opposite.isEmpty()) {
+            Map.Entry<Long, ArrayDeque<RestingOrder>> best = opposite.firstEntry();
+            if (!crosses(incoming, best.getKey())) {
+                break;
+            }
+            ArrayDeque<RestingOrder> level = best.getValue();
+            RestingOrder resting = level.peekFirst();
+            if (sameOwner(incoming, resting)) {
+                selfTrade = true;
+                break;
+            }
+            long unitsTraded = Math.min(incoming.remainingUnits, resting.remainingUnits);
+            long priceTicks = best.getKey();
+
+            if (trades.isEmpty()) {
+                trades = new ArrayList<>();
+            }
+            trades.add(side == OrderType.BUY
+                    ? new Trade(incoming.orderId, resting.orderId, priceTicks, unitsTraded)
+                    : new Trade(resting.orderId, incoming.orderId, priceTicks, unitsTraded));
+
+            incoming.remainingUnits -= unitsTraded;
+            resting.remainingUnits -= unitsTraded;
+            if (resting.remainingUnits == 0) {
+                level.pollFirst();
+                byOrderId.remove(resting.orderId);
+                if (level.isEmpty()) {
+                    opposite.pollFirstEntry();
+                }
+            }
+        }
+
+        if (rest && !selfTrade && incoming.remainingUnits > 0) {
+            (side == OrderType.BUY ? bids : asks)
+                    .computeIfAbsent(incoming.priceTicks, ticks -> new ArrayDeque<>())
+                    .addLast(incoming);
+            byOrderId.put(orderId, incoming);
+        }
+        return trades.isEmpty() && !selfTrade ? MatchResult.NONE : new MatchResult(trades, selfTrade);
+    }
+
+    /** Removes a resting order; returns false if it was not in the book. */
+    boolean cancel(long orderId) {
+        RestingOrder order = byOrderId.remove(orderId);
+        if (order == null) {
+            return false;
+        }
+        NavigableMap<Long, ArrayDeque<RestingOrder>> side = order.side == OrderType.BUY ? bids : asks;
+        ArrayDeque<RestingOrder> level = side.get(order.priceTicks);
+        level.remove(order);
+        if (level.isEmpty()) {
+            side.remove(order.priceTicks);
+        }
+        return true;
+    }
+
+    int size() {
+        return byOrderId.size();
+    }
+
+    /**
+     * Whether the crossing levels on the opposite side hold at least the incoming quantity ahead
+     * of any order of the same owner, where matching would stop.
+     */
+    private static boolean fillable(RestingOrder incoming, NavigableMap<Long, ArrayDeque<RestingOrder>> opposite) {
+        long available = 0;
+        for (Map.Entry<Long, ArrayDeque<RestingOrder>> level : opposite.entrySet()) {
+            if (!crosses(incoming, level.getKey())) {
+                return false;
+            }
+            for (RestingOrder resting : level.getValue()) {
+                if (sameOwner(incoming, resting)) {
+                    return false;
+                }
+                available += resting.remainingUnits;
+                if (available >= incoming.remainingUnits) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean sameOwner(RestingOrder incoming, RestingOrder resting) {
+        return incoming.ownerId == resting.ownerId && incoming.ownerId != JournaledOrder.UNKNOWN_OWNER;
+    }
+
+    private static boolean crosses(RestingOrder incoming, long bestOppositeTicks) {
+        return incoming.side == OrderType.BUY
+                ? incoming.priceTicks >= bestOppositeTicks
+                : incoming.priceTicks <= bestOppositeTicks;
+    }
+}
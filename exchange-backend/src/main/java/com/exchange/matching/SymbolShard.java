@@ -0,0 +1,76 @@
+package com.exchange.matching;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Serial work queue for one symbol, drained on a shared worker pool.
+ * Tasks for the same symbol never run concurrently (single writer per symbol), while a shard
+ * stuck on a slow feed only ties up one pool thread. The queue is bounded: {@link #offer}
+ * returns false instead of blocking when the symbol is falling behind.
+ */
+@Slf4j
+class SymbolShard implements Runnable {
+
+    /** Tasks run per turn on a worker before the shard yields to other symbols. */
+    private static final int MAX_TASKS_PER_TURN = 64;
+
+    private final String symbol;
+    private final Executor workers;
+    private final BlockingQueue<Runnable> queue;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    SymbolShard(String symbol, Executor workers, int capacity) {
+        this.symbol = symbol;
+        this.workers = workers;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    boolean offer(Runnable task) {
+        if (!queue.offer(task)) {
+            return false;
+        }
+        schedule();
+        return true;
+    }
+
+    int depth() {
+        return queue.size();
+    }
+
+    @Override
+    public void run() {
+        try {
+            Runnable task;
+            int ran = 0;
+            while (ran++ < MAX_TASKS_PER_TURN && (task = queue.poll()) != null) {
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    log.error("Matching task for {} failed: {}", symbol, e.getMessage(), e);
+                }
+            }
+        } finally {
+            scheduled.set(false);
+            if (!queue.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            try {
+                workers.execute(this);
+            } catch (RejectedExecutionException e) {
+                scheduled.set(false);
+                log.warn("Matching workers rejected shard {}: {}", symbol, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.exchange.matching;
+
+import com.exchange.enums.AssetType;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Trailing stops for one symbol, grouped into buckets by high-water mark.
+ * A new high only touches buckets below it, and merges them all into one bucket at the new
+ * price, so the number of buckets shrinks as the price climbs and an update costs
+ * O(log b + merged). Within a bucket stops are sorted by offset, so the ones a drawdown
+ * triggers are always a prefix. Marks and offsets are {@link FixedPoint} longs, so a tick costs
+ * no {@link BigDecimal} arithmetic however many stops it moves.
+ */
+public class SymbolTrailingStops {
+
+    /** Smallest offset first, so the stops a drawdown triggers are a prefix. */
+    private static final Comparator<TrailingStop> BY_OFFSET = Comparator
+            .comparingLong(TrailingStop::offset)
+            .thenComparingLong(TrailingStop::orderId);
+
+    private static final long PERCENT_UNITS = 1_000_000L;
+
+    @Getter
+    private final String symbol;
+
+    @Getter
+    private final AssetType assetType;
+
+    private final NavigableMap<Long, Bucket> buckets = new TreeMap<>();
+    private final Map<Long, Bucket> bucketOf = new HashMap<>();
+
+    public SymbolTrailingStops(String symbol, AssetType assetType) {
+        this.symbol = symbol;
+        this.assetType = assetType;
+    }
+
+    synchronized void add(TrailingStop stop, long highWaterMarkTicks) {
+        remove(stop.orderId());
+        Bucket bucket = buckets.computeIfAbsent(highWaterMarkTicks, Bucket::new);
+        bucket.add(stop);
+        bucketOf.put(stop.orderId(), bucket);
+    }
+
+    synchronized boolean remove(long orderId) {
+        Bucket bucket = bucketOf.remove(orderId);
+        if (bucket == null) {
+            return false;
+        }
+        bucket.remove(orderId);
+        if (bucket.isEmpty()) {
+            buckets.remove(bucket.highWaterMark);
+        }
+        return true;
+    }
+
+    /**
+     * Raises the high-water mark of every stop below {@code price} and returns the stops the
+     * price now triggers. Triggered stops are not removed; callers drop them once the fill commits.
+     * Marks are raised to the price rounded to a tick, as the column stores it; triggers compare
+     * against the price rounded up, so a stop never fires before the unrounded price reaches it.
+     */
+    synchronized List<Long> onPrice(BigDecimal price) {
+        raiseTo(FixedPoint.toTicks(price));
+        long priceTicks = FixedPoint.toTicksCeiling(price);
+
+        List<Long> triggered = new ArrayList<>();
+        for (Bucket bucket : buckets.tailMap(priceTicks, false).values()) {
+            long drawdown = bucket.highWaterMark - priceTicks;
+            // percent / 100 <= drawdown / mark, in ten-thousandths of a percent
+            long drawdownPercent = Math.multiplyExact(drawdown, PERCENT_UNITS) / bucket.highWaterMark;
+            bucket.byAmount.headSet(new TrailingStop(Long.MAX_VALUE, false, drawdown), true)
+                    .forEach(stop -> triggered.add(stop.orderId()));
+            bucket.byPercent.headSet(new TrailingStop(Long.MAX_VALUE, true, drawdownPercent), true)
+                    .forEach(stop -> triggered.add(stop.orderId()));
+        }
+        return triggered;
+    }
+
+    /** Returns the high-water marks raised since the last call and marks them written. */
+    synchronized List<HighWaterMark> drainCheckpoints() {
+        List<HighWaterMark> checkpoints = new ArrayList<>();
+        for (Bucket bucket : buckets.values()) {
+            if (bucket.dirty) {
+                checkpoints.add(new HighWaterMark(FixedPoint.fromTicks(bucket.highWaterMark), bucket.orderIds()));
+                bucket.dirty = false;
+            }
+        }
+        return checkpoints;
+    }
+
+    public synchronized int size() {
+        return bucketOf.size();
+    }
+
+    public synchronized boolean isEmpty() {
+        return bucketOf.isEmpty();
+    }
+
+    private void raiseTo(long priceTicks) {
+        NavigableMap<Long, Bucket> below = buckets.headMap(priceTicks, false);
+        if (below.isEmpty()) {
+            return;
+        }
+        Bucket target = buckets.computeIfAbsent(priceTicks, Bucket::new);
+        for (Bucket bucket : below.values()) {
+            for (TrailingStop stop : bucket.byAmount) {
+                target.add(stop);
+                bucketOf.put(stop.orderId(), target);
+            }
+            for (TrailingStop stop : bucket.byPercent) {
+                target.add(stop);
+                bucketOf.put(stop.orderId(), target);
+            }
+        }
+        below.clear();
+        target.dirty = true;
+    }
+
+    private static final class Bucket {
+
+        private final long highWaterMark;
+        private final NavigableSet<TrailingStop> byAmount = new TreeSet<>(BY_OFFSET);
+        private final NavigableSet<TrailingStop> byPercent = new TreeSet<>(BY_OFFSET);
+        private final Map<Long, TrailingStop> byOrderId = new HashMap<>();
+        private boolean dirty;
+
+        private Bucket(long highWaterMark) {
+            this.highWaterMark = highWaterMark;
+        }
+
+        private void add(TrailingStop stop) {
+            (stop.percent() ? byPercent : byAmount).add(stop);
+            byOrderId.put(stop.orderId(), stop);
+        }
+
+        private void remove(long orderId) {
+            TrailingStop stop = byOrderId.remove(orderId);
+            if (stop != null) {
+                (stop.percent() ? byPercent : byAmount).remove(stop);
+            }
+        }
+
+        private boolean isEmpty() {
+            return byOrderId.isEmpty();
+        }
+
+        private List<Long> orderIds() {
+            return new ArrayList<>(byOrderId.keySet());
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.exchange.matching;
+
+import com.exchange.enums.AssetType;
+import com.exchange.enums.TriggerDirection;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Price-indexed resting orders for one symbol.
+ * FALLING entries are kept in descending level order and RISING entries in ascending order,
+ * so the orders crossed by a price are always a prefix of one side: O(log n + k) per lookup.
+ */
+public class SymbolTriggerBook {
+
+    /** Highest level first; ties broken by order id so older orders fire first. */
+    private static final Comparator<TriggerEntry> DESCENDING = Comparator
+            .comparingLong(TriggerEntry::levelTicks).reversed()
+            .thenComparingLong(TriggerEntry::orderId);
+
+    /** Lowest level first; ties broken by order id so older orders fire first. */
+    private static final Comparator<TriggerEntry> ASCENDING = Comparator
+            .comparingLong(TriggerEntry::levelTicks)
+            .thenComparingLong(TriggerEntry::orderId);
+
+    @Getter
+    private final String symbol;
+
+    @Getter
+    private final AssetType assetType;
+
+    private final NavigableSet<TriggerEntry> falling = new ConcurrentSkipListSet<>(DESCENDING);
+    private final NavigableSet<TriggerEntry> rising = new ConcurrentSkipListSet<>(ASCENDING);
+
+    public SymbolTriggerBook(String symbol, AssetType assetType) {
+        this.symbol = symbol;
+        this.assetType = assetType;
+    }
+
+    void add(TriggerEntry entry) {
+        side(entry.direction()).add(entry);
+    }
+
+    void remove(TriggerEntry entry) {
+        side(entry.direction()).remove(entry);
+    }
+
+    /**
+     * Returns every entry the given price crosses, best level first.
+     * Entries are not removed; callers drop them once the fill has committed.
+     */
+    public List<TriggerEntry> crossedBy(BigDecimal price) {
+        // Rounded outwards, so a price between two ticks crosses exactly the levels it would unrounded
+        return crossedBy(FixedPoint.toTicksCeiling(price), FixedPoint.toTicksFloor(price));
+    }
+
+    /** {@link #crossedBy(BigDecimal)} for a price already in ticks, rounded up and down. */
+    public List<TriggerEntry> crossedBy(long ceilingTicks, long floorTicks) {
+        List<TriggerEntry> crossed = new ArrayList<>();
+        TriggerEntry fallingBound = new TriggerEntry(Long.MAX_VALUE, TriggerDirection.FALLING, ceilingTicks);
+        crossed.addAll(falling.headSet(fallingBound, true));
+        TriggerEntry risingBound = new TriggerEntry(Long.MAX_VALUE, TriggerDirection.RISING, floorTicks);
+        crossed.addAll(rising.headSet(risingBound, true));
+        return crossed;
+    }
+
+    public int size() {
+        return falling.size() + rising.size();
+    }
+
+    public boolean isEmpty() {
+        return falling.isEmpty() && rising.isEmpty();
+    }
+
+    private NavigableSet<TriggerEntry> side(TriggerDirection direction) {
+        return direction == TriggerDirection.FALLING ? falling : rising;
+    }
+}
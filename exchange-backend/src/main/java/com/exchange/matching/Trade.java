@@ -0,0 +1,18 @@
+package com.exchange.matching;
+
+import java.math.BigDecimal;
+
+/**
+ * One match between a resting and an incoming limit order, priced at the resting order's level.
+ * Price and quantity stay in {@link FixedPoint} form until settlement reads them.
+ */
+public record Trade(long buyOrderId, long sellOrderId, long priceTicks, long quantityUnits) {
+
+    public BigDecimal price() {
+        return FixedPoint.fromTicks(priceTicks);
+    }
+
+    public BigDecimal quantity() {
+        return FixedPoint.fromUnits(quantityUnits);
+    }
+}
@@ -0,0 +1,11 @@
+package com.exchange.matching;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Outcome of settling a group of trades: the trades that were applied, how many were rejected,
+ * and the orders that left the book (fully filled or cancelled). Any rejected trade means the
+ * in-memory book no longer matches the database.
+ */
+public record TradeSettlement(List<Trade> settled, int rejected, Set<Long> closedOrderIds) {}
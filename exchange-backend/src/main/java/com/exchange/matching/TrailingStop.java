@@ -0,0 +1,7 @@
+package com.exchange.matching;
+
+/**
+ * A trailing stop's offset below its high-water mark: an absolute amount in {@link FixedPoint}
+ * ticks, or (if {@code percent}) a percentage in ten-thousandths of a percent.
+ */
+record TrailingStop(long orderId, boolean percent, long offset) {}
@@ -0,0 +1,86 @@
+package com.exchange.matching;
+
+import com.exchange.entity.StopOrder;
+import com.exchange.enums.StopOrderStatus;
+import com.exchange.enums.StopType;
+import com.exchange.repository.StopOrderRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory high-water marks for pending trailing stops, one {@link SymbolTrailingStops} per symbol.
+ * Every price tick raises the marks incrementally; nothing is written per tick. Raised marks are
+ * written back in bulk by the reconciliation sweep, so after a restart a stop trails from at worst
+ * one sweep interval behind.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TrailingStopTracker {
+
+    private final StopOrderRepository stopOrderRepository;
+    private final Map<String, SymbolTrailingStops> symbols = new ConcurrentHashMap<>();
+    private final Map<Long, SymbolTrailingStops> byOrderId = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        List<StopOrder> pending = stopOrderRepository.findPendingByStopTypeWithDetails(
+                StopOrderStatus.PENDING, StopType.TRAILING_STOP);
+        pending.forEach(this::add);
+        log.info("Loaded {} pending trailing stops ({} symbols)", byOrderId.size(), symbols.size());
+    }
+
+    public void add(StopOrder order) {
+        SymbolTrailingStops stops = symbols.computeIfAbsent(order.getAsset().getSymbol(),
+                symbol -> new SymbolTrailingStops(symbol, order.getAsset().getType()));
+        SymbolTrailingStops previous = byOrderId.put(order.getId(), stops);
+        if (previous != null && previous != stops) {
+            previous.remove(order.getId());
+        }
+        TrailingStop stop = order.getTrailAmount() != null
+                ? new TrailingStop(order.getId(), false, FixedPoint.toTicks(order.getTrailAmount()))
+                : new TrailingStop(order.getId(), true, FixedPoint.toTicks(order.getTrailPercent()));
+        stops.add(stop, FixedPoint.toTicks(order.getHighWaterMark()));
+    }
+
+    public void remove(long orderId) {
+        SymbolTrailingStops stops = byOrderId.remove(orderId);
+        if (stops != null) {
+            stops.remove(orderId);
+        }
+    }
+
+    /** Raises the symbol's high-water marks to {@code price} and returns the stops it triggers. */
+    public List<Long> onPrice(String symbol, BigDecimal price) {
+        SymbolTrailingStops stops = symbols.get(symbol);
+        return stops == null ? List.of() : stops.onPrice(price);
+    }
+
+    /** High-water marks raised on the symbol since the last call. */
+    public List<HighWaterMark> drainCheckpoints(String symbol) {
+        SymbolTrailingStops stops = symbols.get(symbol);
+        return stops == null ? List.of() : stops.drainCheckpoints();
+    }
+
+    public Collection<SymbolTrailingStops> symbols() {
+        return symbols.values();
+    }
+
+    /** The stop price a trailing offset gives at a high-water mark. */
+    public static BigDecimal stopPriceFor(BigDecimal highWaterMark, BigDecimal trailAmount, BigDecimal trailPercent) {
+        BigDecimal offset = trailAmount != null
+                ? trailAmount
+                : highWaterMark.multiply(trailPercent).divide(BigDecimal.valueOf(100), 4, RoundingMode.HALF_UP);
+        return highWaterMark.subtract(offset).setScale(4, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,10 @@
+package com.exchange.matching;
+
+import com.exchange.enums.TriggerDirection;
+
+/**
+ * A resting order as seen by a trigger book: just enough to decide whether a price crosses it.
+ * The level is in {@link FixedPoint} ticks.
+ */
+public record TriggerEntry(long orderId, TriggerDirection direction, long levelTicks) {
+}
@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -38,5 +39,12 @@ public interface HoldingRepository extends JpaRepository<Holding, Long> {
     Optional<Holding> findByPortfolioIdAndAssetIdForUpdate(
             @Param("portfolioId") Long portfolioId,
             @Param("assetId") Long assetId);
+
+    /** Locks one asset's holdings across several portfolios, in ascending holding id order. */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT h FROM Holding h JOIN FETCH h.asset WHERE h.portfolio.id IN :portfolioIds AND h.asset.id = :assetId ORDER BY h.id")
+    List<Holding> findByPortfolioIdInAndAssetIdForUpdate(
+            @Param("portfolioIds") Collection<Long> portfolioIds,
+            @Param("assetId") Long assetId);
 }
 
@@ -3,6 +3,7 @@ package com.exchange.repository;
 import com.exchange.entity.LimitOrder;
 import com.exchange.enums.LimitOrderStatus;
 import com.exchange.enums.OrderType;
+import com.exchange.enums.TimeInForce;
 import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
@@ -11,6 +12,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -39,6 +41,27 @@ public interface LimitOrderRepository extends JpaRepository<LimitOrder, Long> {
     @Query("SELECT lo FROM LimitOrder lo JOIN FETCH lo.asset JOIN FETCH lo.portfolio WHERE lo.status = :status")
     List<LimitOrder> findAllPendingWithDetails(@Param("status") LimitOrderStatus status);
 
+    /** Fetches limit orders on one symbol with the given status, oldest first (order book rebuild). */
+    @Query("SELECT lo FROM LimitOrder lo JOIN FETCH lo.asset WHERE lo.status = :status AND lo.asset.symbol = :symbol ORDER BY lo.id")
+    List<LimitOrder> findBySymbolAndStatusOrderById(@Param("symbol") String symbol, @Param("status") LimitOrderStatus status);
+
+    /** Returns only the ids of limit orders with the given status (journal reconciliation). */
+    @Query("SELECT lo.id FROM LimitOrder lo WHERE lo.status = :status")
+    List<Long> findIdsByStatus(@Param("status") LimitOrderStatus status);
+
+    /** Returns only the ids of limit orders with the given status and one of the given times in force. */
+    @Query("SELECT lo.id FROM LimitOrder lo WHERE lo.status = :status AND lo.timeInForce IN :timesInForce")
+    List<Long> findIdsByStatusAndTimeInForceIn(@Param("status") LimitOrderStatus status,
+                                               @Param("timesInForce") Collection<TimeInForce> timesInForce);
+
+    /** Highest limit order id ever assigned, or 0 if there are none. */
+    @Query("SELECT COALESCE(MAX(lo.id), 0) FROM LimitOrder lo")
+    long findMaxId();
+
+    /** Fetches the given limit orders with asset loaded, oldest first. */
+    @Query("SELECT lo FROM LimitOrder lo JOIN FETCH lo.asset WHERE lo.id IN :ids ORDER BY lo.id")
+    List<LimitOrder> findAllWithAssetByIdIn(@Param("ids") Collection<Long> ids);
+
     /** Finds pending limit orders by status, type (BUY/SELL), and asset symbol. */
     @Query("SELECT lo FROM LimitOrder lo JOIN FETCH lo.asset WHERE lo.status = :status AND lo.type = :type AND lo.asset.symbol = :symbol")
     List<LimitOrder> findPendingByTypeAndSymbol(
@@ -53,8 +76,8 @@ public interface LimitOrderRepository extends JpaRepository<LimitOrder, Long> {
     /** Deletes all limit orders belonging to the given portfolio. */
     void deleteByPortfolioId(Long portfolioId);
 
-    /** Sums reserved amount for a user by status and order type (e.g. for balance checks). */
-    @Query("SELECT COALESCE(SUM(lo.reservedAmount), 0) FROM LimitOrder lo WHERE lo.user.id = :userId AND lo.status = :status AND lo.type = :type")
+    /** Sums the still-reserved amount (pro rata to remaining quantity) for a user by status and order type. */
+    @Query("SELECT COALESCE(SUM(lo.reservedAmount * COALESCE(lo.remainingQuantity, lo.quantity) / lo.quantity), 0) FROM LimitOrder lo WHERE lo.user.id = :userId AND lo.status = :status AND lo.type = :type")
     BigDecimal sumReservedAmountByUserIdAndStatusAndType(
             @Param("userId") Long userId,
             @Param("status") LimitOrderStatus status,
@@ -65,5 +88,10 @@ public interface LimitOrderRepository extends JpaRepository<LimitOrder, Long> {
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("SELECT lo FROM LimitOrder lo JOIN FETCH lo.user JOIN FETCH lo.portfolio JOIN FETCH lo.asset WHERE lo.id = :id")
     Optional<LimitOrder> findByIdForUpdate(@Param("id") Long id);
+
+    /** Locks a batch of limit orders for a multi-order fill, in ascending id order. */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT lo FROM LimitOrder lo JOIN FETCH lo.user JOIN FETCH lo.portfolio JOIN FETCH lo.asset WHERE lo.id IN :ids ORDER BY lo.id")
+    List<LimitOrder> findAllByIdInForUpdate(@Param("ids") Collection<Long> ids);
 }
 
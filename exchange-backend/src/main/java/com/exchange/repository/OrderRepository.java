@@ -35,6 +35,10 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     @Query("SELECT o FROM Order o WHERE o.portfolio.user.id = :userId ORDER BY o.createdAt DESC")
     List<Order> findByUserIdOrderByCreatedAtDesc(@Param("userId") Long userId);
 
+    /** Returns the fills of one limit order with asset loaded, oldest first. */
+    @Query("SELECT o FROM Order o JOIN FETCH o.asset WHERE o.limitOrderId = :limitOrderId ORDER BY o.id")
+    List<Order> findFillsByLimitOrderId(@Param("limitOrderId") Long limitOrderId);
+
     /** Deletes all orders belonging to the given portfolio. */
     void deleteByPortfolioId(Long portfolioId);
 }
@@ -2,13 +2,18 @@ package com.exchange.repository;
 
 import com.exchange.entity.StopOrder;
 import com.exchange.enums.StopOrderStatus;
+import com.exchange.enums.StopType;
 import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -31,6 +36,24 @@ public interface StopOrderRepository extends JpaRepository<StopOrder, Long> {
     @Query("SELECT so FROM StopOrder so JOIN FETCH so.asset JOIN FETCH so.portfolio WHERE so.status = :status")
     List<StopOrder> findAllPendingWithDetails(@Param("status") StopOrderStatus status);
 
+    /** Fetches stop orders of one stop type with the given status, with asset loaded. */
+    @Query("SELECT so FROM StopOrder so JOIN FETCH so.asset WHERE so.status = :status AND so.stopType = :stopType")
+    List<StopOrder> findPendingByStopTypeWithDetails(@Param("status") StopOrderStatus status, @Param("stopType") StopType stopType);
+
+    /**
+     * Writes back a trailing high-water mark for a group of stops in one statement, recomputing
+     * each stop price from its own offset. Never lowers a mark already stored.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE StopOrder so SET so.highWaterMark = :highWaterMark, " +
+            "so.stopPrice = CASE WHEN so.trailAmount IS NOT NULL THEN :highWaterMark - so.trailAmount " +
+            "ELSE :highWaterMark - :highWaterMark * so.trailPercent / 100 END " +
+            "WHERE so.id IN :ids AND so.status = :status AND (so.highWaterMark IS NULL OR so.highWaterMark < :highWaterMark)")
+    int raiseHighWaterMark(@Param("ids") Collection<Long> ids,
+                           @Param("highWaterMark") BigDecimal highWaterMark,
+                           @Param("status") StopOrderStatus status);
+
     /** Returns stop orders for a portfolio with the given status. */
     List<StopOrder> findByPortfolioIdAndStatus(Long portfolioId, StopOrderStatus status);
 
@@ -41,5 +64,10 @@ public interface StopOrderRepository extends JpaRepository<StopOrder, Long> {
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("SELECT so FROM StopOrder so JOIN FETCH so.user JOIN FETCH so.portfolio JOIN FETCH so.asset WHERE so.id = :id")
     Optional<StopOrder> findByIdForUpdate(@Param("id") Long id);
+
+    /** Locks a batch of stop orders for a multi-order trigger, in ascending id order. */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT so FROM StopOrder so JOIN FETCH so.user JOIN FETCH so.portfolio JOIN FETCH so.asset WHERE so.id IN :ids ORDER BY so.id")
+    List<StopOrder> findAllByIdInForUpdate(@Param("ids") Collection<Long> ids);
 }
 
@@ -0,0 +1,31 @@
+package com.exchange.scheduler;
+
+import com.exchange.service.LimitOrderService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LimitOrderExpiryScheduler {
+
+    private final LimitOrderService limitOrderService;
+
+    /**
+     * Advances the expiry wheel one tick. Only orders the wheel reports due are loaded,
+     * so an idle tick costs no query at all.
+     */
+    @Scheduled(fixedDelayString = "${app.matching.expiry.tick-ms:1000}")
+    public void expireLimitOrders() {
+        try {
+            int closed = limitOrderService.expireDueOrders();
+            if (closed > 0) {
+                log.debug("Closed {} expired or unfilled limit orders", closed);
+            }
+        } catch (Exception e) {
+            log.error("Error expiring limit orders: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -14,14 +14,24 @@ public class LimitOrderScheduler {
     private final LimitOrderService limitOrderService;
 
     /**
-     * Check and fill pending limit orders every 30 seconds.
-     * This runs in a separate thread to avoid blocking the main application.
+     * Reconciliation sweep over all pending limit orders.
+     * Fills normally happen as soon as a price tick arrives (see PriceTickMatcher);
+     * this pass catches anything a dropped or missed tick left behind.
      */
-    @Scheduled(fixedRate = 30000) // Every 30 seconds
+    @Scheduled(fixedRateString = "${app.matching.reconcile-interval-ms:60000}")
     public void checkLimitOrders() {
         log.debug("Checking pending limit orders...");
         try {
-            limitOrderService.checkAndFillLimitOrders();
+            // Completes on the matching shards; this thread only starts the sweep
+            limitOrderService.checkAndFillLimitOrders().whenComplete((stats, e) -> {
+                if (e != null) {
+                    log.error("Error checking limit orders: {}", e.getMessage(), e);
+                    return;
+                }
+                log.debug("Limit sweep: {} symbols fetched ({} failed, {} deferred) for {} orders, {} filled in {}ms",
+                        stats.symbolsFetched(), stats.symbolsFailed(), stats.symbolsDeferred(), stats.ordersEvaluated(),
+                        stats.ordersFilled(), stats.durationMs());
+            });
         } catch (Exception e) {
             log.error("Error checking limit orders: {}", e.getMessage(), e);
         }
@@ -14,13 +14,22 @@ public class StopOrderScheduler {
     private final StopOrderService stopOrderService;
 
     /**
-     * Check and trigger stop-loss orders every 30 seconds.
+     * Reconciliation sweep over all stop-loss orders; ticks trigger them in real time.
      */
-    @Scheduled(fixedRate = 30000)
+    @Scheduled(fixedRateString = "${app.matching.reconcile-interval-ms:60000}")
     public void checkStopOrders() {
         log.debug("Checking stop-loss orders...");
         try {
-            stopOrderService.checkAndTriggerStopOrders();
+            // Completes on the matching shards; this thread only starts the sweep
+            stopOrderService.checkAndTriggerStopOrders().whenComplete((stats, e) -> {
+                if (e != null) {
+                    log.error("Error checking stop orders: {}", e.getMessage(), e);
+                    return;
+                }
+                log.debug("Stop sweep: {} symbols fetched ({} failed, {} deferred) for {} orders, {} filled in {}ms",
+                        stats.symbolsFetched(), stats.symbolsFailed(), stats.symbolsDeferred(), stats.ordersEvaluated(),
+                        stats.ordersFilled(), stats.durationMs());
+            });
         } catch (Exception e) {
             log.error("Error checking stop orders: {}", e.getMessage(), e);
         }
@@ -8,12 +8,15 @@ import com.exchange.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 
 /**
  * Centralizes pessimistic row locks for user cash and holdings.
- * Always acquire User before Holding to avoid deadlocks.
+ * Always acquire User before Holding to avoid deadlocks; batch variants lock in ascending id order.
  */
 @Service
 @RequiredArgsConstructor
@@ -33,4 +36,31 @@ public class AccountLockService {
                 Objects.requireNonNull(portfolioId, "portfolioId must not be null"),
                 Objects.requireNonNull(assetId, "assetId must not be null"));
     }
+
+    /**
+     * Locks every given user in ascending id order.
+     * Throws if any of them no longer exists, so a batch never settles against a missing account.
+     */
+    public Map<Long, User> lockUsers(Collection<Long> userIds) {
+        Map<Long, User> users = new LinkedHashMap<>();
+        for (User user : userRepository.findAllByIdInForUpdate(userIds)) {
+            users.put(user.getId(), user);
+        }
+        for (Long userId : userIds) {
+            if (!users.containsKey(userId)) {
+                throw new ResourceNotFoundException("User", "id", userId);
+            }
+        }
+        return users;
+    }
+
+    /** Locks one asset's holdings in the given portfolios in ascending holding id order, keyed by portfolio id. */
+    public Map<Long, Holding> lockHoldings(Collection<Long> portfolioIds, Long assetId) {
+        Map<Long, Holding> holdings = new LinkedHashMap<>();
+        for (Holding holding : holdingRepository.findByPortfolioIdInAndAssetIdForUpdate(
+                portfolioIds, Objects.requireNonNull(assetId, "assetId must not be null"))) {
+            holdings.put(holding.getPortfolio().getId(), holding);
+        }
+        return holdings;
+    }
 }
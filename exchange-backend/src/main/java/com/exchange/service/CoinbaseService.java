@@ -1,6 +1,9 @@
 package com.exchange.service;
 
 import com.exchange.dto.response.PriceResponse;
+import com.exchange.marketdata.Candles;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.util.List;
 
@@ -8,8 +11,16 @@ public interface CoinbaseService {
 
     PriceResponse getCryptoPrice(String symbol);
 
+    /** Non-blocking variant of {@link #getCryptoPrice}; no thread waits while the call is in flight. */
+    Mono<PriceResponse> getCryptoPriceReactive(String symbol);
+
     List<PriceResponse> getHistoricalData(String symbol, String granularity, long start, long end);
 
+    Flux<PriceResponse> getHistoricalDataReactive(String symbol, String granularity, long start, long end);
+
+    /** Candles of {@code granularitySeconds} opening in {@code [from, to)}, oldest first; Coinbase serves at most 300 per call. */
+    Mono<Candles> getCandlesReactive(String symbol, int granularitySeconds, long from, long to);
+
     List<String> getAvailableProducts();
 }
 
@@ -1,6 +1,7 @@
 package com.exchange.service;
 
 import com.exchange.dto.response.PriceResponse;
+import reactor.core.publisher.Mono;
 
 import java.util.List;
 
@@ -8,6 +9,15 @@ public interface FinnhubService {
 
     PriceResponse getStockQuote(String symbol);
 
+    /** Non-blocking variant of {@link #getStockQuote}. */
+    Mono<PriceResponse> getStockQuoteReactive(String symbol);
+
+    /**
+     * The previous session's close, the same kind of quote as Polygon's previous-close endpoint,
+     * so the two can stand in for each other without the price jumping.
+     */
+    Mono<PriceResponse> getPreviousCloseReactive(String symbol);
+
     List<PriceResponse> getHistoricalData(String symbol, String resolution, long from, long to);
 
     List<String> searchSymbols(String query);
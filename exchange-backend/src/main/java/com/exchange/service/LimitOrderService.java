@@ -2,9 +2,13 @@ package com.exchange.service;
 
 import com.exchange.dto.request.LimitOrderRequest;
 import com.exchange.dto.response.LimitOrderResponse;
+import com.exchange.dto.response.OrderResponse;
 import com.exchange.enums.LimitOrderStatus;
+import com.exchange.matching.SweepStats;
 
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public interface LimitOrderService {
 
@@ -16,6 +20,15 @@ public interface LimitOrderService {
 
     LimitOrderResponse cancelLimitOrder(Long userId, Long orderId);
 
-    void checkAndFillLimitOrders();
+    /** Every fill of one of the user's limit orders, oldest first. */
+    List<OrderResponse> getFills(Long userId, Long orderId);
+
+    CompletableFuture<SweepStats> checkAndFillLimitOrders();
+
+    /** Fills every pending limit order on the symbol crossed by the given price; returns how many filled. */
+    int fillCrossedOrders(String symbol, BigDecimal currentPrice);
+
+    /** Closes every order the expiry wheel reports due and releases its reserved cash; returns how many closed. */
+    int expireDueOrders();
 }
 
@@ -1,8 +1,14 @@
 package com.exchange.service;
 
 import com.exchange.dto.response.PriceResponse;
+import com.exchange.marketdata.Candles;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface PolygonService {
     
@@ -10,10 +16,33 @@ public interface PolygonService {
      * Get current stock quote from Polygon.io
      */
     PriceResponse getStockQuote(String symbol);
+
+    /**
+     * Non-blocking variant of {@link #getStockQuote}; rate-limit retries wait on a timer, not a thread
+     */
+    Mono<PriceResponse> getStockQuoteReactive(String symbol);
+
+    /**
+     * Daily bars of the given symbols for one trading day, in a single call.
+     * Keyed by upper-case symbol; symbols that did not trade that day are absent.
+     */
+    Mono<Map<String, PriceResponse>> getGroupedDailyReactive(LocalDate date, Collection<String> symbols);
     
     /**
      * Get historical stock data from Polygon.io
      */
     List<PriceResponse> getHistoricalData(String symbol, int multiplier, String timespan, String from, String to);
+
+    /**
+     * Non-blocking variant of {@link #getHistoricalData}
+     */
+    Flux<PriceResponse> getHistoricalDataReactive(String symbol, int multiplier, String timespan, String from, String to);
+
+    /**
+     * Bars of {@code resolutionSeconds} opening in {@code [from, to)} (epoch seconds), oldest first,
+     * at most 5000 per call. Unlike {@link #getHistoricalDataReactive}, upstream failures are errors
+     * rather than an empty series, so callers can tell "no trades" from "not fetched".
+     */
+    Mono<Candles> getCandlesReactive(String symbol, int resolutionSeconds, long from, long to);
 }
 
@@ -2,6 +2,8 @@ package com.exchange.service;
 
 import com.exchange.dto.response.PriceResponse;
 import com.exchange.enums.AssetType;
+import com.exchange.marketdata.Candles;
+import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -11,10 +13,29 @@ public interface PriceService {
 
     PriceResponse getPrice(String symbol, AssetType type);
 
+    /** Non-blocking variant of {@link #getPrice}, for callers that price many symbols at once. */
+    Mono<PriceResponse> getPriceReactive(String symbol, AssetType type);
+
     Map<String, PriceResponse> getPrices(List<String> symbols, AssetType type);
 
+    /** Prices all symbols concurrently; symbols whose lookup fails are left out of the result. */
+    Mono<Map<String, PriceResponse>> getPricesReactive(List<String> symbols, AssetType type);
+
     BigDecimal getCurrentPrice(String symbol, AssetType type);
 
+    /**
+     * {@link #getCurrentPrice} for placing or executing an order: only a quote inside the fresh
+     * window is used, reloading inline if needed, and a failed reload throws. Its upstream calls
+     * get quota ahead of all others.
+     */
+    BigDecimal getExecutionPrice(String symbol, AssetType type);
+
+    /** Starts a background refresh of the cached quote; returns false if one is already running or queued out. */
+    boolean refreshPrice(String symbol, AssetType type);
+
     List<PriceResponse> getHistoricalPrices(String symbol, AssetType type, String resolution, long from, long to);
+
+    /** {@link #getHistoricalPrices} as primitive columns, for the compact history formats. */
+    Candles getHistoricalCandles(String symbol, AssetType type, String resolution, long from, long to);
 }
 
@@ -3,8 +3,11 @@ package com.exchange.service;
 import com.exchange.dto.request.StopOrderRequest;
 import com.exchange.dto.response.StopOrderResponse;
 import com.exchange.enums.StopOrderStatus;
+import com.exchange.matching.SweepStats;
 
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public interface StopOrderService {
 
@@ -16,6 +19,9 @@ public interface StopOrderService {
 
     StopOrderResponse cancelStopOrder(Long userId, Long orderId);
 
-    void checkAndTriggerStopOrders();
+    CompletableFuture<SweepStats> checkAndTriggerStopOrders();
+
+    /** Triggers every pending stop order on the symbol crossed by the given price; returns how many filled. */
+    int triggerCrossedOrders(String symbol, BigDecimal currentPrice);
 }
 
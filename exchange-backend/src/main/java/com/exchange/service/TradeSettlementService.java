@@ -0,0 +1,18 @@
+package com.exchange.service;
+
+import com.exchange.matching.Trade;
+import com.exchange.matching.TradeSettlement;
+
+import java.util.List;
+
+public interface TradeSettlementService {
+
+    /** Settles trades matched between limit orders on one asset in a single transaction. */
+    TradeSettlement settle(List<Trade> trades);
+
+    /**
+     * Cancels a limit order the book stopped from trading with its owner's own order, releasing
+     * what is left of its reserve. Returns false if the order was no longer pending.
+     */
+    boolean cancelSelfTrade(long orderId);
+}
@@ -1,11 +1,17 @@
 package com.exchange.service.impl;
 
 import com.exchange.dto.response.PriceResponse;
+import com.exchange.enums.UpstreamProvider;
+import com.exchange.marketdata.Candles;
+import com.exchange.marketdata.UpstreamGovernor;
 import com.exchange.service.CoinbaseService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
@@ -22,124 +28,158 @@ import java.util.Map;
 public class CoinbaseServiceImpl implements CoinbaseService {
 
     private final WebClient coinbaseWebClient;
+    private final UpstreamGovernor upstreamGovernor;
 
     @Override
     public PriceResponse getCryptoPrice(String symbol) {
-        try {
-            String productId = symbol.toUpperCase().contains("-") ? symbol.toUpperCase() : symbol.toUpperCase() + "-USD";
-
-            @SuppressWarnings("unchecked")
-            Map<String, Object> stats = (Map<String, Object>) coinbaseWebClient.get()
-                    .uri("/products/{productId}/stats", productId)
-                    .retrieve()
-                    .bodyToMono(Map.class)
-                    .block();
+        return getCryptoPriceReactive(symbol).block();
+    }
 
-            if (stats == null) {
-                throw new RuntimeException("Failed to fetch price for " + symbol);
-            }
+    @Override
+    public Mono<PriceResponse> getCryptoPriceReactive(String symbol) {
+        String productId = symbol.toUpperCase().contains("-") ? symbol.toUpperCase() : symbol.toUpperCase() + "-USD";
+
+        return upstreamGovernor.acquire(UpstreamProvider.COINBASE).then(coinbaseWebClient.get()
+                .uri("/products/{productId}/stats", productId)
+                .retrieve()
+                .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {}))
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("Failed to fetch price for " + symbol)))
+                .map(stats -> toQuote(symbol, stats))
+                .onErrorMap(e -> {
+                    log.error("Error fetching crypto price for {}: {}", symbol, e.getMessage());
+                    return new RuntimeException("Failed to fetch crypto price: " + e.getMessage(), e);
+                });
+    }
 
-            BigDecimal open = toBigDecimal(stats.get("open"), BigDecimal.ZERO);
-            BigDecimal high = toBigDecimal(stats.get("high"), open);
-            BigDecimal low = toBigDecimal(stats.get("low"), open);
-            BigDecimal last = toBigDecimal(stats.get("last"), open);
-            BigDecimal volume = toBigDecimal(stats.get("volume"), BigDecimal.ZERO);
-
-            BigDecimal price = last;
-
-            BigDecimal change = price.subtract(open);
-            BigDecimal changePercent = open.compareTo(BigDecimal.ZERO) > 0
-                    ? change.divide(open, 4, RoundingMode.HALF_UP).multiply(new BigDecimal("100"))
-                    : BigDecimal.ZERO;
-
-            return PriceResponse.builder()
-                    .symbol(symbol.toUpperCase())
-                    .price(price)
-                    .open(open)
-                    .high(high)
-                    .low(low)
-                    .previousClose(open)
-                    .change(change)
-                    .changePercent(changePercent)
-                    .volume(volume.longValue())
-                    .timestamp(LocalDateTime.now())
-                    .build();
-        } catch (Exception e) {
-            log.error("Error fetching crypto price for {}: {}", symbol, e.getMessage());
-            throw new RuntimeException("Failed to fetch crypto price: " + e.getMessage(), e);
-        }
+    private PriceResponse toQuote(String symbol, Map<String, Object> stats) {
+        BigDecimal open = toBigDecimal(stats.get("open"), BigDecimal.ZERO);
+        BigDecimal high = toBigDecimal(stats.get("high"), open);
+        BigDecimal low = toBigDecimal(stats.get("low"), open);
+        BigDecimal last = toBigDecimal(stats.get("last"), open);
+        BigDecimal volume = toBigDecimal(stats.get("volume"), BigDecimal.ZERO);
+
+        BigDecimal price = last;
+
+        BigDecimal change = price.subtract(open);
+        BigDecimal changePercent = open.compareTo(BigDecimal.ZERO) > 0
+                ? change.divide(open, 4, RoundingMode.HALF_UP).multiply(new BigDecimal("100"))
+                : BigDecimal.ZERO;
+
+        return PriceResponse.builder()
+                .symbol(symbol.toUpperCase())
+                .price(price)
+                .open(open)
+                .high(high)
+                .low(low)
+                .previousClose(open)
+                .change(change)
+                .changePercent(changePercent)
+                .volume(volume.longValue())
+                .timestamp(LocalDateTime.now())
+                .build();
     }
 
     @Override
     public List<PriceResponse> getHistoricalData(String symbol, String granularity, long start, long end) {
-        try {
-            String productId = symbol.toUpperCase().contains("-") ? symbol.toUpperCase() : symbol.toUpperCase() + "-USD";
-            String granularityParam = mapGranularity(granularity);
-
-            @SuppressWarnings("unchecked")
-            List<List<Object>> candles = (List<List<Object>>) (List<?>) coinbaseWebClient.get()
-                    .uri(uriBuilder -> uriBuilder
-                            .path("/products/{productId}/candles")
-                            .queryParam("granularity", granularityParam)
-                            .queryParam("start", Instant.ofEpochSecond(start).toString())
-                            .queryParam("end", Instant.ofEpochSecond(end).toString())
-                            .build(productId))
-                    .retrieve()
-                    .bodyToMono(List.class)
-                    .block();
+        return getHistoricalDataReactive(symbol, granularity, start, end).collectList().block();
+    }
 
-            if (candles == null) {
-                return new ArrayList<>();
-            }
+    @Override
+    public Flux<PriceResponse> getHistoricalDataReactive(String symbol, String granularity, long start, long end) {
+        String productId = symbol.toUpperCase().contains("-") ? symbol.toUpperCase() : symbol.toUpperCase() + "-USD";
+        String granularityParam = mapGranularity(granularity);
+
+        return upstreamGovernor.acquire(UpstreamProvider.COINBASE).then(coinbaseWebClient.get()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/products/{productId}/candles")
+                        .queryParam("granularity", granularityParam)
+                        .queryParam("start", Instant.ofEpochSecond(start).toString())
+                        .queryParam("end", Instant.ofEpochSecond(end).toString())
+                        .build(productId))
+                .retrieve()
+                .bodyToMono(new ParameterizedTypeReference<List<List<Object>>>() {}))
+                .flatMapIterable(candles -> candles)
+                .filter(candle -> candle.size() >= 6)
+                .map(candle -> toCandle(symbol, candle))
+                .onErrorMap(e -> {
+                    log.error("Error fetching historical data for {}: {}", symbol, e.getMessage());
+                    return new RuntimeException("Failed to fetch historical data: " + e.getMessage(), e);
+                });
+    }
 
-            List<PriceResponse> historicalData = new ArrayList<>();
-            for (Object candleObj : candles) {
-                if (candleObj instanceof List) {
-                    List<?> candle = (List<?>) candleObj;
-                    if (candle.size() >= 6) {
-                        long ts = Long.parseLong(candle.get(0).toString());
-                        BigDecimal low = new BigDecimal(candle.get(1).toString());
-                        BigDecimal high = new BigDecimal(candle.get(2).toString());
-                        BigDecimal open = new BigDecimal(candle.get(3).toString());
-                        BigDecimal close = new BigDecimal(candle.get(4).toString());
-                        BigDecimal volume = new BigDecimal(candle.get(5).toString());
-
-                        BigDecimal change = close.subtract(open);
-                        BigDecimal changePercent = open.compareTo(BigDecimal.ZERO) > 0
-                                ? change.divide(open, 4, RoundingMode.HALF_UP).multiply(new BigDecimal("100"))
-                                : BigDecimal.ZERO;
-
-                        historicalData.add(PriceResponse.builder()
-                                .symbol(symbol.toUpperCase())
-                                .price(close)
-                                .open(open)
-                                .high(high)
-                                .low(low)
-                                .previousClose(open)
-                                .change(change)
-                                .changePercent(changePercent)
-                                .volume(volume.longValue())
-                                .timestamp(LocalDateTime.ofEpochSecond(ts, 0, ZoneOffset.UTC))
-                                .build());
+    @Override
+    public Mono<Candles> getCandlesReactive(String symbol, int granularitySeconds, long from, long to) {
+        String productId = symbol.toUpperCase().contains("-") ? symbol.toUpperCase() : symbol.toUpperCase() + "-USD";
+
+        // Both bounds are inclusive upstream
+        return upstreamGovernor.acquire(UpstreamProvider.COINBASE).then(coinbaseWebClient.get()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/products/{productId}/candles")
+                        .queryParam("granularity", granularitySeconds)
+                        .queryParam("start", Instant.ofEpochSecond(from).toString())
+                        .queryParam("end", Instant.ofEpochSecond(to - 1).toString())
+                        .build(productId))
+                .retrieve()
+                .bodyToMono(new ParameterizedTypeReference<List<List<Object>>>() {}))
+                .map(rows -> {
+                    // Rows are [time, low, high, open, close, volume], newest first
+                    Candles candles = new Candles(rows.size());
+                    for (int i = rows.size() - 1; i >= 0; i--) {
+                        List<Object> row = rows.get(i);
+                        long time = row.size() >= 6 ? Long.parseLong(row.get(0).toString()) : -1;
+                        if (time >= from && time < to) {
+                            candles.add(time,
+                                    Double.parseDouble(row.get(3).toString()),
+                                    Double.parseDouble(row.get(2).toString()),
+                                    Double.parseDouble(row.get(1).toString()),
+                                    Double.parseDouble(row.get(4).toString()),
+                                    Double.parseDouble(row.get(5).toString()));
+                        }
                     }
-                }
-            }
+                    return candles;
+                })
+                .onErrorMap(e -> {
+                    log.warn("Error fetching {}s candles for {}: {}", granularitySeconds, symbol, e.getMessage());
+                    return new RuntimeException("Failed to fetch historical data: " + e.getMessage(), e);
+                });
+    }
 
-            return historicalData;
-        } catch (Exception e) {
-            log.error("Error fetching historical data for {}: {}", symbol, e.getMessage());
-            throw new RuntimeException("Failed to fetch historical data: " + e.getMessage(), e);
-        }
+    private PriceResponse toCandle(String symbol, List<Object> candle) {
+        long ts = Long.parseLong(candle.get(0).toString());
+        BigDecimal low = new BigDecimal(candle.get(1).toString());
+        BigDecimal high = new BigDecimal(candle.get(2).toString());
+        BigDecimal open = new BigDecimal(candle.get(3).toString());
+        BigDecimal close = new BigDecimal(candle.get(4).toString());
+        BigDecimal volume = new BigDecimal(candle.get(5).toString());
+
+        BigDecimal change = close.subtract(open);
+        BigDecimal changePercent = open.compareTo(BigDecimal.ZERO) > 0
+                ? change.divide(open, 4, RoundingMode.HALF_UP).multiply(new BigDecimal("100"))
+                : BigDecimal.ZERO;
+
+        return PriceResponse.builder()
+                .symbol(symbol.toUpperCase())
+                .price(close)
+                .open(open)
+                .high(high)
+                .low(low)
+                .previousClose(open)
+                .change(change)
+                .changePercent(changePercent)
+                .volume(volume.longValue())
+                .timestamp(LocalDateTime.ofEpochSecond(ts, 0, ZoneOffset.UTC))
+                .build();
     }
 
     @Override
     public List<String> getAvailableProducts() {
         try {
             @SuppressWarnings("unchecked")
-            List<Map<String, Object>> products = (List<Map<String, Object>>) (List<?>) coinbaseWebClient.get()
-                    .uri("/products")
-                    .retrieve()
-                    .bodyToMono(List.class)
+            List<Map<String, Object>> products = (List<Map<String, Object>>) (List<?>) upstreamGovernor.acquire(UpstreamProvider.COINBASE)
+                    .then(coinbaseWebClient.get()
+                            .uri("/products")
+                            .retrieve()
+                            .bodyToMono(List.class))
                     .block();
 
             if (products == null) {
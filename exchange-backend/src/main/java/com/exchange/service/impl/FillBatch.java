@@ -0,0 +1,138 @@
+package com.exchange.service.impl;
+
+import com.exchange.entity.Asset;
+import com.exchange.entity.Holding;
+import com.exchange.entity.Order;
+import com.exchange.entity.Portfolio;
+import com.exchange.entity.User;
+import com.exchange.enums.OrderStatus;
+import com.exchange.enums.OrderType;
+import com.exchange.repository.HoldingRepository;
+import com.exchange.repository.OrderRepository;
+import com.exchange.service.AccountLockService;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Settles a group of fills on one asset inside a single transaction.
+ * All users are locked up front in ascending id order, then all affected holdings in ascending
+ * id order, so two batches touching the same accounts can never deadlock. Entity changes are
+ * written in one flush at the end and picked up by Hibernate JDBC batching.
+ */
+class FillBatch {
+
+    private final Asset asset;
+    private final Map<Long, User> users;
+    private final Map<Long, Holding> holdings;
+    private final List<Order> orders = new ArrayList<>();
+
+    private FillBatch(Asset asset, Map<Long, User> users, Map<Long, Holding> holdings) {
+        this.asset = asset;
+        this.users = users;
+        this.holdings = holdings;
+    }
+
+    static FillBatch open(AccountLockService accountLockService, Asset asset,
+                          Collection<Long> userIds, Collection<Long> portfolioIds) {
+        Map<Long, User> users = accountLockService.lockUsers(userIds);
+        Map<Long, Holding> holdings = accountLockService.lockHoldings(portfolioIds, asset.getId());
+        return new FillBatch(asset, users, holdings);
+    }
+
+    /**
+     * Buys {@code quantity} at {@code fillPrice} for the portfolio, paying from the reserved cash
+     * set aside for it and refunding whatever the better fill price left over.
+     * {@code limitOrderId} links the recorded fill to its limit order, if any.
+     */
+    BigDecimal buy(Long userId, Portfolio portfolio, BigDecimal quantity, BigDecimal fillPrice, BigDecimal reservedAmount,
+                   Long limitOrderId) {
+        User user = users.get(userId);
+        BigDecimal totalAmount = totalFor(quantity, fillPrice);
+
+        BigDecimal refund = reservedAmount.subtract(totalAmount);
+        if (refund.compareTo(BigDecimal.ZERO) > 0) {
+            user.setCashBalance(user.getCashBalance().add(refund));
+        }
+
+        Holding holding = holdings.computeIfAbsent(portfolio.getId(), id -> Holding.builder()
+                .portfolio(portfolio)
+                .asset(asset)
+                .quantity(BigDecimal.ZERO)
+                .averageBuyPrice(BigDecimal.ZERO)
+                .build());
+
+        BigDecimal avgPrice = holding.getAverageBuyPrice() != null
+                ? holding.getAverageBuyPrice()
+                : BigDecimal.ZERO;
+        BigDecimal oldCost = holding.getQuantity().multiply(avgPrice);
+        BigDecimal newQuantity = holding.getQuantity().add(quantity);
+        BigDecimal newAvgPrice = newQuantity.compareTo(BigDecimal.ZERO) > 0
+                ? oldCost.add(totalAmount).divide(newQuantity, 4, RoundingMode.HALF_UP)
+                : fillPrice;
+
+        holding.setQuantity(newQuantity);
+        holding.setAverageBuyPrice(newAvgPrice);
+
+        recordOrder(portfolio, OrderType.BUY, quantity, fillPrice, totalAmount, limitOrderId);
+        return refund;
+    }
+
+    /**
+     * Sells {@code quantity} at {@code fillPrice} out of the portfolio and credits the proceeds.
+     * Returns false without touching anything if the holding is too small.
+     */
+    boolean sell(Long userId, Portfolio portfolio, BigDecimal quantity, BigDecimal fillPrice, Long limitOrderId) {
+        Holding holding = holdings.get(portfolio.getId());
+        if (holding == null || holding.getQuantity().compareTo(quantity) < 0) {
+            return false;
+        }
+
+        BigDecimal totalAmount = totalFor(quantity, fillPrice);
+        holding.setQuantity(holding.getQuantity().subtract(quantity));
+
+        User user = users.get(userId);
+        user.setCashBalance(user.getCashBalance().add(totalAmount));
+
+        recordOrder(portfolio, OrderType.SELL, quantity, fillPrice, totalAmount, limitOrderId);
+        return true;
+    }
+
+    /** Writes holdings and order records; emptied holdings are deleted as in the single-order path. */
+    void flush(HoldingRepository holdingRepository, OrderRepository orderRepository) {
+        List<Holding> toSave = new ArrayList<>();
+        List<Holding> toDelete = new ArrayList<>();
+        for (Holding holding : holdings.values()) {
+            if (holding.getQuantity().compareTo(BigDecimal.ZERO) != 0) {
+                toSave.add(holding);
+            } else if (holding.getId() != null) {
+                toDelete.add(holding);
+            }
+        }
+        holdingRepository.deleteAll(toDelete);
+        holdingRepository.saveAll(toSave);
+        orderRepository.saveAll(orders);
+    }
+
+    private static BigDecimal totalFor(BigDecimal quantity, BigDecimal fillPrice) {
+        return fillPrice.multiply(quantity).setScale(4, RoundingMode.HALF_UP);
+    }
+
+    private void recordOrder(Portfolio portfolio, OrderType type, BigDecimal quantity,
+                             BigDecimal fillPrice, BigDecimal totalAmount, Long limitOrderId) {
+        orders.add(Order.builder()
+                .portfolio(portfolio)
+                .asset(asset)
+                .type(type)
+                .status(OrderStatus.COMPLETED)
+                .quantity(quantity)
+                .pricePerUnit(fillPrice)
+                .totalAmount(totalAmount)
+                .limitOrderId(limitOrderId)
+                .build());
+    }
+}
@@ -1,12 +1,17 @@
 package com.exchange.service.impl;
 
 import com.exchange.dto.response.PriceResponse;
+import com.exchange.enums.UpstreamProvider;
+import com.exchange.exception.ResourceNotFoundException;
+import com.exchange.marketdata.UpstreamGovernor;
 import com.exchange.service.FinnhubService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
@@ -23,63 +28,99 @@ import java.util.Objects;
 public class FinnhubServiceImpl implements FinnhubService {
 
     private final WebClient finnhubWebClient;
+    private final UpstreamGovernor upstreamGovernor;
 
     @Value("${app.finnhub.api-key}")
     private String apiKey;
 
     @Override
     public PriceResponse getStockQuote(String symbol) {
-        try {
-            @SuppressWarnings("unchecked")
-            Map<String, Object> quote = (Map<String, Object>) finnhubWebClient.get()
-                    .uri(uriBuilder -> uriBuilder
-                            .path("/quote")
-                            .queryParam("symbol", symbol.toUpperCase())
-                            .queryParam("token", Objects.requireNonNull(apiKey, "apiKey must not be null"))
-                            .build())
-                    .retrieve()
-                    .bodyToMono(Map.class)
-                    .block();
+        return getStockQuoteReactive(symbol).block();
+    }
 
-            if (quote == null || quote.isEmpty()) {
-                throw new RuntimeException("Failed to fetch quote for " + symbol);
-            }
+    @Override
+    public Mono<PriceResponse> getStockQuoteReactive(String symbol) {
+        return quote(symbol).map(quote -> toQuote(symbol, quote));
+    }
 
-            BigDecimal currentPrice = getBigDecimalValue(quote, "c", BigDecimal.ZERO);
-            BigDecimal open = getBigDecimalValue(quote, "o", currentPrice);
-            BigDecimal high = getBigDecimalValue(quote, "h", currentPrice);
-            BigDecimal low = getBigDecimalValue(quote, "l", currentPrice);
-            BigDecimal previousClose = getBigDecimalValue(quote, "pc", open);
-            Long volume = quote.containsKey("v") ? Long.parseLong(quote.get("v").toString()) : 0L;
-
-            BigDecimal change = currentPrice.subtract(previousClose);
-            BigDecimal changePercent = previousClose.compareTo(BigDecimal.ZERO) > 0
-                    ? change.divide(previousClose, 4, RoundingMode.HALF_UP).multiply(new BigDecimal("100"))
-                    : BigDecimal.ZERO;
-
-            return PriceResponse.builder()
-                    .symbol(symbol.toUpperCase())
-                    .price(currentPrice)
-                    .open(open)
-                    .high(high)
-                    .low(low)
-                    .previousClose(previousClose)
-                    .change(change)
-                    .changePercent(changePercent)
-                    .volume(volume)
-                    .timestamp(LocalDateTime.now())
-                    .build();
-        } catch (Exception e) {
-            log.error("Error fetching stock quote for {}: {}", symbol, e.getMessage());
-            throw new RuntimeException("Failed to fetch stock quote: " + e.getMessage(), e);
+    @Override
+    public Mono<PriceResponse> getPreviousCloseReactive(String symbol) {
+        return quote(symbol).map(quote -> toPreviousClose(symbol, quote));
+    }
+
+    private Mono<Map<String, Object>> quote(String symbol) {
+        return upstreamGovernor.acquire(UpstreamProvider.FINNHUB).then(finnhubWebClient.get()
+                        .uri(uriBuilder -> uriBuilder
+                                .path("/quote")
+                                .queryParam("symbol", symbol.toUpperCase())
+                                .queryParam("token", Objects.requireNonNull(apiKey, "apiKey must not be null"))
+                                .build())
+                        .retrieve()
+                        .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {}))
+                .filter(quote -> !quote.isEmpty())
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("Failed to fetch quote for " + symbol)))
+                .onErrorMap(e -> {
+                    log.error("Error fetching stock quote for {}: {}", symbol, e.getMessage());
+                    return new RuntimeException("Failed to fetch stock quote: " + e.getMessage(), e);
+                });
+    }
+
+    private PriceResponse toQuote(String symbol, Map<String, Object> quote) {
+        BigDecimal currentPrice = getBigDecimalValue(quote, "c", BigDecimal.ZERO);
+        // Unknown symbols come back as a quote of all zeros rather than an error
+        if (currentPrice.signum() <= 0) {
+            throw new ResourceNotFoundException("Quote", "symbol", symbol);
+        }
+        BigDecimal open = getBigDecimalValue(quote, "o", currentPrice);
+        BigDecimal high = getBigDecimalValue(quote, "h", currentPrice);
+        BigDecimal low = getBigDecimalValue(quote, "l", currentPrice);
+        BigDecimal previousClose = getBigDecimalValue(quote, "pc", open);
+        Long volume = quote.containsKey("v") ? Long.parseLong(quote.get("v").toString()) : 0L;
+
+        BigDecimal change = currentPrice.subtract(previousClose);
+        BigDecimal changePercent = previousClose.compareTo(BigDecimal.ZERO) > 0
+                ? change.divide(previousClose, 4, RoundingMode.HALF_UP).multiply(new BigDecimal("100"))
+                : BigDecimal.ZERO;
+
+        return PriceResponse.builder()
+                .symbol(symbol.toUpperCase())
+                .price(currentPrice)
+                .open(open)
+                .high(high)
+                .low(low)
+                .previousClose(previousClose)
+                .change(change)
+                .changePercent(changePercent)
+                .volume(volume)
+                .timestamp(LocalDateTime.now())
+                .build();
+    }
+
+    /** The quote's {@code pc} field; the quote carries no range or volume for that day, so none is reported. */
+    private PriceResponse toPreviousClose(String symbol, Map<String, Object> quote) {
+        BigDecimal previousClose = getBigDecimalValue(quote, "pc", BigDecimal.ZERO);
+        if (previousClose.signum() <= 0) {
+            throw new ResourceNotFoundException("Quote", "symbol", symbol);
         }
+        return PriceResponse.builder()
+                .symbol(symbol.toUpperCase())
+                .price(previousClose)
+                .open(previousClose)
+                .high(previousClose)
+                .low(previousClose)
+                .previousClose(previousClose)
+                .change(BigDecimal.ZERO)
+                .changePercent(BigDecimal.ZERO)
+                .volume(0L)
+                .timestamp(LocalDateTime.now())
+                .build();
     }
 
     @Override
     public List<PriceResponse> getHistoricalData(String symbol, String resolution, long from, long to) {
         try {
             @SuppressWarnings("unchecked")
-            Map<String, Object> response = (Map<String, Object>) finnhubWebClient.get()
+            Map<String, Object> response = (Map<String, Object>) upstreamGovernor.acquire(UpstreamProvider.FINNHUB).then(finnhubWebClient.get()
                     .uri(uriBuilder -> uriBuilder
                             .path("/stock/candle")
                             .queryParam("symbol", symbol.toUpperCase())
@@ -89,7 +130,7 @@ public class FinnhubServiceImpl implements FinnhubService {
                             .queryParam("token", Objects.requireNonNull(apiKey, "apiKey must not be null"))
                             .build())
                     .retrieve()
-                    .bodyToMono(Map.class)
+                    .bodyToMono(Map.class))
                     .block();
 
             if (response == null || response.isEmpty() || !response.containsKey("s")) {
@@ -165,14 +206,14 @@ public class FinnhubServiceImpl implements FinnhubService {
     public List<String> searchSymbols(String query) {
         try {
             @SuppressWarnings("unchecked")
-            Map<String, Object> response = (Map<String, Object>) finnhubWebClient.get()
+            Map<String, Object> response = (Map<String, Object>) upstreamGovernor.acquire(UpstreamProvider.FINNHUB).then(finnhubWebClient.get()
                     .uri(uriBuilder -> uriBuilder
                             .path("/search")
                             .queryParam("q", query)
                             .queryParam("token", Objects.requireNonNull(apiKey, "apiKey must not be null"))
                             .build())
                     .retrieve()
-                    .bodyToMono(Map.class)
+                    .bodyToMono(Map.class))
                     .block();
 
             if (response == null || !response.containsKey("result")) {
@@ -2,13 +2,22 @@ package com.exchange.service.impl;
 
 import com.exchange.dto.request.LimitOrderRequest;
 import com.exchange.dto.response.LimitOrderResponse;
+import com.exchange.dto.response.OrderResponse;
 import com.exchange.entity.*;
 import com.exchange.enums.LimitOrderStatus;
-import com.exchange.enums.OrderStatus;
 import com.exchange.enums.OrderType;
+import com.exchange.enums.TimeInForce;
 import com.exchange.exception.BadRequestException;
 import com.exchange.exception.InsufficientBalanceException;
 import com.exchange.exception.ResourceNotFoundException;
+import com.exchange.matching.ExpiryWheel;
+import com.exchange.matching.LimitTriggerBook;
+import com.exchange.matching.MatchingEngine;
+import com.exchange.matching.MatchingJournal;
+import com.exchange.matching.MatchingShards;
+import com.exchange.matching.SweepStats;
+import com.exchange.matching.SweepTarget;
+import com.exchange.matching.TriggerEntry;
 import com.exchange.repository.*;
 import com.exchange.service.AccountLockService;
 import com.exchange.service.LimitOrderService;
@@ -16,16 +25,24 @@ import com.exchange.service.PriceService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import reactor.core.scheduler.Schedulers;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -33,6 +50,8 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class LimitOrderServiceImpl implements LimitOrderService {
 
+    private static final long EXPIRY_RETRY_SECONDS = 60;
+
     private final LimitOrderRepository limitOrderRepository;
     private final PortfolioRepository portfolioRepository;
     private final AssetRepository assetRepository;
@@ -40,6 +59,14 @@ public class LimitOrderServiceImpl implements LimitOrderService {
     private final OrderRepository orderRepository;
     private final PriceService priceService;
     private final AccountLockService accountLockService;
+    private final LimitTriggerBook limitTriggerBook;
+    private final MatchingShards matchingShards;
+    private final MatchingEngine matchingEngine;
+    private final MatchingJournal matchingJournal;
+    private final ExpiryWheel expiryWheel;
+
+    @Value("${app.matching.fill-batch-size:100}")
+    private int fillBatchSize;
 
     @Lazy
     @Autowired
@@ -48,6 +75,14 @@ public class LimitOrderServiceImpl implements LimitOrderService {
     @Override
     @Transactional
     public LimitOrderResponse createLimitOrder(Long userId, LimitOrderRequest request) {
+        TimeInForce timeInForce = request.getTimeInForce() != null ? request.getTimeInForce() : TimeInForce.GTC;
+        if (timeInForce == TimeInForce.GTD && request.getExpiresAt() == null) {
+            throw new BadRequestException("GTD orders require an expiry time");
+        }
+        if (timeInForce != TimeInForce.GTD && request.getExpiresAt() != null) {
+            throw new BadRequestException("Expiry time is only allowed for GTD orders");
+        }
+
         User user = accountLockService.requireUserForUpdate(userId);
 
         Portfolio portfolio = portfolioRepository.findByIdAndUserId(request.getPortfolioId(), userId)
@@ -93,13 +128,30 @@ public class LimitOrderServiceImpl implements LimitOrderService {
                 .type(request.getType())
                 .targetPrice(request.getTargetPrice())
                 .quantity(request.getQuantity())
+                .remainingQuantity(request.getQuantity())
                 .reservedAmount(reservedAmount)
                 .status(LimitOrderStatus.PENDING)
+                .timeInForce(timeInForce)
+                .expiresAt(request.getExpiresAt())
                 .build();
 
         LimitOrder saved = limitOrderRepository.save(limitOrder);
-        log.info("Created limit {} order for {} {} @ {} (Order ID: {})",
-                request.getType(), request.getQuantity(), request.getSymbol(),
+        afterCommit(() -> {
+            if (!timeInForce.rests()) {
+                // Off the shard: the external quote may block, and the shard serializes the whole symbol
+                matchingEngine.submit(saved).whenCompleteAsync((ignored, error) -> completeImmediateOrder(saved),
+                        task -> Schedulers.boundedElastic().schedule(task));
+                return;
+            }
+            matchingJournal.recordAdd(saved);
+            limitTriggerBook.add(saved);
+            if (saved.getExpiresAt() != null) {
+                expiryWheel.schedule(saved.getId(), toInstant(saved.getExpiresAt()));
+            }
+            matchingEngine.submit(saved);
+        });
+        log.info("Created limit {} {} order for {} {} @ {} (Order ID: {})",
+                timeInForce, request.getType(), request.getQuantity(), request.getSymbol(),
                 request.getTargetPrice(), saved.getId());
 
         return LimitOrderResponse.fromEntity(saved);
@@ -141,6 +193,16 @@ public class LimitOrderServiceImpl implements LimitOrderService {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public List<OrderResponse> getFills(Long userId, Long orderId) {
+        LimitOrder limitOrder = limitOrderRepository.findById(orderId)
+                .filter(order -> order.getUser().getId().equals(userId))
+                .orElseThrow(() -> new ResourceNotFoundException("Limit Order", "id", orderId));
+        return orderRepository.findFillsByLimitOrderId(limitOrder.getId()).stream()
+                .map(OrderResponse::fromEntity)
+                .collect(Collectors.toList());
+    }
+
     @Override
     @Transactional
     public LimitOrderResponse cancelLimitOrder(Long userId, Long orderId) {
@@ -155,133 +217,239 @@ public class LimitOrderServiceImpl implements LimitOrderService {
             throw new BadRequestException("Cannot cancel order with status: " + limitOrder.getStatus());
         }
 
-        if (limitOrder.getType() == OrderType.BUY && limitOrder.getReservedAmount().compareTo(BigDecimal.ZERO) > 0) {
+        BigDecimal unusedReserve = limitOrder.reservedFor(limitOrder.getRemainingQuantity());
+        if (limitOrder.getType() == OrderType.BUY && unusedReserve.compareTo(BigDecimal.ZERO) > 0) {
             User user = accountLockService.requireUserForUpdate(userId);
-            user.setCashBalance(user.getCashBalance().add(limitOrder.getReservedAmount()));
+            user.setCashBalance(user.getCashBalance().add(unusedReserve));
             log.info("Refunded {} to user {} for cancelled limit order {}",
-                    limitOrder.getReservedAmount(), userId, orderId);
+                    unusedReserve, userId, orderId);
         }
 
         limitOrder.setStatus(LimitOrderStatus.CANCELLED);
         LimitOrder saved = limitOrderRepository.save(limitOrder);
+        afterCommit(() -> untrack(saved.getAsset().getSymbol(), orderId));
 
         log.info("Cancelled limit order {}", orderId);
         return LimitOrderResponse.fromEntity(saved);
     }
 
     @Override
-    public void checkAndFillLimitOrders() {
-        List<LimitOrder> pendingOrders = limitOrderRepository.findAllPendingWithDetails(LimitOrderStatus.PENDING);
-
-        for (LimitOrder order : pendingOrders) {
-            try {
-                BigDecimal currentPrice = priceService.getCurrentPrice(
-                        order.getAsset().getSymbol(),
-                        order.getAsset().getType()
-                );
-
-                boolean shouldFill = false;
-
-                if (order.getType() == OrderType.BUY) {
-                    shouldFill = currentPrice.compareTo(order.getTargetPrice()) <= 0;
-                } else if (order.getType() == OrderType.SELL) {
-                    shouldFill = currentPrice.compareTo(order.getTargetPrice()) >= 0;
-                }
+    public CompletableFuture<SweepStats> checkAndFillLimitOrders() {
+        List<SweepTarget> targets = limitTriggerBook.books().stream()
+                .filter(book -> !book.isEmpty())
+                .map(book -> new SweepTarget(book.getSymbol(), book.getAssetType(), book.size(),
+                        price -> fillCrossedOrders(book.getSymbol(), price)))
+                .toList();
+        return matchingShards.sweep("limit", targets, priceService);
+    }
 
-                if (shouldFill) {
-                    self.fillLimitOrder(order.getId(), currentPrice);
-                }
+    @Override
+    public int fillCrossedOrders(String symbol, BigDecimal currentPrice) {
+        List<Long> crossed = limitTriggerBook.crossedBy(symbol, currentPrice).stream()
+                .map(TriggerEntry::orderId)
+                .toList();
+
+        int filled = 0;
+        for (int from = 0; from < crossed.size(); from += fillBatchSize) {
+            filled += fillCrossedBatch(symbol, crossed.subList(from, Math.min(from + fillBatchSize, crossed.size())), currentPrice);
+        }
+        return filled;
+    }
 
-            } catch (Exception e) {
-                log.warn("Failed to check limit order {}: {}", order.getId(), e.getMessage());
+    /**
+     * Settles crossed orders in one transaction and drops them from the trigger book and the order book.
+     * If the batch fails as a whole it is retried order by order, so one bad order
+     * cannot hold back the rest.
+     */
+    private int fillCrossedBatch(String symbol, List<Long> limitOrderIds, BigDecimal fillPrice) {
+        try {
+            int filled = self.fillLimitOrders(limitOrderIds, fillPrice);
+            for (Long limitOrderId : limitOrderIds) {
+                untrack(symbol, limitOrderId);
             }
+            return filled;
+        } catch (Exception e) {
+            if (limitOrderIds.size() == 1) {
+                log.warn("Failed to fill limit order {}: {}", limitOrderIds.get(0), e.getMessage());
+                return 0;
+            }
+            log.warn("Batch fill of {} limit orders failed ({}), retrying individually",
+                    limitOrderIds.size(), e.getMessage());
+            int filled = 0;
+            for (Long limitOrderId : limitOrderIds) {
+                filled += fillCrossedBatch(symbol, List.of(limitOrderId), fillPrice);
+            }
+            return filled;
         }
     }
 
+    /**
+     * Fills a group of crossed limit orders on one asset at {@code fillPrice} in a single transaction.
+     * Orders that are missing or no longer PENDING are skipped; SELL orders whose holding shrank
+     * below the order quantity are cancelled. Returns the number of orders filled.
+     */
     @Transactional(propagation = Propagation.REQUIRES_NEW)
-    public void fillLimitOrder(Long limitOrderId, BigDecimal fillPrice) {
-        LimitOrder limitOrder = limitOrderRepository.findByIdForUpdate(limitOrderId)
-                .orElseThrow(() -> new ResourceNotFoundException("Limit Order", "id", limitOrderId));
+    public int fillLimitOrders(List<Long> limitOrderIds, BigDecimal fillPrice) {
+        List<LimitOrder> pending = limitOrderRepository.findAllByIdInForUpdate(limitOrderIds).stream()
+                .filter(order -> order.getStatus() == LimitOrderStatus.PENDING)
+                .toList();
+        if (pending.isEmpty()) {
+            return 0;
+        }
 
-        if (limitOrder.getStatus() != LimitOrderStatus.PENDING) {
-            return;
+        Asset asset = pending.get(0).getAsset();
+        FillBatch batch = FillBatch.open(accountLockService, asset,
+                pending.stream().map(order -> order.getUser().getId()).collect(Collectors.toSet()),
+                pending.stream().map(order -> order.getPortfolio().getId()).collect(Collectors.toSet()));
+
+        int filled = 0;
+        LocalDateTime now = LocalDateTime.now();
+        for (LimitOrder limitOrder : pending) {
+            Long userId = limitOrder.getUser().getId();
+            BigDecimal remaining = limitOrder.getRemainingQuantity();
+
+            if (limitOrder.getType() == OrderType.BUY) {
+                BigDecimal refund = batch.buy(userId, limitOrder.getPortfolio(), remaining, fillPrice,
+                        limitOrder.reservedFor(remaining), limitOrder.getId());
+                if (refund.compareTo(BigDecimal.ZERO) > 0) {
+                    log.info("Refunding {} due to favorable fill price", refund);
+                }
+            } else if (!batch.sell(userId, limitOrder.getPortfolio(), remaining, fillPrice, limitOrder.getId())) {
+                limitOrder.setStatus(LimitOrderStatus.CANCELLED);
+                log.warn("Limit sell order {} cancelled due to insufficient holdings", limitOrder.getId());
+                continue;
+            }
+
+            log.info("Filled limit {} order {} for {} {} @ {}",
+                    limitOrder.getType(), limitOrder.getId(), remaining, asset.getSymbol(), fillPrice);
+
+            limitOrder.recordFill(remaining, fillPrice, now);
+            filled++;
         }
 
-        Long userId = limitOrder.getUser().getId();
-        Portfolio portfolio = limitOrder.getPortfolio();
-        Asset asset = limitOrder.getAsset();
+        batch.flush(holdingRepository, orderRepository);
+        limitOrderRepository.saveAll(pending);
+        return filled;
+    }
 
-        User user = accountLockService.requireUserForUpdate(userId);
-        BigDecimal totalAmount = fillPrice.multiply(limitOrder.getQuantity()).setScale(4, RoundingMode.HALF_UP);
+    @Override
+    public int expireDueOrders() {
+        List<Long> due = expiryWheel.advance(Instant.now());
+        int closed = 0;
+        for (int from = 0; from < due.size(); from += fillBatchSize) {
+            closed += closeDueBatch(due.subList(from, Math.min(from + fillBatchSize, due.size())));
+        }
+        return closed;
+    }
 
-        if (limitOrder.getType() == OrderType.BUY) {
-            BigDecimal refund = limitOrder.getReservedAmount().subtract(totalAmount);
-            if (refund.compareTo(BigDecimal.ZERO) > 0) {
-                user.setCashBalance(user.getCashBalance().add(refund));
-                log.info("Refunding {} due to favorable fill price", refund);
+    /**
+     * Closes due orders in one transaction and drops them from the books. A failed batch is retried
+     * order by order; an order that still fails goes back on the wheel for another attempt.
+     */
+    private int closeDueBatch(List<Long> limitOrderIds) {
+        try {
+            List<LimitOrder> closed = self.closeDueOrders(limitOrderIds);
+            for (LimitOrder order : closed) {
+                untrack(order.getAsset().getSymbol(), order.getId());
+            }
+            return closed.size();
+        } catch (Exception e) {
+            if (limitOrderIds.size() == 1) {
+                log.warn("Failed to expire limit order {}: {}", limitOrderIds.get(0), e.getMessage());
+                expiryWheel.schedule(limitOrderIds.get(0), Instant.now().plusSeconds(EXPIRY_RETRY_SECONDS));
+                return 0;
+            }
+            log.warn("Batch expiry of {} limit orders failed ({}), retrying individually",
+                    limitOrderIds.size(), e.getMessage());
+            int closed = 0;
+            for (Long limitOrderId : limitOrderIds) {
+                closed += closeDueBatch(List.of(limitOrderId));
             }
+            return closed;
+        }
+    }
 
-            Holding holding = accountLockService.findHoldingForUpdate(portfolio.getId(), asset.getId())
-                    .orElse(Holding.builder()
-                            .portfolio(portfolio)
-                            .asset(asset)
-                            .quantity(BigDecimal.ZERO)
-                            .averageBuyPrice(BigDecimal.ZERO)
-                            .build());
-
-            BigDecimal avgPrice = holding.getAverageBuyPrice() != null
-                    ? holding.getAverageBuyPrice()
-                    : BigDecimal.ZERO;
-            BigDecimal oldCost = holding.getQuantity().multiply(avgPrice);
-            BigDecimal newQuantity = holding.getQuantity().add(limitOrder.getQuantity());
-            BigDecimal newAvgPrice = newQuantity.compareTo(BigDecimal.ZERO) > 0
-                    ? oldCost.add(totalAmount).divide(newQuantity, 4, RoundingMode.HALF_UP)
-                    : fillPrice;
-
-            holding.setQuantity(newQuantity);
-            holding.setAverageBuyPrice(newAvgPrice);
-            holdingRepository.save(holding);
-
-        } else if (limitOrder.getType() == OrderType.SELL) {
-            Holding holding = accountLockService.findHoldingForUpdate(portfolio.getId(), asset.getId())
-                    .orElse(null);
+    /**
+     * Closes due orders and releases their reserved cash in a single transaction: GTD orders past
+     * their expiry become EXPIRED, unfinished IOC and FOK orders CANCELLED. Orders no longer
+     * pending are skipped. Returns the orders closed.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public List<LimitOrder> closeDueOrders(List<Long> limitOrderIds) {
+        LocalDateTime now = LocalDateTime.now();
+        List<LimitOrder> due = limitOrderRepository.findAllByIdInForUpdate(limitOrderIds).stream()
+                .filter(order -> order.getStatus() == LimitOrderStatus.PENDING)
+                .filter(order -> !order.getTimeInForce().rests()
+                        || (order.getExpiresAt() != null && !order.getExpiresAt().isAfter(now)))
+                .toList();
+        if (due.isEmpty()) {
+            return List.of();
+        }
 
-            if (holding == null || holding.getQuantity().compareTo(limitOrder.getQuantity()) < 0) {
-                limitOrder.setStatus(LimitOrderStatus.CANCELLED);
-                limitOrderRepository.save(limitOrder);
-                log.warn("Limit sell order {} cancelled due to insufficient holdings", limitOrder.getId());
-                return;
+        Set<Long> buyerIds = due.stream()
+                .filter(order -> order.getType() == OrderType.BUY)
+                .map(order -> order.getUser().getId())
+                .collect(Collectors.toSet());
+        Map<Long, User> buyers = buyerIds.isEmpty() ? Map.of() : accountLockService.lockUsers(buyerIds);
+
+        for (LimitOrder order : due) {
+            BigDecimal unusedReserve = order.reservedFor(order.getRemainingQuantity());
+            if (order.getType() == OrderType.BUY && unusedReserve.compareTo(BigDecimal.ZERO) > 0) {
+                User user = buyers.get(order.getUser().getId());
+                user.setCashBalance(user.getCashBalance().add(unusedReserve));
             }
+            order.setStatus(order.getTimeInForce().rests() ? LimitOrderStatus.EXPIRED : LimitOrderStatus.CANCELLED);
+            log.info("{} limit order {} closed as {}, released {}",
+                    order.getTimeInForce(), order.getId(), order.getStatus(), unusedReserve);
+        }
+        limitOrderRepository.saveAll(due);
+        return due;
+    }
 
-            BigDecimal newQuantity = holding.getQuantity().subtract(limitOrder.getQuantity());
-            if (newQuantity.compareTo(BigDecimal.ZERO) == 0) {
-                holdingRepository.delete(holding);
-            } else {
-                holding.setQuantity(newQuantity);
-                holdingRepository.save(holding);
+    /**
+     * Finishes an IOC or FOK order once internal matching is done: whatever is left fills against
+     * the external quote if it crosses, otherwise it is cancelled. A FOK order only reaches the
+     * quote when the book could not fill it completely, so it fills in full there or not at all.
+     */
+    private void completeImmediateOrder(LimitOrder order) {
+        long orderId = order.getId();
+        try {
+            BigDecimal quote = priceService.getExecutionPrice(order.getAsset().getSymbol(), order.getAsset().getType());
+            boolean crosses = order.getType() == OrderType.BUY
+                    ? quote.compareTo(order.getTargetPrice()) <= 0
+                    : quote.compareTo(order.getTargetPrice()) >= 0;
+            if (crosses) {
+                self.fillLimitOrders(List.of(orderId), quote);
             }
-
-            user.setCashBalance(user.getCashBalance().add(totalAmount));
+        } catch (Exception e) {
+            log.warn("External fill of {} order {} failed: {}", order.getTimeInForce(), orderId, e.getMessage());
         }
+        // A no-op if the order filled; otherwise the expiry path cancels it on the next tick
+        expiryWheel.schedule(orderId, Instant.EPOCH);
+    }
 
-        Order order = Order.builder()
-                .portfolio(portfolio)
-                .asset(asset)
-                .type(limitOrder.getType())
-                .status(OrderStatus.COMPLETED)
-                .quantity(limitOrder.getQuantity())
-                .pricePerUnit(fillPrice)
-                .totalAmount(totalAmount)
-                .build();
-        orderRepository.save(Objects.requireNonNull(order, "order must not be null"));
+    /** Drops a closed order from the journal, the trigger book, the order book and the expiry wheel. */
+    private void untrack(String symbol, long limitOrderId) {
+        matchingJournal.recordRemove(limitOrderId);
+        limitTriggerBook.remove(limitOrderId);
+        matchingEngine.remove(symbol, limitOrderId);
+        expiryWheel.cancel(limitOrderId);
+    }
 
-        limitOrder.setStatus(LimitOrderStatus.FILLED);
-        limitOrder.setFilledAt(LocalDateTime.now());
-        limitOrder.setFilledPrice(fillPrice);
-        limitOrderRepository.save(limitOrder);
+    private static Instant toInstant(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant();
+    }
 
-        log.info("Filled limit {} order {} for {} {} @ {}",
-                limitOrder.getType(), limitOrder.getId(),
-                limitOrder.getQuantity(), asset.getSymbol(), fillPrice);
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
     }
 }
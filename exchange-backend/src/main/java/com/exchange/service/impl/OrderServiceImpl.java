@@ -52,7 +52,7 @@ public class OrderServiceImpl implements OrderService {
 
         Asset asset = assetService.findBySymbol(request.getSymbol());
 
-        BigDecimal currentPrice = priceService.getCurrentPrice(request.getSymbol(), asset.getType());
+        BigDecimal currentPrice = executionPriceFor(asset);
 
         BigDecimal requestedQuantity = request.getQuantity();
         BigDecimal usedQuantity = requestedQuantity;
@@ -206,4 +206,14 @@ public class OrderServiceImpl implements OrderService {
 
         return OrderResponse.fromEntity(order);
     }
-}
\ No newline at end of file
+
+    /** A market order fills on a fresh quote or is rejected; it never executes on a stale cached price. */
+    private BigDecimal executionPriceFor(Asset asset) {
+        try {
+            return priceService.getExecutionPrice(asset.getSymbol(), asset.getType());
+        } catch (Exception e) {
+            log.warn("Failed to get execution price for {}: {}", asset.getSymbol(), e.getMessage());
+            throw new BadRequestException("Current price unavailable for " + asset.getSymbol());
+        }
+    }
+}
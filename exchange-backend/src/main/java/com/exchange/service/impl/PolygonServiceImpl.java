@@ -1,192 +1,282 @@
 package com.exchange.service.impl;
 
 import com.exchange.dto.response.PriceResponse;
+import com.exchange.enums.CallPriority;
+import com.exchange.enums.UpstreamProvider;
+import com.exchange.exception.ResourceNotFoundException;
+import com.exchange.marketdata.Candles;
+import com.exchange.marketdata.UpstreamGovernor;
+import com.exchange.marketdata.UpstreamThrottledException;
 import com.exchange.service.PolygonService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.Instant;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
-import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 public class PolygonServiceImpl implements PolygonService {
 
     private final WebClient webClient;
+    private final UpstreamGovernor upstreamGovernor;
     private final String apiKey;
 
     public PolygonServiceImpl(
             @Qualifier("polygonWebClient") WebClient webClient,
+            UpstreamGovernor upstreamGovernor,
             @Value("${app.polygon.api-key}") String apiKey) {
         this.webClient = webClient;
+        this.upstreamGovernor = upstreamGovernor;
         this.apiKey = apiKey;
     }
 
-    /** Max retries for rate-limited requests */
-    private static final int MAX_RETRIES = 3;
+    private static final ParameterizedTypeReference<Map<String, Object>> JSON_OBJECT = new ParameterizedTypeReference<>() {};
 
     @Override
     public PriceResponse getStockQuote(String symbol) {
-        return getStockQuoteWithRetry(symbol, 0);
+        return getStockQuoteReactive(symbol).block();
     }
 
-    private PriceResponse getStockQuoteWithRetry(String symbol, int attempt) {
-        try {
-            log.debug("Fetching Polygon quote for {} (attempt {})", symbol, attempt + 1);
-
-            // Use Previous Close endpoint (works on free tier)
-            @SuppressWarnings("unchecked")
-            Map<String, Object> response = webClient.get()
-                    .uri("/v2/aggs/ticker/{symbol}/prev?apiKey={apiKey}", symbol.toUpperCase(), apiKey)
-                    .retrieve()
-                    .bodyToMono(Map.class)
-                    .block();
-
-            if (response == null) {
-                throw new RuntimeException("No response from Polygon API for " + symbol);
-            }
-
-            String status = (String) response.get("status");
-            // "DELAYED" is valid for free tier (15-min delayed data)
-            if (!"OK".equals(status) && !"DELAYED".equals(status)) {
-                log.warn("Polygon API returned status: {} for {}", status, symbol);
-                throw new RuntimeException("Polygon API error for " + symbol);
-            }
-
-            @SuppressWarnings("unchecked")
-            List<Map<String, Object>> results = (List<Map<String, Object>>) response.get("results");
-            if (results == null || results.isEmpty()) {
-                throw new RuntimeException("No price data available for " + symbol);
-            }
-
-            Map<String, Object> bar = results.get(0);
-
-            BigDecimal close = toBigDecimal(bar.get("c"));
-            BigDecimal open = toBigDecimal(bar.get("o"));
-            BigDecimal high = toBigDecimal(bar.get("h"));
-            BigDecimal low = toBigDecimal(bar.get("l"));
-            Long volume = toLong(bar.get("v"));
-
-            // Use open as previousClose approximation (avoids extra API call that burns rate limit)
-            BigDecimal previousClose = open;
-
-            // Calculate change from previous close to current price
-            BigDecimal change = close.subtract(previousClose);
-            BigDecimal changePercent = previousClose.compareTo(BigDecimal.ZERO) > 0
-                    ? change.divide(previousClose, 4, RoundingMode.HALF_UP).multiply(BigDecimal.valueOf(100))
-                    : BigDecimal.ZERO;
-
-            Long timestamp = bar.get("t") != null ? ((Number) bar.get("t")).longValue() : System.currentTimeMillis();
-
-            return PriceResponse.builder()
-                    .symbol(symbol.toUpperCase())
-                    .price(close)
-                    .open(open)
-                    .high(high)
-                    .low(low)
-                    .previousClose(previousClose)
-                    .change(change)
-                    .changePercent(changePercent)
-                    .volume(volume)
-                    .timestamp(LocalDateTime.ofInstant(Instant.ofEpochMilli(timestamp), ZoneId.systemDefault()))
-                    .build();
-
-        } catch (WebClientResponseException e) {
-            // Retry on 429 rate limit with exponential backoff
-            if (e.getStatusCode().value() == 429 && attempt < MAX_RETRIES) {
-                long waitMs = (long) Math.pow(2, attempt) * 15_000L; // 15s, 30s, 60s
-                log.warn("Polygon rate limited for {} (attempt {}), retrying in {}ms", symbol, attempt + 1, waitMs);
-                try { Thread.sleep(waitMs); } catch (InterruptedException ie) { Thread.currentThread().interrupt(); }
-                return getStockQuoteWithRetry(symbol, attempt + 1);
-            }
-            log.error("Polygon API error for {}: {} - {}", symbol, e.getStatusCode(), e.getResponseBodyAsString());
-            throw new RuntimeException("Failed to fetch stock quote: " + e.getMessage(), e);
-        } catch (Exception e) {
-            log.error("Error fetching Polygon quote for {}: {}", symbol, e.getMessage());
-            throw new RuntimeException("Failed to fetch stock quote: " + e.getMessage(), e);
+    @Override
+    public Mono<PriceResponse> getStockQuoteReactive(String symbol) {
+        // Use Previous Close endpoint (works on free tier)
+        return Mono.defer(() -> {
+                    log.debug("Fetching Polygon quote for {}", symbol);
+                    return upstreamGovernor.acquire(UpstreamProvider.POLYGON).then(webClient.get()
+                            .uri("/v2/aggs/ticker/{symbol}/prev?apiKey={apiKey}", symbol.toUpperCase(), apiKey)
+                            .retrieve()
+                            .bodyToMono(JSON_OBJECT));
+                })
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("No response from Polygon API for " + symbol)))
+                .map(response -> toQuote(symbol, response))
+                // A 429 is not retried here: waiting out Polygon's minute would hold the caller far past
+                // any order's wait limit, while the quote router can fail over to the next provider at once
+                .onErrorResume(PolygonServiceImpl::isRateLimited, e -> Mono.deferContextual(context -> {
+                    CallPriority priority = context.getOrDefault(CallPriority.class, UpstreamGovernor.currentPriority());
+                    log.warn("Polygon rate limited the {} quote for {}", priority, symbol);
+                    return Mono.error(new UpstreamThrottledException(UpstreamProvider.POLYGON, priority, "HTTP 429"));
+                }))
+                .onErrorMap(e -> {
+                    if (e instanceof UpstreamThrottledException) {
+                        return e;
+                    }
+                    if (e instanceof WebClientResponseException response) {
+                        log.error("Polygon API error for {}: {} - {}", symbol, response.getStatusCode(), response.getResponseBodyAsString());
+                    } else {
+                        log.error("Error fetching Polygon quote for {}: {}", symbol, e.getMessage());
+                    }
+                    return new RuntimeException("Failed to fetch stock quote: " + e.getMessage(), e);
+                });
+    }
+
+    private PriceResponse toQuote(String symbol, Map<String, Object> response) {
+        String status = (String) response.get("status");
+        // "DELAYED" is valid for free tier (15-min delayed data)
+        if (!"OK".equals(status) && !"DELAYED".equals(status)) {
+            log.warn("Polygon API returned status: {} for {}", status, symbol);
+            throw new RuntimeException("Polygon API error for " + symbol);
+        }
+
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> results = (List<Map<String, Object>>) response.get("results");
+        if (results == null || results.isEmpty()) {
+            throw new ResourceNotFoundException("Quote", "symbol", symbol);
         }
+
+        return toQuoteFromBar(symbol, results.get(0));
+    }
+
+    private PriceResponse toQuoteFromBar(String symbol, Map<String, Object> bar) {
+        BigDecimal close = toBigDecimal(bar.get("c"));
+        BigDecimal open = toBigDecimal(bar.get("o"));
+        BigDecimal high = toBigDecimal(bar.get("h"));
+        BigDecimal low = toBigDecimal(bar.get("l"));
+        Long volume = toLong(bar.get("v"));
+
+        // Use open as previousClose approximation (avoids extra API call that burns rate limit)
+        BigDecimal previousClose = open;
+
+        // Calculate change from previous close to current price
+        BigDecimal change = close.subtract(previousClose);
+        BigDecimal changePercent = previousClose.compareTo(BigDecimal.ZERO) > 0
+                ? change.divide(previousClose, 4, RoundingMode.HALF_UP).multiply(BigDecimal.valueOf(100))
+                : BigDecimal.ZERO;
+
+        Long timestamp = bar.get("t") != null ? ((Number) bar.get("t")).longValue() : System.currentTimeMillis();
+
+        return PriceResponse.builder()
+                .symbol(symbol.toUpperCase())
+                .price(close)
+                .open(open)
+                .high(high)
+                .low(low)
+                .previousClose(previousClose)
+                .change(change)
+                .changePercent(changePercent)
+                .volume(volume)
+                .timestamp(LocalDateTime.ofInstant(Instant.ofEpochMilli(timestamp), ZoneId.systemDefault()))
+                .build();
+    }
+
+    @Override
+    public Mono<Map<String, PriceResponse>> getGroupedDailyReactive(LocalDate date, Collection<String> symbols) {
+        Set<String> wanted = symbols.stream().map(String::toUpperCase).collect(Collectors.toSet());
+        log.debug("Fetching Polygon grouped daily bars for {} ({} symbols wanted)", date, wanted.size());
+
+        return upstreamGovernor.acquire(UpstreamProvider.POLYGON).then(webClient.get()
+                .uri("/v2/aggs/grouped/locale/us/market/stocks/{date}?adjusted=true&apiKey={apiKey}", date, apiKey)
+                .retrieve()
+                .bodyToMono(JSON_OBJECT))
+                .map(response -> {
+                    @SuppressWarnings("unchecked")
+                    List<Map<String, Object>> results = (List<Map<String, Object>>) response.get("results");
+                    Map<String, PriceResponse> quotes = new HashMap<>();
+                    if (results != null) {
+                        for (Map<String, Object> bar : results) {
+                            Object ticker = bar.get("T");
+                            if (ticker != null && wanted.contains(ticker.toString())) {
+                                quotes.put(ticker.toString(), toQuoteFromBar(ticker.toString(), bar));
+                            }
+                        }
+                    }
+                    return quotes;
+                })
+                .onErrorMap(e -> {
+                    log.error("Error fetching Polygon grouped daily bars for {}: {}", date, e.getMessage());
+                    return new RuntimeException("Failed to fetch grouped daily bars: " + e.getMessage(), e);
+                });
     }
 
     @Override
     public List<PriceResponse> getHistoricalData(String symbol, int multiplier, String timespan, String from, String to) {
-        try {
-            log.debug("Fetching Polygon historical data for {} from {} to {}", symbol, from, to);
-
-            @SuppressWarnings("unchecked")
-            Map<String, Object> response = webClient.get()
-                    .uri("/v2/aggs/ticker/{symbol}/range/{multiplier}/{timespan}/{from}/{to}?apiKey={apiKey}&limit=5000",
-                            symbol.toUpperCase(), multiplier, timespan, from, to, apiKey)
-                    .retrieve()
-                    .bodyToMono(Map.class)
-                    .block();
-
-            if (response == null) {
-                log.warn("No response from Polygon historical API for {}", symbol);
-                return new ArrayList<>();
-            }
-
-            String status = (String) response.get("status");
-            // "DELAYED" is valid for free tier (15-min delayed data)
-            if (!"OK".equals(status) && !"DELAYED".equals(status)) {
-                log.warn("Polygon historical API returned unexpected status '{}' for {}", status, symbol);
-                return new ArrayList<>();
-            }
-
-            @SuppressWarnings("unchecked")
-            List<Map<String, Object>> results = (List<Map<String, Object>>) response.get("results");
-            if (results == null || results.isEmpty()) {
-                log.info("No historical data available for {} from {} to {}", symbol, from, to);
-                return new ArrayList<>();
-            }
-
-            List<PriceResponse> prices = new ArrayList<>();
-            for (Map<String, Object> bar : results) {
-                BigDecimal close = toBigDecimal(bar.get("c"));
-                BigDecimal open = toBigDecimal(bar.get("o"));
-                BigDecimal high = toBigDecimal(bar.get("h"));
-                BigDecimal low = toBigDecimal(bar.get("l"));
-                Long volume = toLong(bar.get("v"));
-                Long timestamp = bar.get("t") != null ? ((Number) bar.get("t")).longValue() : 0L;
-
-                prices.add(PriceResponse.builder()
-                        .symbol(symbol.toUpperCase())
-                        .price(close)
-                        .open(open)
-                        .high(high)
-                        .low(low)
-                        .volume(volume)
-                        .timestamp(LocalDateTime.ofInstant(Instant.ofEpochMilli(timestamp), ZoneId.systemDefault()))
-                        .build());
-            }
-
-            log.debug("Fetched {} historical data points for {}", prices.size(), symbol);
-            return prices;
-
-        } catch (WebClientResponseException e) {
-            if (e.getStatusCode().value() == 403) {
-                log.warn("Polygon historical data requires subscription for {}", symbol);
-                return new ArrayList<>();
-            }
-            if (e.getStatusCode().value() == 429) {
-                log.warn("Polygon API rate limit exceeded for {}", symbol);
-                return new ArrayList<>();
-            }
-            log.error("Polygon historical API error for {}: {}", symbol, e.getMessage());
-            return new ArrayList<>();
-        } catch (Exception e) {
-            log.error("Error fetching Polygon historical data for {}: {}", symbol, e.getMessage());
-            return new ArrayList<>();
+        return getHistoricalDataReactive(symbol, multiplier, timespan, from, to).collectList().block();
+    }
+
+    @Override
+    public Flux<PriceResponse> getHistoricalDataReactive(String symbol, int multiplier, String timespan, String from, String to) {
+        log.debug("Fetching Polygon historical data for {} from {} to {}", symbol, from, to);
+
+        return upstreamGovernor.acquire(UpstreamProvider.POLYGON).then(webClient.get()
+                .uri("/v2/aggs/ticker/{symbol}/range/{multiplier}/{timespan}/{from}/{to}?apiKey={apiKey}&limit=5000",
+                        symbol.toUpperCase(), multiplier, timespan, from, to, apiKey)
+                .retrieve()
+                .bodyToMono(JSON_OBJECT))
+                .flatMapIterable(response -> historicalBars(symbol, from, to, response))
+                .map(bar -> toBar(symbol, bar))
+                .onErrorResume(e -> {
+                    if (e instanceof WebClientResponseException response && response.getStatusCode().value() == 403) {
+                        log.warn("Polygon historical data requires subscription for {}", symbol);
+                    } else if (isRateLimited(e)) {
+                        log.warn("Polygon API rate limit exceeded for {}", symbol);
+                    } else {
+                        log.error("Error fetching Polygon historical data for {}: {}", symbol, e.getMessage());
+                    }
+                    return Flux.empty();
+                });
+    }
+
+    @Override
+    public Mono<Candles> getCandlesReactive(String symbol, int resolutionSeconds, long from, long to) {
+        int multiplier;
+        String timespan;
+        if (resolutionSeconds % 86_400 == 0) {
+            multiplier = resolutionSeconds / 86_400;
+            timespan = "day";
+        } else if (resolutionSeconds % 3_600 == 0) {
+            multiplier = resolutionSeconds / 3_600;
+            timespan = "hour";
+        } else {
+            multiplier = resolutionSeconds / 60;
+            timespan = "minute";
+        }
+        // Millisecond bounds select bars by open time rather than by whole calendar days; both are inclusive
+        return upstreamGovernor.acquire(UpstreamProvider.POLYGON).then(webClient.get()
+                .uri("/v2/aggs/ticker/{symbol}/range/{multiplier}/{timespan}/{from}/{to}?adjusted=true&sort=asc&limit=5000&apiKey={apiKey}",
+                        symbol.toUpperCase(), multiplier, timespan, from * 1000, to * 1000 - 1, apiKey)
+                .retrieve()
+                .bodyToMono(JSON_OBJECT))
+                .map(response -> {
+                    String status = (String) response.get("status");
+                    if (!"OK".equals(status) && !"DELAYED".equals(status)) {
+                        throw new IllegalStateException("Polygon aggregates returned status " + status);
+                    }
+                    @SuppressWarnings("unchecked")
+                    List<Map<String, Object>> results = (List<Map<String, Object>>) response.get("results");
+                    Candles candles = new Candles(results != null ? results.size() : 0);
+                    if (results != null) {
+                        for (Map<String, Object> bar : results) {
+                            long time = ((Number) bar.get("t")).longValue() / 1000;
+                            if (time >= from && time < to) {
+                                candles.add(time, toDouble(bar.get("o")), toDouble(bar.get("h")), toDouble(bar.get("l")),
+                                        toDouble(bar.get("c")), toDouble(bar.get("v")));
+                            }
+                        }
+                    }
+                    return candles;
+                })
+                .onErrorMap(e -> {
+                    log.warn("Error fetching Polygon {}s bars for {}: {}", resolutionSeconds, symbol, e.getMessage());
+                    return new RuntimeException("Failed to fetch historical bars: " + e.getMessage(), e);
+                });
+    }
+
+    private List<Map<String, Object>> historicalBars(String symbol, String from, String to, Map<String, Object> response) {
+        String status = (String) response.get("status");
+        // "DELAYED" is valid for free tier (15-min delayed data)
+        if (!"OK".equals(status) && !"DELAYED".equals(status)) {
+            log.warn("Polygon historical API returned unexpected status '{}' for {}", status, symbol);
+            return List.of();
         }
+
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> results = (List<Map<String, Object>>) response.get("results");
+        if (results == null || results.isEmpty()) {
+            log.info("No historical data available for {} from {} to {}", symbol, from, to);
+            return List.of();
+        }
+        log.debug("Fetched {} historical data points for {}", results.size(), symbol);
+        return results;
+    }
+
+    private PriceResponse toBar(String symbol, Map<String, Object> bar) {
+        BigDecimal close = toBigDecimal(bar.get("c"));
+        BigDecimal open = toBigDecimal(bar.get("o"));
+        BigDecimal high = toBigDecimal(bar.get("h"));
+        BigDecimal low = toBigDecimal(bar.get("l"));
+        Long volume = toLong(bar.get("v"));
+        Long timestamp = bar.get("t") != null ? ((Number) bar.get("t")).longValue() : 0L;
+
+        return PriceResponse.builder()
+                .symbol(symbol.toUpperCase())
+                .price(close)
+                .open(open)
+                .high(high)
+                .low(low)
+                .volume(volume)
+                .timestamp(LocalDateTime.ofInstant(Instant.ofEpochMilli(timestamp), ZoneId.systemDefault()))
+                .build();
+    }
+
+    private static boolean isRateLimited(Throwable e) {
+        return e instanceof WebClientResponseException response && response.getStatusCode().value() == 429;
     }
 
     private BigDecimal toBigDecimal(Object value) {
@@ -196,6 +286,12 @@ public class PolygonServiceImpl implements PolygonService {
         return new BigDecimal(value.toString());
     }
 
+    private double toDouble(Object value) {
+        if (value == null) return 0;
+        if (value instanceof Number) return ((Number) value).doubleValue();
+        return Double.parseDouble(value.toString());
+    }
+
     private Long toLong(Object value) {
         if (value == null) return 0L;
         if (value instanceof Long) return (Long) value;
@@ -4,11 +4,13 @@ import com.exchange.dto.request.CreatePortfolioRequest;
 import com.exchange.dto.request.DepositRequest;
 import com.exchange.dto.response.HoldingResponse;
 import com.exchange.dto.response.PortfolioResponse;
+import com.exchange.entity.Asset;
 import com.exchange.entity.Holding;
 import com.exchange.entity.Portfolio;
 import com.exchange.entity.User;
 import com.exchange.exception.BadRequestException;
 import com.exchange.exception.ResourceNotFoundException;
+import com.exchange.matching.FixedPoint;
 import com.exchange.repository.HoldingRepository;
 import com.exchange.repository.PortfolioRepository;
 import com.exchange.repository.UserRepository;
@@ -19,11 +21,14 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
 
@@ -80,61 +85,7 @@ public class PortfolioServiceImpl implements PortfolioService {
         Portfolio portfolio = portfolioRepository.findByIdAndUserId(portfolioId, userId)
                 .orElseThrow(() -> new ResourceNotFoundException("Portfolio", "id", portfolioId));
 
-        List<Holding> holdings = holdingRepository.findByPortfolioIdWithAsset(portfolioId);
-
-        List<HoldingResponse> holdingResponses = new ArrayList<>();
-        BigDecimal totalValue = BigDecimal.ZERO;
-
-        for (Holding holding : holdings) {
-            BigDecimal currentPrice = null;
-            BigDecimal marketValue = null;
-            BigDecimal gainLoss = null;
-            BigDecimal gainLossPercent = null;
-
-            try {
-                currentPrice = priceService.getCurrentPrice(
-                        holding.getAsset().getSymbol(),
-                        holding.getAsset().getType());
-
-                marketValue = holding.getQuantity()
-                        .multiply(currentPrice)
-                        .setScale(4, RoundingMode.HALF_UP);
-
-                gainLoss = marketValue.subtract(
-                        holding.getQuantity().multiply(holding.getAverageBuyPrice())
-                                .setScale(4, RoundingMode.HALF_UP));
-
-                gainLossPercent = holding.getAverageBuyPrice().compareTo(BigDecimal.ZERO) > 0
-                        ? gainLoss.divide(
-                                holding.getQuantity().multiply(holding.getAverageBuyPrice()),
-                                4, RoundingMode.HALF_UP).multiply(new BigDecimal("100"))
-                        : BigDecimal.ZERO;
-
-                totalValue = totalValue.add(marketValue);
-            } catch (Exception e) {
-                log.warn("Failed to fetch price for {}: {}", holding.getAsset().getSymbol(), e.getMessage());
-                // Use cost basis as fallback for value calculation
-                marketValue = holding.getQuantity().multiply(holding.getAverageBuyPrice())
-                        .setScale(4, RoundingMode.HALF_UP);
-                totalValue = totalValue.add(marketValue);
-            }
-
-            // Always add the holding to the response, even if price fetch failed
-            holdingResponses.add(HoldingResponse.builder()
-                    .id(holding.getId())
-                    .symbol(holding.getAsset().getSymbol())
-                    .assetName(holding.getAsset().getName())
-                    .assetType(holding.getAsset().getType())
-                    .quantity(holding.getQuantity())
-                    .averageBuyPrice(holding.getAverageBuyPrice())
-                    .currentPrice(currentPrice)
-                    .currentValue(marketValue)
-                    .profitLoss(gainLoss)
-                    .profitLossPercent(gainLossPercent)
-                    .build());
-        }
-
-        return PortfolioResponse.fromEntityWithHoldings(portfolio, holdingResponses, totalValue);
+        return valuePortfolio(portfolio, holdingRepository.findByPortfolioIdWithAsset(portfolioId));
     }
 
     @Override
@@ -171,45 +122,54 @@ public class PortfolioServiceImpl implements PortfolioService {
     }
 
     private PortfolioResponse computePortfolioSummary(Portfolio portfolio) {
-        List<Holding> holdings = holdingRepository.findByPortfolioIdWithAsset(portfolio.getId());
-        BigDecimal totalValue = BigDecimal.ZERO;
+        return valuePortfolio(portfolio, holdingRepository.findByPortfolioIdWithAsset(portfolio.getId()));
+    }
+
+    /**
+     * Values every holding at its current price, in {@link FixedPoint} longs so the per-holding
+     * arithmetic allocates nothing; amounts become {@link BigDecimal}s only in the response.
+     * A holding that cannot be priced, or whose amounts do not fit in fixed point, is valued at cost
+     * and reported without a gain.
+     */
+    private PortfolioResponse valuePortfolio(Portfolio portfolio, List<Holding> holdings) {
+        Map<Long, BigDecimal> prices = currentPrices(holdings);
+        long totalValueTicks = 0;
+        // Cost-basis values of holdings too large for fixed point
+        BigDecimal oversizedValue = BigDecimal.ZERO;
 
         List<HoldingResponse> holdingResponses = new ArrayList<>();
 
         for (Holding holding : holdings) {
-            BigDecimal currentPrice = null;
-            BigDecimal marketValue = null;
+            BigDecimal currentPrice = prices.get(holding.getAsset().getId());
+            BigDecimal currentValue;
             BigDecimal gainLoss = null;
             BigDecimal gainLossPercent = null;
 
             try {
-                currentPrice = priceService.getCurrentPrice(
-                        holding.getAsset().getSymbol(),
-                        holding.getAsset().getType());
-
-                marketValue = holding.getQuantity()
-                        .multiply(currentPrice)
-                        .setScale(4, RoundingMode.HALF_UP);
-
-                gainLoss = marketValue.subtract(
-                        holding.getQuantity().multiply(holding.getAverageBuyPrice())
-                                .setScale(4, RoundingMode.HALF_UP));
-
-                gainLossPercent = holding.getAverageBuyPrice().compareTo(BigDecimal.ZERO) > 0
-                        ? gainLoss.divide(
-                                holding.getQuantity().multiply(holding.getAverageBuyPrice()),
-                                4, RoundingMode.HALF_UP).multiply(new BigDecimal("100"))
-                        : BigDecimal.ZERO;
-
-                totalValue = totalValue.add(marketValue);
-            } catch (Exception e) {
-                log.warn("Failed to price holding {}: {}", holding.getAsset().getSymbol(), e.getMessage());
-                // Use cost basis as fallback
-                marketValue = holding.getQuantity().multiply(holding.getAverageBuyPrice())
-                        .setScale(4, RoundingMode.HALF_UP);
-                totalValue = totalValue.add(marketValue);
+                long quantityUnits = FixedPoint.toUnits(holding.getQuantity());
+                long costTicks = FixedPoint.notional(quantityUnits, FixedPoint.toTicks(holding.getAverageBuyPrice()));
+                long valueTicks = costTicks;
+                if (currentPrice != null) {
+                    valueTicks = FixedPoint.marketValue(quantityUnits, FixedPoint.toQuoteUnits(currentPrice));
+                    long gainTicks = Math.subtractExact(valueTicks, costTicks);
+                    gainLoss = FixedPoint.fromTicks(gainTicks);
+                    gainLossPercent = FixedPoint.fromTicks(costTicks > 0 ? FixedPoint.percentTicks(gainTicks, costTicks) : 0);
+                } else {
+                    log.warn("No price for holding {}, valuing it at cost", holding.getAsset().getSymbol());
+                }
+                totalValueTicks = Math.addExact(totalValueTicks, valueTicks);
+                currentValue = FixedPoint.fromTicks(valueTicks);
+            } catch (ArithmeticException e) {
+                log.warn("Cannot value holding {} in fixed point ({}), valuing it at cost",
+                        holding.getAsset().getSymbol(), e.getMessage());
+                currentValue = holding.getQuantity().multiply(holding.getAverageBuyPrice())
+                        .setScale(FixedPoint.PRICE_SCALE, RoundingMode.HALF_UP);
+                gainLoss = null;
+                gainLossPercent = null;
+                oversizedValue = oversizedValue.add(currentValue);
             }
 
+            // Always add the holding to the response, even if price fetch failed
             holdingResponses.add(HoldingResponse.builder()
                     .id(holding.getId())
                     .symbol(holding.getAsset().getSymbol())
@@ -218,12 +178,31 @@ public class PortfolioServiceImpl implements PortfolioService {
                     .quantity(holding.getQuantity())
                     .averageBuyPrice(holding.getAverageBuyPrice())
                     .currentPrice(currentPrice)
-                    .currentValue(marketValue)
+                    .currentValue(currentValue)
                     .profitLoss(gainLoss)
                     .profitLossPercent(gainLossPercent)
                     .build());
         }
 
+        BigDecimal totalValue = FixedPoint.fromTicks(totalValueTicks).add(oversizedValue);
         return PortfolioResponse.fromEntityWithHoldings(portfolio, holdingResponses, totalValue);
     }
+
+    /**
+     * Current price per asset id, fetched for all holdings concurrently so a portfolio costs one
+     * upstream round trip rather than one per holding. Assets that cannot be priced are left out.
+     */
+    private Map<Long, BigDecimal> currentPrices(List<Holding> holdings) {
+        return Flux.fromIterable(holdings)
+                .map(Holding::getAsset)
+                .distinct(Asset::getId)
+                .flatMap(asset -> priceService.getPriceReactive(asset.getSymbol(), asset.getType())
+                        .map(price -> Map.entry(asset.getId(), price.getPrice()))
+                        .onErrorResume(e -> {
+                            log.debug("No quote for {}: {}", asset.getSymbol(), e.getMessage());
+                            return Mono.empty();
+                        }))
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+                .block();
+    }
 }
@@ -1,21 +1,37 @@
 package com.exchange.service.impl;
 
+import com.exchange.cache.QuoteCache;
 import com.exchange.dto.response.PriceResponse;
 import com.exchange.enums.AssetType;
+import com.exchange.enums.CallPriority;
+import com.exchange.enums.ChartResolution;
+import com.exchange.event.PriceTickPublisher;
+import com.exchange.marketdata.CandleHistory;
+import com.exchange.marketdata.Candles;
+import com.exchange.marketdata.CoinbaseTickerStream;
+import com.exchange.marketdata.LiveQuote;
+import com.exchange.marketdata.StockQuoteRouter;
+import com.exchange.marketdata.UpstreamGovernor;
 import com.exchange.service.CoinbaseService;
 import com.exchange.service.PolygonService;
 import com.exchange.service.PriceService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.cache.annotation.Cacheable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.math.BigDecimal;
-import java.time.Instant;
+import java.time.DayOfWeek;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.ZoneId;
-import java.time.format.DateTimeFormatter;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 
@@ -26,30 +42,119 @@ public class PriceServiceImpl implements PriceService {
 
     private final PolygonService polygonService;
     private final CoinbaseService coinbaseService;
+    private final PriceTickPublisher priceTickPublisher;
+    private final QuoteCache quoteCache;
+    private final CoinbaseTickerStream coinbaseTickerStream;
+    private final StockQuoteRouter stockQuoteRouter;
+    private final CandleHistory candleHistory;
 
-    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    @Value("${app.prices.batch.deadline-ms:3000}")
+    private long batchDeadlineMs;
+
+    @Value("${app.prices.batch.stock.concurrency:4}")
+    private int stockBatchConcurrency;
+
+    @Value("${app.prices.batch.crypto.concurrency:16}")
+    private int cryptoBatchConcurrency;
+
+    @Value("${app.prices.batch.stock.grouped-min-symbols:3}")
+    private int groupedMinSymbols;
 
     @Override
-    @Cacheable(value = "prices", key = "T(String).format('%s:%s', #type, #symbol?.toUpperCase())")
     public PriceResponse getPrice(String symbol, AssetType type) {
-        return switch (type) {
-            case STOCK -> polygonService.getStockQuote(symbol);
-            case CRYPTO -> coinbaseService.getCryptoPrice(symbol);
-        };
+        PriceResponse live = livePrice(symbol, type);
+        if (live != null) {
+            return live;
+        }
+        return quoteCache.get(symbol, type, () -> fetchQuote(symbol, type, UpstreamGovernor.currentPriority()).block());
+    }
+
+    @Override
+    public Mono<PriceResponse> getPriceReactive(String symbol, AssetType type) {
+        CallPriority priority = UpstreamGovernor.currentPriority();
+        return Mono.defer(() -> {
+            PriceResponse known = knownPrice(symbol, type);
+            return known != null
+                    ? Mono.just(known)
+                    : quoteCache.loadReactive(symbol, type, priority, () -> fetchQuote(symbol, type, priority));
+        });
     }
 
     @Override
     public Map<String, PriceResponse> getPrices(List<String> symbols, AssetType type) {
-        Map<String, PriceResponse> prices = new HashMap<>();
-        for (String symbol : symbols) {
-            try {
-                PriceResponse price = getPrice(symbol, type);
-                prices.put(symbol, price);
-            } catch (Exception e) {
-                log.warn("Failed to fetch price for {}: {}", symbol, e.getMessage());
+        return getPricesReactive(symbols, type).block();
+    }
+
+    /**
+     * Cached and streamed quotes are answered at once. For stocks, enough misses are priced with one
+     * Polygon grouped-daily call; what is still missing fans out per symbol, at most
+     * {@code concurrency} calls at a time per provider. Whatever has not arrived by the deadline is
+     * left out of the result, but its load keeps running and lands in the cache for the next request.
+     */
+    @Override
+    public Mono<Map<String, PriceResponse>> getPricesReactive(List<String> symbols, AssetType type) {
+        CallPriority priority = UpstreamGovernor.currentPriority();
+        return Mono.defer(() -> {
+            Map<String, PriceResponse> prices = new HashMap<>();
+            List<String> missing = new ArrayList<>();
+            for (String symbol : new LinkedHashSet<>(symbols)) {
+                PriceResponse known = knownPrice(symbol, type);
+                if (known != null) {
+                    prices.put(symbol, known);
+                } else {
+                    missing.add(symbol);
+                }
+            }
+            if (missing.isEmpty()) {
+                return Mono.just(prices);
             }
+            int wanted = prices.size() + missing.size();
+            return fetchMissing(missing, type, priority)
+                    .take(Duration.ofMillis(batchDeadlineMs))
+                    .collectMap(Map.Entry::getKey, Map.Entry::getValue, () -> prices)
+                    .doOnNext(result -> {
+                        if (result.size() < wanted) {
+                            log.warn("Priced {} of {} {} symbols before the batch deadline", result.size(), wanted, type);
+                        }
+                    });
+        });
+    }
+
+    private Flux<Map.Entry<String, PriceResponse>> fetchMissing(List<String> missing, AssetType type, CallPriority priority) {
+        Mono<Map<String, PriceResponse>> grouped = type == AssetType.STOCK && missing.size() >= groupedMinSymbols
+                ? polygonService.getGroupedDailyReactive(previousTradingDay(), missing)
+                        // Caching writes through to Redis, which must not happen on an HTTP client event loop
+                        .publishOn(Schedulers.boundedElastic())
+                        .doOnNext(quotes -> quotes.forEach((symbol, quote) -> {
+                            quoteCache.put(symbol, type, quote);
+                            priceTickPublisher.publish(symbol, type, quote.getPrice());
+                        }))
+                        .onErrorResume(e -> Mono.just(Map.of()))
+                        .contextWrite(UpstreamGovernor.withPriority(priority))
+                : Mono.just(Map.of());
+
+        return grouped.flatMapMany(quotes -> Flux.fromIterable(missing)
+                .flatMap(symbol -> {
+                    PriceResponse batched = quotes.get(symbol.toUpperCase());
+                    Mono<PriceResponse> price = batched != null
+                            ? Mono.just(batched)
+                            : quoteCache.loadReactive(symbol, type, priority, () -> fetchQuote(symbol, type, priority));
+                    return price
+                            .map(quote -> Map.entry(symbol, quote))
+                            .onErrorResume(e -> {
+                                log.warn("Failed to fetch price for {}: {}", symbol, e.getMessage());
+                                return Mono.empty();
+                            });
+                }, type == AssetType.STOCK ? stockBatchConcurrency : cryptoBatchConcurrency));
+    }
+
+    /** The trading day Polygon's previous-close quote refers to; market holidays simply return no bars. */
+    private static LocalDate previousTradingDay() {
+        LocalDate day = LocalDate.now(ZoneId.of("America/New_York")).minusDays(1);
+        while (day.getDayOfWeek() == DayOfWeek.SATURDAY || day.getDayOfWeek() == DayOfWeek.SUNDAY) {
+            day = day.minusDays(1);
         }
-        return prices;
+        return day;
     }
 
     @Override
@@ -57,58 +162,63 @@ public class PriceServiceImpl implements PriceService {
         return getPrice(symbol, type).getPrice();
     }
 
+    /** Never a stale-while-revalidate answer: an order fills on a quote inside the fresh window or not at all. */
     @Override
-    public List<PriceResponse> getHistoricalPrices(String symbol, AssetType type, String resolution, long from, long to) {
-        return switch (type) {
-            case STOCK -> getPolygonHistoricalData(symbol, resolution, from, to);
-            case CRYPTO -> coinbaseService.getHistoricalData(symbol, resolution, from, to);
-        };
+    public BigDecimal getExecutionPrice(String symbol, AssetType type) {
+        PriceResponse live = livePrice(symbol, type);
+        if (live != null) {
+            return live.getPrice();
+        }
+        return UpstreamGovernor.callAs(CallPriority.ORDER, () -> quoteCache.getFresh(symbol, type,
+                () -> fetchQuote(symbol, type, CallPriority.ORDER).block()).getPrice());
     }
 
-    /**
-     * Convert Unix timestamps to dates and fetch from Polygon
-     */
-    private List<PriceResponse> getPolygonHistoricalData(String symbol, String resolution, long from, long to) {
-        // Convert Unix timestamps (seconds) to LocalDate for Polygon API
-        LocalDate fromDate = Instant.ofEpochSecond(from).atZone(ZoneId.of("America/New_York")).toLocalDate();
-        LocalDate toDate = Instant.ofEpochSecond(to).atZone(ZoneId.of("America/New_York")).toLocalDate();
-
-        // Map resolution to Polygon timespan
-        int multiplier = 1;
-        String timespan = mapResolutionToTimespan(resolution);
-
-        // Polygon uses specific multipliers for different resolutions
-        if (resolution.equalsIgnoreCase("5") || resolution.equalsIgnoreCase("5M")) {
-            multiplier = 5;
-            timespan = "minute";
-        } else if (resolution.equalsIgnoreCase("15") || resolution.equalsIgnoreCase("15M")) {
-            multiplier = 15;
-            timespan = "minute";
-        } else if (resolution.equalsIgnoreCase("60") || resolution.equalsIgnoreCase("1H")) {
-            multiplier = 1;
-            timespan = "hour";
+    @Override
+    public boolean refreshPrice(String symbol, AssetType type) {
+        return quoteCache.revalidate(symbol, type, () -> fetchQuote(symbol, type, CallPriority.BACKGROUND).block());
+    }
+
+    /** Live or cached quote without going upstream inline; null on a miss. */
+    private PriceResponse knownPrice(String symbol, AssetType type) {
+        PriceResponse live = livePrice(symbol, type);
+        if (live != null) {
+            return live;
         }
+        // A stale hit is revalidated on the refresh pool, where the lazily read priority is background
+        return quoteCache.getIfCached(symbol, type,
+                () -> fetchQuote(symbol, type, UpstreamGovernor.currentPriority()).block());
+    }
 
-        String fromStr = fromDate.format(DATE_FORMAT);
-        String toStr = toDate.format(DATE_FORMAT);
+    /** Streamed crypto quotes are newer than anything REST would return; null while the stream is not live. */
+    private PriceResponse livePrice(String symbol, AssetType type) {
+        if (type != AssetType.CRYPTO) {
+            return null;
+        }
+        return coinbaseTickerStream.latest(symbol).map(LiveQuote::toPriceResponse).orElse(null);
+    }
 
-        log.debug("Fetching Polygon historical data for {} from {} to {} ({} {})", 
-                symbol, fromStr, toStr, multiplier, timespan);
+    /** Only reached on a cache miss or refresh, i.e. when the quote is actually refreshed upstream. */
+    private Mono<PriceResponse> fetchQuote(String symbol, AssetType type, CallPriority priority) {
+        Mono<PriceResponse> quote = switch (type) {
+            case STOCK -> stockQuoteRouter.quote(symbol);
+            case CRYPTO -> coinbaseService.getCryptoPriceReactive(symbol);
+        };
+        return quote
+                .doOnNext(price -> priceTickPublisher.publish(symbol, type, price.getPrice()))
+                .contextWrite(UpstreamGovernor.withPriority(priority));
+    }
 
-        return polygonService.getHistoricalData(symbol, multiplier, timespan, fromStr, toStr);
+    @Override
+    public List<PriceResponse> getHistoricalPrices(String symbol, AssetType type, String resolution, long from, long to) {
+        ZoneId zone = type == AssetType.STOCK ? ZoneId.systemDefault() : ZoneOffset.UTC;
+        return getHistoricalCandles(symbol, type, resolution, from, to).toPriceResponses(symbol, zone);
     }
 
-    private String mapResolutionToTimespan(String resolution) {
-        return switch (resolution.toUpperCase()) {
-            case "1", "1MIN", "1M" -> "minute";
-            case "5", "5MIN", "5M" -> "minute";
-            case "15", "15MIN", "15M" -> "minute";
-            case "30", "30MIN", "30M" -> "minute";
-            case "60", "1H", "1HOUR" -> "hour";
-            case "D", "1D", "DAY", "DAILY" -> "day";
-            case "W", "1W", "WEEK", "WEEKLY" -> "week";
-            case "MO", "1MO", "MONTH", "MONTHLY" -> "month";
-            default -> "day";
-        };
+    @Override
+    public Candles getHistoricalCandles(String symbol, AssetType type, String resolution, long from, long to) {
+        // Unrecognised resolutions fall back to what each provider used to default to
+        ChartResolution chartResolution = ChartResolution.parse(resolution)
+                .orElse(type == AssetType.STOCK ? ChartResolution.DAY : ChartResolution.HOUR);
+        return candleHistory.candles(symbol, type, chartResolution, from, to);
     }
 }
\ No newline at end of file
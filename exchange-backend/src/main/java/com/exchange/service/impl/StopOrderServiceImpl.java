@@ -1,34 +1,51 @@
 package com.exchange.service.impl;
 
+import com.exchange.dto.request.LimitOrderRequest;
 import com.exchange.dto.request.StopOrderRequest;
 import com.exchange.dto.response.StopOrderResponse;
 import com.exchange.entity.Asset;
 import com.exchange.entity.Holding;
 import com.exchange.entity.StopOrder;
 import com.exchange.entity.User;
+import com.exchange.enums.AssetType;
 import com.exchange.enums.OrderStatus;
 import com.exchange.enums.OrderType;
 import com.exchange.enums.StopOrderStatus;
+import com.exchange.enums.StopType;
 import com.exchange.exception.BadRequestException;
 import com.exchange.exception.InsufficientBalanceException;
 import com.exchange.exception.ResourceNotFoundException;
+import com.exchange.matching.HighWaterMark;
+import com.exchange.matching.MatchingShards;
+import com.exchange.matching.StopTriggerBook;
+import com.exchange.matching.SweepStats;
+import com.exchange.matching.SweepTarget;
+import com.exchange.matching.SymbolTrailingStops;
+import com.exchange.matching.SymbolTriggerBook;
+import com.exchange.matching.TrailingStopTracker;
 import com.exchange.repository.*;
 import com.exchange.service.AccountLockService;
+import com.exchange.service.LimitOrderService;
 import com.exchange.service.PriceService;
 import com.exchange.service.StopOrderService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -43,6 +60,13 @@ public class StopOrderServiceImpl implements StopOrderService {
     private final OrderRepository orderRepository;
     private final PriceService priceService;
     private final AccountLockService accountLockService;
+    private final MatchingShards matchingShards;
+    private final StopTriggerBook stopTriggerBook;
+    private final TrailingStopTracker trailingStopTracker;
+    private final LimitOrderService limitOrderService;
+
+    @Value("${app.matching.fill-batch-size:100}")
+    private int fillBatchSize;
 
     @Lazy
     @Autowired
@@ -73,19 +97,47 @@ public class StopOrderServiceImpl implements StopOrderService {
                             request.getQuantity(), holding.getQuantity()));
         }
 
+        StopType stopType = request.getStopType() != null ? request.getStopType() : StopType.STOP_MARKET;
         StopOrder stopOrder = StopOrder.builder()
                 .user(user)
                 .portfolio(portfolio)
                 .asset(asset)
                 .type(OrderType.SELL)
-                .stopPrice(request.getStopPrice())
+                .stopType(stopType)
                 .quantity(request.getQuantity())
                 .status(StopOrderStatus.PENDING)
                 .build();
 
+        switch (stopType) {
+            case STOP_MARKET -> stopOrder.setStopPrice(requireStopPrice(request));
+            case STOP_LIMIT -> {
+                stopOrder.setStopPrice(requireStopPrice(request));
+                if (request.getLimitPrice() == null) {
+                    throw new BadRequestException("Limit price is required for stop-limit orders");
+                }
+                stopOrder.setLimitPrice(request.getLimitPrice());
+            }
+            case TRAILING_STOP -> {
+                if ((request.getTrailAmount() == null) == (request.getTrailPercent() == null)) {
+                    throw new BadRequestException("Trailing stops need exactly one of trail amount or trail percent");
+                }
+                BigDecimal highWaterMark = currentPriceFor(asset);
+                BigDecimal stopPrice = TrailingStopTracker.stopPriceFor(
+                        highWaterMark, request.getTrailAmount(), request.getTrailPercent());
+                if (stopPrice.compareTo(BigDecimal.ZERO) <= 0) {
+                    throw new BadRequestException("Trail amount must be below the current price " + highWaterMark);
+                }
+                stopOrder.setTrailAmount(request.getTrailAmount());
+                stopOrder.setTrailPercent(request.getTrailPercent());
+                stopOrder.setHighWaterMark(highWaterMark);
+                stopOrder.setStopPrice(stopPrice);
+            }
+        }
+
         StopOrder saved = stopOrderRepository.save(stopOrder);
-        log.info("Created stop-loss SELL order for {} @ {} (Order ID: {})",
-                request.getSymbol(), request.getStopPrice(), saved.getId());
+        afterCommit(() -> track(saved));
+        log.info("Created {} SELL order for {} @ {} (Order ID: {})",
+                stopType, request.getSymbol(), saved.getStopPrice(), saved.getId());
 
         return StopOrderResponse.fromEntity(saved);
     }
@@ -118,91 +170,215 @@ public class StopOrderServiceImpl implements StopOrderService {
 
         order.setStatus(StopOrderStatus.CANCELLED);
         StopOrder saved = stopOrderRepository.save(order);
+        afterCommit(() -> untrack(orderId));
         log.info("Cancelled stop order {}", orderId);
 
         return StopOrderResponse.fromEntity(saved);
     }
 
+    /**
+     * Reconciliation pass over every symbol with pending stops. Besides catching missed ticks it
+     * writes back the trailing high-water marks raised since the last sweep, one statement per mark.
+     */
     @Override
-    public void checkAndTriggerStopOrders() {
-        List<StopOrder> pendingOrders = stopOrderRepository.findAllPendingWithDetails(StopOrderStatus.PENDING);
-
-        for (StopOrder order : pendingOrders) {
-            try {
-                BigDecimal currentPrice = priceService.getCurrentPrice(
-                        order.getAsset().getSymbol(),
-                        order.getAsset().getType()
-                );
+    public CompletableFuture<SweepStats> checkAndTriggerStopOrders() {
+        Map<String, SweepTarget> targets = new HashMap<>();
+        for (SymbolTriggerBook book : stopTriggerBook.books()) {
+            if (!book.isEmpty()) {
+                targets.put(book.getSymbol(), sweepTarget(book.getSymbol(), book.getAssetType(), book.size()));
+            }
+        }
+        for (SymbolTrailingStops stops : trailingStopTracker.symbols()) {
+            if (!stops.isEmpty()) {
+                SweepTarget fixed = targets.get(stops.getSymbol());
+                int orders = stops.size() + (fixed != null ? fixed.orders() : 0);
+                targets.put(stops.getSymbol(), sweepTarget(stops.getSymbol(), stops.getAssetType(), orders));
+            }
+        }
+        return matchingShards.sweep("stop", targets.values(), priceService);
+    }
 
-                boolean shouldTrigger = order.getType() == OrderType.SELL
-                        && currentPrice.compareTo(order.getStopPrice()) <= 0;
+    private SweepTarget sweepTarget(String symbol, AssetType assetType, int orders) {
+        return new SweepTarget(symbol, assetType, orders, price -> {
+            int filled = triggerCrossedOrders(symbol, price);
+            checkpointHighWaterMarks(symbol);
+            return filled;
+        });
+    }
 
-                if (shouldTrigger) {
-                    self.triggerStopOrder(order.getId(), currentPrice);
-                }
+    @Override
+    public int triggerCrossedOrders(String symbol, BigDecimal currentPrice) {
+        List<Long> crossed = new ArrayList<>();
+        stopTriggerBook.crossedBy(symbol, currentPrice).forEach(entry -> crossed.add(entry.orderId()));
+        crossed.addAll(trailingStopTracker.onPrice(symbol, currentPrice));
+
+        int filled = 0;
+        for (int from = 0; from < crossed.size(); from += fillBatchSize) {
+            filled += triggerCrossedBatch(crossed.subList(from, Math.min(from + fillBatchSize, crossed.size())), currentPrice);
+        }
+        return filled;
+    }
 
+    private void checkpointHighWaterMarks(String symbol) {
+        for (HighWaterMark mark : trailingStopTracker.drainCheckpoints(symbol)) {
+            try {
+                stopOrderRepository.raiseHighWaterMark(mark.orderIds(), mark.price(), StopOrderStatus.PENDING);
             } catch (Exception e) {
-                log.warn("Failed to check stop order {}: {}", order.getId(), e.getMessage());
+                log.warn("Failed to write trailing high-water mark {} for {}: {}", mark.price(), symbol, e.getMessage());
             }
         }
     }
 
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
-    public void triggerStopOrder(Long stopOrderId, BigDecimal fillPrice) {
-        StopOrder stopOrder = stopOrderRepository.findByIdForUpdate(stopOrderId)
-                .orElseThrow(() -> new ResourceNotFoundException("Stop Order", "id", stopOrderId));
+    /**
+     * Settles triggered stops in one transaction and drops them from the stop books. If the batch
+     * fails it is retried order by order, so a single bad order cannot hold back the rest.
+     */
+    private int triggerCrossedBatch(List<Long> stopOrderIds, BigDecimal fillPrice) {
+        try {
+            int filled = self.triggerStopOrders(stopOrderIds, fillPrice);
+            stopOrderIds.forEach(this::untrack);
+            return filled;
+        } catch (Exception e) {
+            if (stopOrderIds.size() == 1) {
+                log.warn("Failed to trigger stop order {}: {}", stopOrderIds.get(0), e.getMessage());
+                return 0;
+            }
+            log.warn("Batch trigger of {} stop orders failed ({}), retrying individually",
+                    stopOrderIds.size(), e.getMessage());
+            int filled = 0;
+            for (Long stopOrderId : stopOrderIds) {
+                filled += triggerCrossedBatch(List.of(stopOrderId), fillPrice);
+            }
+            return filled;
+        }
+    }
 
-        if (stopOrder.getStatus() != StopOrderStatus.PENDING) {
-            return;
+    /**
+     * Triggers a group of stop orders on one asset in a single transaction. Stop-market and
+     * trailing stops sell at {@code fillPrice}; stop-limit orders place a limit SELL at their
+     * limit price and stay TRIGGERED. Orders no longer PENDING are skipped; orders whose holding
+     * shrank below the order quantity are cancelled. Returns the number of orders filled or placed.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public int triggerStopOrders(List<Long> stopOrderIds, BigDecimal fillPrice) {
+        List<StopOrder> pending = stopOrderRepository.findAllByIdInForUpdate(stopOrderIds).stream()
+                .filter(order -> order.getStatus() == StopOrderStatus.PENDING)
+                .toList();
+        if (pending.isEmpty()) {
+            return 0;
         }
 
-        Long userId = stopOrder.getUser().getId();
-        var portfolio = stopOrder.getPortfolio();
-        var asset = stopOrder.getAsset();
+        Asset asset = pending.get(0).getAsset();
+        FillBatch batch = FillBatch.open(accountLockService, asset,
+                pending.stream().map(order -> order.getUser().getId()).collect(Collectors.toSet()),
+                pending.stream().map(order -> order.getPortfolio().getId()).collect(Collectors.toSet()));
+
+        int filled = 0;
+        LocalDateTime now = LocalDateTime.now();
+        for (StopOrder stopOrder : pending) {
+            if (stopOrder.getStopType() == StopType.STOP_LIMIT) {
+                if (placeLimitOrder(stopOrder, now)) {
+                    filled++;
+                }
+                continue;
+            }
 
-        User user = accountLockService.requireUserForUpdate(userId);
+            if (!batch.sell(stopOrder.getUser().getId(), stopOrder.getPortfolio(), stopOrder.getQuantity(), fillPrice, null)) {
+                stopOrder.setStatus(StopOrderStatus.CANCELLED);
+                log.warn("Stop order {} cancelled due to insufficient holdings at trigger", stopOrder.getId());
+                continue;
+            }
 
-        Holding holding = accountLockService.findHoldingForUpdate(portfolio.getId(), asset.getId())
-                .orElse(null);
+            stopOrder.setStatus(StopOrderStatus.FILLED);
+            stopOrder.setTriggeredAt(now);
+            stopOrder.setFilledAt(now);
+            stopOrder.setFilledPrice(fillPrice);
+            filled++;
 
-        if (holding == null || holding.getQuantity().compareTo(stopOrder.getQuantity()) < 0) {
-            stopOrder.setStatus(StopOrderStatus.CANCELLED);
-            stopOrderRepository.save(stopOrder);
-            log.warn("Stop order {} cancelled due to insufficient holdings at trigger", stopOrder.getId());
-            return;
+            log.info("Filled {} SELL order {} for {} {} @ {}", stopOrder.getStopType(), stopOrder.getId(),
+                    stopOrder.getQuantity(), asset.getSymbol(), fillPrice);
         }
 
-        BigDecimal totalAmount = fillPrice.multiply(stopOrder.getQuantity()).setScale(4, RoundingMode.HALF_UP);
+        batch.flush(holdingRepository, orderRepository);
+        stopOrderRepository.saveAll(pending);
+        return filled;
+    }
 
-        BigDecimal newQty = holding.getQuantity().subtract(stopOrder.getQuantity());
-        if (newQty.compareTo(BigDecimal.ZERO) == 0) {
-            holdingRepository.delete(holding);
-        } else {
-            holding.setQuantity(newQty);
-            holdingRepository.save(holding);
+    /**
+     * Converts a triggered stop-limit into a limit SELL at its limit price, inside the trigger transaction.
+     * Holdings are checked first so a shortfall cancels the stop instead of failing the whole batch.
+     */
+    private boolean placeLimitOrder(StopOrder stopOrder, LocalDateTime now) {
+        boolean covered = accountLockService
+                .findHoldingForUpdate(stopOrder.getPortfolio().getId(), stopOrder.getAsset().getId())
+                .map(holding -> holding.getQuantity().compareTo(stopOrder.getQuantity()) >= 0)
+                .orElse(false);
+        if (!covered) {
+            stopOrder.setStatus(StopOrderStatus.CANCELLED);
+            log.warn("Stop order {} cancelled due to insufficient holdings at trigger", stopOrder.getId());
+            return false;
         }
 
-        user.setCashBalance(user.getCashBalance().add(totalAmount));
-
-        var orderRecord = com.exchange.entity.Order.builder()
-                .portfolio(portfolio)
-                .asset(asset)
+        LimitOrderRequest request = LimitOrderRequest.builder()
+                .portfolioId(stopOrder.getPortfolio().getId())
+                .symbol(stopOrder.getAsset().getSymbol())
                 .type(OrderType.SELL)
-                .status(OrderStatus.COMPLETED)
+                .targetPrice(stopOrder.getLimitPrice())
                 .quantity(stopOrder.getQuantity())
-                .pricePerUnit(fillPrice)
-                .totalAmount(totalAmount)
                 .build();
-        orderRepository.save(Objects.requireNonNull(orderRecord, "orderRecord must not be null"));
+        Long limitOrderId = limitOrderService.createLimitOrder(stopOrder.getUser().getId(), request).getId();
+
+        stopOrder.setStatus(StopOrderStatus.TRIGGERED);
+        stopOrder.setTriggeredAt(now);
+        stopOrder.setLimitOrderId(limitOrderId);
+        log.info("Triggered stop-limit order {}: placed limit SELL {} for {} {} @ {}", stopOrder.getId(),
+                limitOrderId, stopOrder.getQuantity(), stopOrder.getAsset().getSymbol(), stopOrder.getLimitPrice());
+        return true;
+    }
 
-        stopOrder.setStatus(StopOrderStatus.FILLED);
-        stopOrder.setTriggeredAt(LocalDateTime.now());
-        stopOrder.setFilledAt(LocalDateTime.now());
-        stopOrder.setFilledPrice(fillPrice);
-        stopOrderRepository.save(stopOrder);
+    private BigDecimal currentPriceFor(Asset asset) {
+        try {
+            BigDecimal price = priceService.getExecutionPrice(asset.getSymbol(), asset.getType());
+            if (price != null && price.compareTo(BigDecimal.ZERO) > 0) {
+                return price;
+            }
+        } catch (Exception e) {
+            log.warn("Failed to get price for {}: {}", asset.getSymbol(), e.getMessage());
+        }
+        throw new BadRequestException("Current price unavailable for " + asset.getSymbol());
+    }
+
+    private static BigDecimal requireStopPrice(StopOrderRequest request) {
+        if (request.getStopPrice() == null) {
+            throw new BadRequestException("Stop price is required");
+        }
+        return request.getStopPrice();
+    }
+
+    private void track(StopOrder order) {
+        if (order.getStopType() == StopType.TRAILING_STOP) {
+            trailingStopTracker.add(order);
+        } else {
+            stopTriggerBook.add(order);
+        }
+    }
+
+    private void untrack(long orderId) {
+        stopTriggerBook.remove(orderId);
+        trailingStopTracker.remove(orderId);
+    }
 
-        log.info("Filled stop-loss SELL order {} for {} {} @ {}", stopOrder.getId(),
-                stopOrder.getQuantity(), asset.getSymbol(), fillPrice);
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
     }
 
     private List<StopOrderResponse> mapWithCurrentPrice(List<StopOrder> orders) {
@@ -0,0 +1,128 @@
+package com.exchange.service.impl;
+
+import com.exchange.entity.LimitOrder;
+import com.exchange.entity.User;
+import com.exchange.enums.LimitOrderStatus;
+import com.exchange.enums.OrderType;
+import com.exchange.matching.Trade;
+import com.exchange.matching.TradeSettlement;
+import com.exchange.repository.HoldingRepository;
+import com.exchange.repository.LimitOrderRepository;
+import com.exchange.repository.OrderRepository;
+import com.exchange.service.AccountLockService;
+import com.exchange.service.TradeSettlementService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TradeSettlementServiceImpl implements TradeSettlementService {
+
+    private final LimitOrderRepository limitOrderRepository;
+    private final HoldingRepository holdingRepository;
+    private final OrderRepository orderRepository;
+    private final AccountLockService accountLockService;
+
+    /**
+     * Locks both sides of every trade (orders, then users, then holdings, each in id order) and
+     * applies the fills. A trade is rejected if either order is gone, no longer PENDING or has less
+     * left than the trade quantity; a seller whose holding no longer covers the trade has the
+     * order cancelled. Each side gets its own {@code Order} record at the trade price.
+     */
+    @Override
+    @Transactional
+    public TradeSettlement settle(List<Trade> trades) {
+        Set<Long> orderIds = trades.stream()
+                .flatMap(trade -> Stream.of(trade.buyOrderId(), trade.sellOrderId()))
+                .collect(Collectors.toSet());
+        Map<Long, LimitOrder> orders = limitOrderRepository.findAllByIdInForUpdate(orderIds).stream()
+                .collect(Collectors.toMap(LimitOrder::getId, Function.identity()));
+        if (orders.isEmpty()) {
+            return new TradeSettlement(List.of(), trades.size(), orderIds);
+        }
+
+        LimitOrder any = orders.values().iterator().next();
+        FillBatch batch = FillBatch.open(accountLockService, any.getAsset(),
+                orders.values().stream().map(order -> order.getUser().getId()).collect(Collectors.toSet()),
+                orders.values().stream().map(order -> order.getPortfolio().getId()).collect(Collectors.toSet()));
+
+        List<Trade> settled = new ArrayList<>();
+        int rejected = 0;
+        Set<Long> closed = new HashSet<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (Trade trade : trades) {
+            LimitOrder buy = orders.get(trade.buyOrderId());
+            LimitOrder sell = orders.get(trade.sellOrderId());
+            if (!canFill(buy, trade.quantity()) || !canFill(sell, trade.quantity())) {
+                rejected++;
+                continue;
+            }
+
+            if (!batch.sell(sell.getUser().getId(), sell.getPortfolio(), trade.quantity(), trade.price(), sell.getId())) {
+                sell.setStatus(LimitOrderStatus.CANCELLED);
+                closed.add(sell.getId());
+                rejected++;
+                log.warn("Limit sell order {} cancelled due to insufficient holdings", sell.getId());
+                continue;
+            }
+
+            BigDecimal remaining = buy.getRemainingQuantity();
+            BigDecimal reserveUsed = buy.reservedFor(remaining)
+                    .subtract(buy.reservedFor(remaining.subtract(trade.quantity())));
+            batch.buy(buy.getUser().getId(), buy.getPortfolio(), trade.quantity(), trade.price(), reserveUsed, buy.getId());
+
+            if (buy.recordFill(trade.quantity(), trade.price(), now)) {
+                closed.add(buy.getId());
+            }
+            if (sell.recordFill(trade.quantity(), trade.price(), now)) {
+                closed.add(sell.getId());
+            }
+            settled.add(trade);
+
+            log.info("Matched limit orders {} (buy) and {} (sell) for {} {} @ {}",
+                    buy.getId(), sell.getId(), trade.quantity(), any.getAsset().getSymbol(), trade.price());
+        }
+
+        batch.flush(holdingRepository, orderRepository);
+        limitOrderRepository.saveAll(orders.values());
+        return new TradeSettlement(settled, rejected, closed);
+    }
+
+    @Override
+    @Transactional
+    public boolean cancelSelfTrade(long orderId) {
+        LimitOrder order = limitOrderRepository.findByIdForUpdate(orderId).orElse(null);
+        if (order == null || order.getStatus() != LimitOrderStatus.PENDING) {
+            return false;
+        }
+        BigDecimal unusedReserve = order.reservedFor(order.getRemainingQuantity());
+        if (order.getType() == OrderType.BUY && unusedReserve.signum() > 0) {
+            User user = accountLockService.requireUserForUpdate(order.getUser().getId());
+            user.setCashBalance(user.getCashBalance().add(unusedReserve));
+        }
+        order.setStatus(LimitOrderStatus.CANCELLED);
+        limitOrderRepository.save(order);
+        log.info("Cancelled limit order {} to prevent a self-trade, released {}", orderId, unusedReserve);
+        return true;
+    }
+
+    private static boolean canFill(LimitOrder order, BigDecimal quantity) {
+        return order != null
+                && order.getStatus() == LimitOrderStatus.PENDING
+                && order.getRemainingQuantity().compareTo(quantity) >= 0;
+    }
+}
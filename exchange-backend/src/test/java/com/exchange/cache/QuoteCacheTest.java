@@ -0,0 +1,123 @@
+package com.exchange.cache;
+
+import com.exchange.dto.response.PriceResponse;
+import com.exchange.enums.AssetType;
+import com.exchange.enums.CallPriority;
+import com.exchange.marketdata.UpstreamGovernor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QuoteCacheTest {
+
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final ExecutorService callers = Executors.newFixedThreadPool(2);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private QuoteCache quoteCache;
+
+    @BeforeEach
+    void setUp() {
+        quoteCache = new QuoteCache(new ConcurrentMapCacheManager(QuoteCache.CACHE_NAME), meterRegistry,
+                new RefreshBudget(0, 0), 60, 15, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        callers.shutdownNow();
+        quoteCache.shutdown();
+    }
+
+    @Test
+    void orderLoadDoesNotWaitOnInteractiveLoad() throws Exception {
+        CompletableFuture<PriceResponse> interactive = CompletableFuture.supplyAsync(
+                () -> quoteCache.get("AAPL", AssetType.STOCK, slowLoader("190.00")), callers);
+        awaitUpstreamCalls(1);
+
+        PriceResponse order = UpstreamGovernor.callAs(CallPriority.ORDER,
+                () -> quoteCache.getFresh("AAPL", AssetType.STOCK, loader("190.25")));
+
+        assertThat(order.getPrice()).isEqualByComparingTo("190.25");
+        assertThat(upstreamCalls).hasValue(2);
+        assertThat(interactive).isNotDone();
+    }
+
+    @Test
+    void interactiveLoadJoinsOrderLoad() throws Exception {
+        CompletableFuture<PriceResponse> order = CompletableFuture.supplyAsync(() -> UpstreamGovernor.callAs(
+                CallPriority.ORDER, () -> quoteCache.getFresh("AAPL", AssetType.STOCK, slowLoader("190.00"))), callers);
+        awaitUpstreamCalls(1);
+
+        CompletableFuture<PriceResponse> interactive = CompletableFuture.supplyAsync(
+                () -> quoteCache.get("AAPL", AssetType.STOCK, slowLoader("191.00")), callers);
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (coalesced() < 1 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+
+        assertThat(interactive.get(5, TimeUnit.SECONDS).getPrice()).isEqualByComparingTo("190.00");
+        assertThat(order.get(5, TimeUnit.SECONDS).getPrice()).isEqualByComparingTo("190.00");
+        assertThat(upstreamCalls).hasValue(1);
+    }
+
+    @Test
+    void revalidateSkipsKeyWithLoadInFlightAtAnyPriority() throws Exception {
+        CompletableFuture.supplyAsync(() -> UpstreamGovernor.callAs(CallPriority.ORDER,
+                () -> quoteCache.getFresh("AAPL", AssetType.STOCK, slowLoader("190.00"))), callers);
+        awaitUpstreamCalls(1);
+
+        assertThat(quoteCache.revalidate("AAPL", AssetType.STOCK, loader("191.00"))).isFalse();
+    }
+
+    /** Counts the upstream call, then holds it until the test releases it. */
+    private Supplier<PriceResponse> slowLoader(String price) {
+        return () -> {
+            upstreamCalls.incrementAndGet();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return quote(price);
+        };
+    }
+
+    private Supplier<PriceResponse> loader(String price) {
+        return () -> {
+            upstreamCalls.incrementAndGet();
+            return quote(price);
+        };
+    }
+
+    private double coalesced() {
+        return meterRegistry.counter("quote.cache.coalesced", "type", "stock").count();
+    }
+
+    private static PriceResponse quote(String price) {
+        return PriceResponse.builder().symbol("AAPL").price(new BigDecimal(price)).build();
+    }
+
+    private void awaitUpstreamCalls(int calls) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (upstreamCalls.get() < calls && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(upstreamCalls).hasValue(calls);
+    }
+}
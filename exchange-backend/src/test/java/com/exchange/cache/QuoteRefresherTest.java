@@ -0,0 +1,62 @@
+package com.exchange.cache;
+
+import com.exchange.entity.Asset;
+import com.exchange.enums.AssetType;
+import com.exchange.marketdata.CoinbaseTickerStream;
+import com.exchange.repository.AssetRepository;
+import com.exchange.service.PriceService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class QuoteRefresherTest {
+
+    private final AssetRepository assetRepository = mock(AssetRepository.class);
+    private final PriceService priceService = mock(PriceService.class);
+    private final QuoteCache quoteCache = mock(QuoteCache.class);
+    private QuoteRefresher quoteRefresher;
+
+    @BeforeEach
+    void setUp() {
+        // Two stock refreshes a minute, none for crypto
+        quoteRefresher = new QuoteRefresher(assetRepository, priceService, quoteCache, new RefreshBudget(2, 0),
+                mock(CoinbaseTickerStream.class));
+        when(assetRepository.findByTypeAndActiveTrue(AssetType.STOCK)).thenReturn(List.of(stock("AAPL"), stock("MSFT"),
+                stock("NVDA")));
+        when(quoteCache.freshFor(any())).thenReturn(Duration.ofSeconds(60));
+        when(quoteCache.fetchedAt(anyString(), any())).thenReturn(Optional.empty());
+        when(priceService.refreshPrice(anyString(), any())).thenReturn(true);
+    }
+
+    @Test
+    void refreshThatDidNotStartDoesNotSpendTheBudget() {
+        // The first symbol is already loading
+        when(priceService.refreshPrice(anyString(), any())).thenReturn(false, true);
+
+        quoteRefresher.refreshActiveQuotes();
+
+        verify(priceService, times(3)).refreshPrice(anyString(), eq(AssetType.STOCK));
+    }
+
+    @Test
+    void startedRefreshesStopAtTheBudget() {
+        quoteRefresher.refreshActiveQuotes();
+
+        verify(priceService, times(2)).refreshPrice(anyString(), eq(AssetType.STOCK));
+    }
+
+    private static Asset stock(String symbol) {
+        return Asset.builder().symbol(symbol).type(AssetType.STOCK).build();
+    }
+}
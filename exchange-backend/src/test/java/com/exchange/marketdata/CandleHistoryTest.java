@@ -0,0 +1,108 @@
+package com.exchange.marketdata;
+
+import com.exchange.entity.Asset;
+import com.exchange.enums.AssetType;
+import com.exchange.enums.ChartResolution;
+import com.exchange.exception.ResourceNotFoundException;
+import com.exchange.repository.AssetRepository;
+import com.exchange.service.CoinbaseService;
+import com.exchange.service.PolygonService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class CandleHistoryTest {
+
+    private static final long DAY = Duration.ofDays(1).toSeconds();
+
+    @TempDir
+    Path directory;
+
+    private final AssetRepository assetRepository = mock(AssetRepository.class);
+    private final PolygonService polygonService = mock(PolygonService.class);
+    private final CoinbaseService coinbaseService = mock(CoinbaseService.class);
+    private CandleHistory candleHistory;
+    private long from;
+    private long to;
+
+    @BeforeEach
+    void setUp() {
+        CandleStore candleStore = new CandleStore(directory.toString(), 16, 900, 60);
+        candleHistory = new CandleHistory(candleStore, assetRepository, polygonService, coinbaseService, 20_000, 4);
+        when(assetRepository.findBySymbol(anyString())).thenReturn(Optional.empty());
+        when(assetRepository.findBySymbol("AAPL"))
+                .thenReturn(Optional.of(Asset.builder().symbol("AAPL").type(AssetType.STOCK).build()));
+        // Long settled, so a fetch covers the whole range
+        long today = System.currentTimeMillis() / 1000 / DAY * DAY;
+        from = today - 30 * DAY;
+        to = today - 20 * DAY;
+    }
+
+    @Test
+    void unlistedSymbolIsRefusedBeforeFetching() throws IOException {
+        assertThatThrownBy(() -> candleHistory.candles("ZZZZ", AssetType.STOCK, ChartResolution.DAY, from, to))
+                .isInstanceOf(ResourceNotFoundException.class);
+
+        verifyNoInteractions(polygonService);
+        assertThat(storedFiles()).isZero();
+    }
+
+    @Test
+    void symbolListedAsAnotherTypeIsRefused() {
+        assertThatThrownBy(() -> candleHistory.candles("AAPL", AssetType.CRYPTO, ChartResolution.DAY, from, to))
+                .isInstanceOf(ResourceNotFoundException.class);
+
+        verifyNoInteractions(coinbaseService);
+    }
+
+    @Test
+    void emptyUpstreamResultIsNotWrittenToDisk() throws IOException {
+        when(polygonService.getCandlesReactive(eq("AAPL"), anyInt(), anyLong(), anyLong()))
+                .thenReturn(Mono.just(new Candles(0)));
+
+        assertThat(candleHistory.candles("AAPL", AssetType.STOCK, ChartResolution.DAY, from, to).isEmpty()).isTrue();
+        assertThat(candleHistory.candles("AAPL", AssetType.STOCK, ChartResolution.DAY, from, to).isEmpty()).isTrue();
+
+        assertThat(storedFiles()).isZero();
+        verify(polygonService, times(1)).getCandlesReactive(eq("AAPL"), anyInt(), anyLong(), anyLong());
+    }
+
+    @Test
+    void fetchedBarsAreWrittenToDisk() throws IOException {
+        Candles bars = new Candles();
+        bars.add(from + DAY, 189.0, 191.0, 188.5, 190.0, 1000);
+        when(polygonService.getCandlesReactive(eq("AAPL"), anyInt(), anyLong(), anyLong()))
+                .thenReturn(Mono.just(bars));
+
+        Candles candles = candleHistory.candles("AAPL", AssetType.STOCK, ChartResolution.DAY, from, to);
+
+        assertThat(candles.size()).isEqualTo(1);
+        assertThat(storedFiles()).isEqualTo(1);
+    }
+
+    private long storedFiles() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+}
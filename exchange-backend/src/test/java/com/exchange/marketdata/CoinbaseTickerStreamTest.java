@@ -0,0 +1,179 @@
+package com.exchange.marketdata;
+
+import com.exchange.entity.Asset;
+import com.exchange.enums.AssetType;
+import com.exchange.event.PriceTickPublisher;
+import com.exchange.repository.AssetRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Sinks;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/** Runs the stream against a local WebSocket server that plays Coinbase's part. */
+class CoinbaseTickerStreamTest {
+
+    private static final long GAP_TOLERANCE_MS = 200;
+
+    private final List<StubSession> sessions = new CopyOnWriteArrayList<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private DisposableServer server;
+    private CoinbaseTickerStream stream;
+
+    @BeforeEach
+    void setUp() {
+        server = HttpServer.create()
+                .port(0)
+                .route(routes -> routes.ws("/", (inbound, outbound) -> {
+                    StubSession session = new StubSession();
+                    sessions.add(session);
+                    inbound.receive().asString().subscribe(session.received::add);
+                    return outbound.sendString(session.outbound.asFlux());
+                }))
+                .bindNow();
+
+        AssetRepository assetRepository = mock(AssetRepository.class);
+        when(assetRepository.findByTypeAndActiveTrue(AssetType.CRYPTO))
+                .thenReturn(List.of(Asset.builder().symbol("BTC").type(AssetType.CRYPTO).build()));
+        stream = new CoinbaseTickerStream(assetRepository, mock(PriceTickPublisher.class), new ObjectMapper(),
+                meterRegistry, true, "ws://localhost:" + server.port() + "/",
+                30_000, 5_000, 100, GAP_TOLERANCE_MS);
+        stream.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        stream.stop();
+        server.disposeNow();
+    }
+
+    @Test
+    void subscribesToActiveProductsOnConnect() {
+        StubSession session = awaitSession(0);
+
+        await().until(() -> !session.received.isEmpty());
+        assertThat(session.received.peek())
+                .contains("\"type\":\"subscribe\"")
+                .contains("BTC-USD")
+                .contains("ticker")
+                .contains("heartbeat");
+    }
+
+    @Test
+    void dropsTickersOlderThanTheLastApplied() {
+        StubSession session = awaitSession(0);
+
+        session.send(ticker(10, 100, "50000.00"));
+        awaitPrice("50000.00");
+        session.send(ticker(9, 99, "49000.00"));
+        session.send(ticker(11, 101, "50100.00"));
+
+        awaitPrice("50100.00");
+        assertThat(meterRegistry.counter("coinbase.stream.out_of_order").count()).isEqualTo(1);
+    }
+
+    @Test
+    void heartbeatAheadOfLastTickerMarksGapUntilNextTicker() throws InterruptedException {
+        StubSession session = awaitSession(0);
+        session.send(ticker(10, 100, "50000.00"));
+        awaitPrice("50000.00");
+
+        // Trades happened that no ticker reported
+        session.send(heartbeat(105));
+        Thread.sleep(GAP_TOLERANCE_MS + 100);
+        session.send(heartbeat(106));
+        await().until(() -> stream.latest("BTC").isEmpty());
+        assertThat(meterRegistry.counter("coinbase.stream.gaps").count()).isEqualTo(1);
+
+        session.send(ticker(20, 106, "50200.00"));
+        awaitPrice("50200.00");
+    }
+
+    @Test
+    void heartbeatCaughtUpWithinToleranceIsNoGap() throws InterruptedException {
+        StubSession session = awaitSession(0);
+        session.send(ticker(10, 100, "50000.00"));
+        awaitPrice("50000.00");
+
+        session.send(heartbeat(101));
+        session.send(ticker(11, 101, "50010.00"));
+        session.send(heartbeat(101));
+        Thread.sleep(GAP_TOLERANCE_MS + 100);
+        session.send(heartbeat(101));
+
+        awaitPrice("50010.00");
+        assertThat(meterRegistry.counter("coinbase.stream.gaps").count()).isZero();
+    }
+
+    @Test
+    void reconnectsAndResubscribesAfterServerCloses() {
+        StubSession first = awaitSession(0);
+        first.send(ticker(10, 100, "50000.00"));
+        awaitPrice("50000.00");
+
+        first.close();
+        StubSession second = awaitSession(1);
+        await().until(() -> !second.received.isEmpty());
+        assertThat(second.received.peek()).contains("BTC-USD");
+        assertThat(meterRegistry.counter("coinbase.stream.reconnects").count()).isGreaterThanOrEqualTo(1);
+
+        // Coinbase opens every subscription with the product's current ticker
+        second.send(ticker(30, 130, "51000.00"));
+        awaitPrice("51000.00");
+    }
+
+    private StubSession awaitSession(int index) {
+        await().atMost(Duration.ofSeconds(10)).until(() -> sessions.size() > index);
+        return sessions.get(index);
+    }
+
+    private void awaitPrice(String price) {
+        await().atMost(Duration.ofSeconds(5)).until(() -> stream.latest("BTC")
+                .map(LiveQuote::price)
+                .filter(current -> current.compareTo(new BigDecimal(price)) == 0)
+                .isPresent());
+    }
+
+    private static String ticker(long sequence, long tradeId, String price) {
+        return """
+                {"type":"ticker","product_id":"BTC-USD","sequence":%d,"trade_id":%d,"price":"%s",\
+                "open_24h":"49500.00","high_24h":"51500.00","low_24h":"49000.00","volume_24h":"1234.5"}"""
+                .formatted(sequence, tradeId, price);
+    }
+
+    private static String heartbeat(long lastTradeId) {
+        return """
+                {"type":"heartbeat","product_id":"BTC-USD","last_trade_id":%d}""".formatted(lastTradeId);
+    }
+
+    private static final class StubSession {
+
+        final Queue<String> received = new ConcurrentLinkedQueue<>();
+        final Sinks.Many<String> outbound = Sinks.many().unicast().onBackpressureBuffer();
+
+        void send(String message) {
+            outbound.emitNext(message, Sinks.EmitFailureHandler.busyLooping(Duration.ofSeconds(1)));
+        }
+
+        /** Ends the server's side of the connection. */
+        void close() {
+            outbound.tryEmitComplete();
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.exchange.marketdata;
+
+import com.exchange.dto.response.PriceResponse;
+import com.exchange.service.impl.FinnhubServiceImpl;
+import com.exchange.service.impl.PolygonServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/** Runs the router against local servers standing in for Polygon and Finnhub. */
+class StockQuoteRouterTest {
+
+    private static final long OPEN_MS = 300;
+    private static final long ATTEMPT_TIMEOUT_MS = 1000;
+
+    private final StubProvider polygon = new StubProvider("""
+            {"status":"OK","results":[{"o":189.0,"h":191.0,"l":188.5,"c":190.0,"v":1000,"t":1700000000000}]}""");
+    private final StubProvider finnhub = new StubProvider("""
+            {"c":191.5,"o":190.0,"h":192.0,"l":189.5,"pc":190.25}""");
+    private UpstreamGovernor governor;
+    private StockQuoteRouter router;
+
+    @BeforeEach
+    void setUp() {
+        // No rate settings: the governor lets every call straight through
+        route(new MockEnvironment());
+        // The first request through WebClient loads enough classes to overrun the attempt timeout
+        for (StubProvider provider : List.of(polygon, finnhub)) {
+            WebClient.create("http://localhost:" + provider.server.port()).get()
+                    .retrieve().toBodilessEntity().block(Duration.ofSeconds(10));
+            provider.calls.set(0);
+        }
+    }
+
+    private void route(MockEnvironment environment) {
+        if (governor != null) {
+            governor.shutdown();
+        }
+        governor = new UpstreamGovernor(environment, new SimpleMeterRegistry());
+        PolygonServiceImpl polygonService = new PolygonServiceImpl(
+                WebClient.create("http://localhost:" + polygon.server.port()), governor, "test");
+        FinnhubServiceImpl finnhubService = new FinnhubServiceImpl(
+                WebClient.create("http://localhost:" + finnhub.server.port()), governor);
+        ReflectionTestUtils.setField(finnhubService, "apiKey", "test");
+        router = new StockQuoteRouter(polygonService, finnhubService, governor, new SimpleMeterRegistry(),
+                List.of("polygon", "finnhub"), 2, OPEN_MS, ATTEMPT_TIMEOUT_MS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        polygon.server.disposeNow();
+        finnhub.server.disposeNow();
+        governor.shutdown();
+    }
+
+    @Test
+    void primaryAnsweringWithinAttemptTimeoutKeepsServing() {
+        polygon.delay = Duration.ofMillis(150);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(quote()).isEqualByComparingTo("190.0");
+        }
+        assertThat(polygon.calls).hasValue(5);
+        assertThat(finnhub.calls).hasValue(0);
+    }
+
+    @Test
+    void primaryPastAttemptTimeoutFailsOverAndCountsAsFailure() {
+        polygon.delay = Duration.ofSeconds(4);
+        long started = System.nanoTime();
+
+        assertThat(quote()).isEqualByComparingTo("190.25");
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofSeconds(3));
+        assertThat(quote()).isEqualByComparingTo("190.25");
+
+        // Two timeouts opened the circuit
+        assertThat(quote()).isEqualByComparingTo("190.25");
+        assertThat(polygon.calls).hasValue(2);
+    }
+
+    @Test
+    void primaryWithoutQuotaIsPassedOver() {
+        // One call a minute: after the first, Polygon has no quota within the attempt timeout
+        route(new MockEnvironment()
+                .withProperty("app.polygon.rate.calls-per-minute", "1")
+                .withProperty("app.polygon.rate.burst", "1"));
+
+        assertThat(quote()).isEqualByComparingTo("190.0");
+        assertThat(quote()).isEqualByComparingTo("190.25");
+        assertThat(quote()).isEqualByComparingTo("190.25");
+
+        assertThat(polygon.calls).hasValue(1);
+        assertThat(finnhub.calls).hasValue(2);
+    }
+
+    @Test
+    void everySourceServesThePreviousClose() {
+        PriceResponse primary = router.quote("AAPL").block(Duration.ofSeconds(5));
+        polygon.status = HttpResponseStatus.INTERNAL_SERVER_ERROR;
+        PriceResponse failover = router.quote("AAPL").block(Duration.ofSeconds(5));
+
+        // Polygon's previous-day bar closed at 190.0, and Finnhub's pc is that same kind of price, not its live c
+        assertThat(primary.getPrice()).isEqualByComparingTo("190.0");
+        assertThat(failover.getPrice()).isEqualByComparingTo("190.25");
+        assertThat(failover.getPreviousClose()).isEqualByComparingTo("190.25");
+    }
+
+    @Test
+    void failsOverWhenPrimaryErrors() {
+        polygon.status = HttpResponseStatus.INTERNAL_SERVER_ERROR;
+
+        assertThat(quote()).isEqualByComparingTo("190.25");
+
+        polygon.status = HttpResponseStatus.OK;
+        assertThat(quote()).isEqualByComparingTo("190.0");
+        assertThat(polygon.calls).hasValue(2);
+        assertThat(finnhub.calls).hasValue(1);
+    }
+
+    @Test
+    void rateLimitedPrimaryFailsOverAtOnceWithoutOpeningItsCircuit() {
+        polygon.status = HttpResponseStatus.TOO_MANY_REQUESTS;
+        long started = System.nanoTime();
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(quote()).isEqualByComparingTo("190.25");
+        }
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofSeconds(2));
+        assertThat(polygon.calls).hasValue(3);
+
+        polygon.status = HttpResponseStatus.OK;
+        assertThat(quote()).isEqualByComparingTo("190.0");
+    }
+
+    @Test
+    void openCircuitSkipsPrimaryUntilProbeSucceeds() throws InterruptedException {
+        polygon.status = HttpResponseStatus.INTERNAL_SERVER_ERROR;
+        quote();
+        quote();
+
+        polygon.status = HttpResponseStatus.OK;
+        assertThat(quote()).isEqualByComparingTo("190.25");
+        assertThat(polygon.calls).hasValue(2);
+
+        Thread.sleep(OPEN_MS + 100);
+        assertThat(quote()).isEqualByComparingTo("190.0");
+        assertThat(quote()).isEqualByComparingTo("190.0");
+        assertThat(polygon.calls).hasValue(4);
+        assertThat(finnhub.calls).hasValue(3);
+    }
+
+    @Test
+    void failsWithLastErrorWhenEveryProviderErrors() {
+        polygon.status = HttpResponseStatus.INTERNAL_SERVER_ERROR;
+        finnhub.status = HttpResponseStatus.BAD_GATEWAY;
+
+        assertThatThrownBy(this::quote).hasMessageContaining("502");
+    }
+
+    private BigDecimal quote() {
+        PriceResponse quote = router.quote("AAPL").block(Duration.ofSeconds(5));
+        return quote.getPrice();
+    }
+
+    private static final class StubProvider {
+
+        final AtomicInteger calls = new AtomicInteger();
+        final DisposableServer server;
+        volatile HttpResponseStatus status = HttpResponseStatus.OK;
+        volatile Duration delay = Duration.ZERO;
+
+        StubProvider(String body) {
+            server = HttpServer.create()
+                    .port(0)
+                    .handle((request, response) -> {
+                        calls.incrementAndGet();
+                        HttpResponseStatus current = status;
+                        return Mono.delay(delay).then(response.status(current)
+                                .header("Content-Type", "application/json")
+                                .sendString(Mono.just(current == HttpResponseStatus.OK ? body : "{}"))
+                                .then());
+                    })
+                    .bindNow();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.exchange.marketdata;
+
+import com.exchange.enums.CallPriority;
+import com.exchange.enums.UpstreamProvider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UpstreamGovernorTest {
+
+    private UpstreamGovernor governor;
+
+    @BeforeEach
+    void setUp() {
+        // One call a minute: once the burst is spent, nothing frees up within the test
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("app.polygon.rate.calls-per-minute", "1")
+                .withProperty("app.polygon.rate.burst", "1")
+                .withProperty("app.polygon.rate.max-wait-ms", "10000")
+                .withProperty("app.polygon.rate.order-max-wait-ms", "200");
+        governor = new UpstreamGovernor(environment, new SimpleMeterRegistry());
+        governor.acquire(UpstreamProvider.POLYGON, CallPriority.INTERACTIVE).block();
+    }
+
+    @AfterEach
+    void tearDown() {
+        governor.shutdown();
+    }
+
+    @Test
+    void orderGivesUpAfterItsOwnWaitBound() {
+        long started = System.nanoTime();
+
+        assertThatThrownBy(() -> governor.acquire(UpstreamProvider.POLYGON, CallPriority.ORDER).block())
+                .isInstanceOf(UpstreamThrottledException.class);
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofSeconds(2));
+    }
+
+    @Test
+    void otherPrioritiesKeepTheGeneralWaitBound() {
+        // Still queued, not refused, well past the order bound
+        assertThatThrownBy(() -> governor.acquire(UpstreamProvider.POLYGON, CallPriority.INTERACTIVE)
+                .block(Duration.ofMillis(500)))
+                .isNotInstanceOf(UpstreamThrottledException.class)
+                .hasMessageContaining("Timeout");
+    }
+}
@@ -0,0 +1,92 @@
+package com.exchange.matching;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link FixedPoint} products against the {@link BigDecimal} formulas they replaced, over
+ * {@value #INPUTS} random quantities and prices per invocation. Run with
+ * <pre>
+ * mvn -q test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+ *     -Dexec.args="-cp %classpath org.openjdk.jmh.Main FixedPointBenchmark -prof gc"
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FixedPointBenchmark {
+
+    static final int INPUTS = 1024;
+
+    BigDecimal[] quantities = new BigDecimal[INPUTS];
+    BigDecimal[] prices = new BigDecimal[INPUTS];
+    BigDecimal[] quotes = new BigDecimal[INPUTS];
+    long[] quantityUnits = new long[INPUTS];
+    long[] priceTicks = new long[INPUTS];
+    long[] quoteUnits = new long[INPUTS];
+
+    @Setup
+    public void randomInputs() {
+        Random random = new Random(42);
+        for (int i = 0; i < INPUTS; i++) {
+            quantities[i] = BigDecimal.valueOf(1 + random.nextLong(100_000_000_000_000L), FixedPoint.QUANTITY_SCALE);
+            prices[i] = BigDecimal.valueOf(1 + random.nextLong(1_000_000_000L), FixedPoint.PRICE_SCALE);
+            quotes[i] = BigDecimal.valueOf(1 + random.nextLong(10_000_000_000_000L), FixedPoint.QUANTITY_SCALE);
+            quantityUnits[i] = FixedPoint.toUnits(quantities[i]);
+            priceTicks[i] = FixedPoint.toTicks(prices[i]);
+            quoteUnits[i] = FixedPoint.toQuoteUnits(quotes[i]);
+        }
+    }
+
+    @Benchmark
+    public long notionalFixedPoint() {
+        long total = 0;
+        for (int i = 0; i < INPUTS; i++) {
+            total += FixedPoint.notional(quantityUnits[i], priceTicks[i]);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public BigDecimal notionalBigDecimal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < INPUTS; i++) {
+            total = total.add(quantities[i].multiply(prices[i]).setScale(FixedPoint.PRICE_SCALE, RoundingMode.HALF_UP));
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long marketValueFixedPoint() {
+        long total = 0;
+        for (int i = 0; i < INPUTS; i++) {
+            total += FixedPoint.marketValue(quantityUnits[i], quoteUnits[i]);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public BigDecimal marketValueBigDecimal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < INPUTS; i++) {
+            total = total.add(quantities[i].multiply(quotes[i]).setScale(FixedPoint.PRICE_SCALE, RoundingMode.HALF_UP));
+        }
+        return total;
+    }
+}
@@ -0,0 +1,110 @@
+package com.exchange.matching;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/** Checks the fixed-point arithmetic against the {@link BigDecimal} formulas it replaced. */
+class FixedPointTest {
+
+    private static final int SAMPLES = 200_000;
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    private final Random random = new Random(20_240_601);
+
+    @Test
+    void notionalMatchesBigDecimal() {
+        for (int i = 0; i < SAMPLES; i++) {
+            BigDecimal quantity = quantity();
+            BigDecimal price = decimal(100_000, FixedPoint.PRICE_SCALE);
+
+            BigDecimal expected = quantity.multiply(price).setScale(FixedPoint.PRICE_SCALE, RoundingMode.HALF_UP);
+            long ticks = FixedPoint.notional(FixedPoint.toUnits(quantity), FixedPoint.toTicks(price));
+
+            assertThat(FixedPoint.fromTicks(ticks)).as("%s * %s", quantity, price).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void marketValueMatchesBigDecimal() {
+        for (int i = 0; i < SAMPLES; i++) {
+            BigDecimal quantity = quantity();
+            // Every other quote is below a cent, like the smallest coins
+            BigDecimal quote = i % 2 == 0
+                    ? decimal(100_000, FixedPoint.QUANTITY_SCALE)
+                    : decimal(0, FixedPoint.QUANTITY_SCALE);
+
+            BigDecimal expected = quantity.multiply(quote).setScale(FixedPoint.PRICE_SCALE, RoundingMode.HALF_UP);
+            long ticks = FixedPoint.marketValue(FixedPoint.toUnits(quantity), FixedPoint.toQuoteUnits(quote));
+
+            assertThat(FixedPoint.fromTicks(ticks)).as("%s * %s", quantity, quote).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void percentTicksMatchesBigDecimal() {
+        for (int i = 0; i < SAMPLES; i++) {
+            long costTicks = 1 + random.nextLong(10_000_000_000L);
+            long gainTicks = random.nextLong(-costTicks, 3 * costTicks);
+
+            BigDecimal expected = FixedPoint.fromTicks(gainTicks)
+                    .divide(FixedPoint.fromTicks(costTicks), FixedPoint.PRICE_SCALE, RoundingMode.HALF_UP)
+                    .multiply(HUNDRED);
+
+            assertThat(FixedPoint.fromTicks(FixedPoint.percentTicks(gainTicks, costTicks)))
+                    .as("%d / %d", gainTicks, costTicks)
+                    .isEqualByComparingTo(expected);
+        }
+    }
+
+    @Test
+    void roundedTicksCompareLikeTheUnroundedPrice() {
+        for (int i = 0; i < SAMPLES; i++) {
+            BigDecimal price = decimal(1_000, FixedPoint.QUANTITY_SCALE);
+            // Levels near the price, so both sides of it are hit
+            long level = FixedPoint.toTicks(price) + random.nextInt(-2, 3);
+            BigDecimal levelPrice = FixedPoint.fromTicks(level);
+
+            assertThat(FixedPoint.toTicksFloor(price) >= level).as("%s >= %s", price, levelPrice)
+                    .isEqualTo(price.compareTo(levelPrice) >= 0);
+            assertThat(FixedPoint.toTicksCeiling(price) <= level).as("%s <= %s", price, levelPrice)
+                    .isEqualTo(price.compareTo(levelPrice) <= 0);
+        }
+    }
+
+    @Test
+    void divideHalfUpRoundsHalfAwayFromZero() {
+        assertThat(FixedPoint.divideHalfUp(5, 10)).isEqualTo(1);
+        assertThat(FixedPoint.divideHalfUp(-5, 10)).isEqualTo(-1);
+        assertThat(FixedPoint.divideHalfUp(4, 10)).isZero();
+        assertThat(FixedPoint.divideHalfUp(-4, 10)).isZero();
+        assertThat(FixedPoint.divideHalfUp(15, -10)).isEqualTo(-2);
+    }
+
+    @Test
+    void overflowThrowsInsteadOfWrapping() {
+        long quantityUnits = FixedPoint.toUnits(new BigDecimal("1000000000"));
+        long quoteUnits = FixedPoint.toQuoteUnits(new BigDecimal("1000000000"));
+
+        assertThatThrownBy(() -> FixedPoint.marketValue(quantityUnits, quoteUnits))
+                .isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> FixedPoint.notional(quantityUnits, FixedPoint.toTicks(new BigDecimal("1000000000"))))
+                .isInstanceOf(ArithmeticException.class);
+    }
+
+    /** Up to a million, with the full 8 decimals of the quantity column. */
+    private BigDecimal quantity() {
+        return decimal(1_000_000, FixedPoint.QUANTITY_SCALE);
+    }
+
+    /** A random value in {@code [0, whole + 1)} with {@code scale} decimals, never zero. */
+    private BigDecimal decimal(long whole, int scale) {
+        long unscaled = 1 + random.nextLong((whole + 1) * BigDecimal.TEN.pow(scale).longValueExact() - 1);
+        return BigDecimal.valueOf(unscaled, scale);
+    }
+}
@@ -0,0 +1,110 @@
+package com.exchange.matching;
+
+import com.exchange.enums.AssetType;
+import com.exchange.enums.OrderType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of {@link SymbolOrderBook#submit} on a book {@code levels} deep on each side, with
+ * {@value #ORDERS_PER_LEVEL} resting orders per level. Run with
+ * <pre>
+ * mvn -q test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+ *     -Dexec.args="-cp %classpath org.openjdk.jmh.Main SymbolOrderBookBenchmark -prof gc"
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SymbolOrderBookBenchmark {
+
+    static final int ORDERS_PER_LEVEL = 10;
+    static final BigDecimal MID = new BigDecimal("100.0000");
+    static final BigDecimal TICK = new BigDecimal("0.0100");
+    static final BigDecimal ONE = BigDecimal.ONE;
+
+    @Param({"10", "100"})
+    int levels;
+
+    SymbolOrderBook book;
+    long nextOrderId;
+    BigDecimal belowBids;
+
+    @Setup(Level.Iteration)
+    public void fillBook() {
+        book = new SymbolOrderBook(AssetType.CRYPTO);
+        nextOrderId = fill(book, levels, 1);
+        belowBids = MID.subtract(TICK.multiply(BigDecimal.valueOf(levels + 1L)));
+    }
+
+    /** A passive order resting behind every bid and cancelled again: the book's bookkeeping alone. */
+    @Benchmark
+    public MatchResult restAndCancel() {
+        long orderId = nextOrderId++;
+        MatchResult result = book.submit(orderId, orderId, OrderType.BUY, belowBids, ONE);
+        book.cancel(orderId);
+        return result;
+    }
+
+    /** A sell resting inside the spread, then a buy taking it: one trade at the touch. */
+    @Benchmark
+    public MatchResult crossAtTouch() {
+        long sellId = nextOrderId++;
+        book.submit(sellId, sellId, OrderType.SELL, MID, ONE);
+        long buyId = nextOrderId++;
+        return book.submit(buyId, buyId, OrderType.BUY, MID, ONE);
+    }
+
+    /** A buy walking the ten best ask levels, one trade per resting order. */
+    @Benchmark
+    public MatchResult sweepTenLevels(SweepState state) {
+        return state.book.submit(state.orderId, state.orderId, OrderType.BUY, state.limit, state.quantity);
+    }
+
+    @State(Scope.Thread)
+    public static class SweepState {
+
+        SymbolOrderBook book;
+        long orderId;
+        BigDecimal limit = MID.add(TICK.multiply(BigDecimal.TEN));
+        BigDecimal quantity = BigDecimal.valueOf(10L * ORDERS_PER_LEVEL);
+
+        /** The sweep empties levels, so the book is rebuilt (outside the measurement) for each call. */
+        @Setup(Level.Invocation)
+        public void fillBook(SymbolOrderBookBenchmark benchmark) {
+            book = new SymbolOrderBook(AssetType.CRYPTO);
+            orderId = fill(book, benchmark.levels, 1);
+        }
+    }
+
+    /** Rests {@code levels} bid and ask levels around {@link #MID}, each order its own owner; returns the next free id. */
+    static long fill(SymbolOrderBook book, int levels, long firstOrderId) {
+        long orderId = firstOrderId;
+        for (int level = 1; level <= levels; level++) {
+            BigDecimal offset = TICK.multiply(BigDecimal.valueOf(level));
+            for (int i = 0; i < ORDERS_PER_LEVEL; i++) {
+                book.submit(orderId, orderId, OrderType.BUY, MID.subtract(offset), ONE);
+                orderId++;
+                book.submit(orderId, orderId, OrderType.SELL, MID.add(offset), ONE);
+                orderId++;
+            }
+        }
+        return orderId;
+    }
+}
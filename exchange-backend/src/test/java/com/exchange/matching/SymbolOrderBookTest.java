@@ -0,0 +1,84 @@
+package com.exchange.matching;
+
+import com.exchange.enums.AssetType;
+import com.exchange.enums.OrderType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SymbolOrderBookTest {
+
+    private static final long ALICE = 1;
+    private static final long BOB = 2;
+
+    private final SymbolOrderBook book = new SymbolOrderBook(AssetType.STOCK);
+
+    @Test
+    void incomingOrderTradesAtRestingPriceAndRestsRemainder() {
+        book.submit(1, ALICE, OrderType.SELL, price("100"), quantity("2"));
+
+        MatchResult result = book.submit(2, BOB, OrderType.BUY, price("101"), quantity("3"));
+
+        assertThat(result.trades()).containsExactly(new Trade(2, 1, FixedPoint.toTicks(price("100")),
+                FixedPoint.toUnits(quantity("2"))));
+        assertThat(result.selfTradePrevented()).isFalse();
+        assertThat(book.size()).isEqualTo(1);
+    }
+
+    @Test
+    void orderStopsAtOwnRestingOrderAndDoesNotRest() {
+        book.submit(1, BOB, OrderType.SELL, price("100"), quantity("1"));
+        book.submit(2, ALICE, OrderType.SELL, price("100"), quantity("1"));
+        book.submit(3, BOB, OrderType.SELL, price("100"), quantity("1"));
+
+        MatchResult result = book.submit(4, ALICE, OrderType.BUY, price("100"), quantity("3"));
+
+        assertThat(result.trades()).extracting(Trade::sellOrderId).containsExactly(1L);
+        assertThat(result.selfTradePrevented()).isTrue();
+        // Alice's resting sell keeps its place ahead of Bob's second one
+        assertThat(book.size()).isEqualTo(2);
+        assertThat(book.submit(5, BOB, OrderType.BUY, price("100"), quantity("1")).trades())
+                .extracting(Trade::sellOrderId).containsExactly(2L);
+    }
+
+    @Test
+    void nonCrossingOrderOfSameOwnerRests() {
+        book.submit(1, ALICE, OrderType.SELL, price("101"), quantity("1"));
+
+        MatchResult result = book.submit(2, ALICE, OrderType.BUY, price("100"), quantity("1"));
+
+        assertThat(result.selfTradePrevented()).isFalse();
+        assertThat(book.size()).isEqualTo(2);
+    }
+
+    @Test
+    void fillOrKillDoesNotCountOwnOrdersAsLiquidity() {
+        book.submit(1, ALICE, OrderType.SELL, price("100"), quantity("1"));
+        book.submit(2, BOB, OrderType.SELL, price("100"), quantity("1"));
+
+        MatchResult result = book.submit(3, ALICE, OrderType.BUY, price("100"), quantity("1"), false, true);
+
+        assertThat(result.trades()).isEmpty();
+        assertThat(book.size()).isEqualTo(2);
+    }
+
+    @Test
+    void ordersWithUnknownOwnersStillTrade() {
+        book.submit(1, JournaledOrder.UNKNOWN_OWNER, OrderType.SELL, price("100"), quantity("1"));
+
+        List<Trade> trades = book.submit(2, JournaledOrder.UNKNOWN_OWNER, OrderType.BUY, price("100"), quantity("1")).trades();
+
+        assertThat(trades).hasSize(1);
+    }
+
+    private static BigDecimal price(String value) {
+        return new BigDecimal(value);
+    }
+
+    private static BigDecimal quantity(String value) {
+        return new BigDecimal(value);
+    }
+}
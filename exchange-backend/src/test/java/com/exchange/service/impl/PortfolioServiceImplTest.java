@@ -0,0 +1,91 @@
+package com.exchange.service.impl;
+
+import com.exchange.dto.response.HoldingResponse;
+import com.exchange.dto.response.PortfolioResponse;
+import com.exchange.dto.response.PriceResponse;
+import com.exchange.entity.Asset;
+import com.exchange.entity.Holding;
+import com.exchange.entity.Portfolio;
+import com.exchange.enums.AssetType;
+import com.exchange.repository.HoldingRepository;
+import com.exchange.repository.LimitOrderRepository;
+import com.exchange.repository.OrderRepository;
+import com.exchange.repository.PortfolioRepository;
+import com.exchange.repository.StopOrderRepository;
+import com.exchange.repository.UserRepository;
+import com.exchange.service.AccountLockService;
+import com.exchange.service.PriceService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PortfolioServiceImplTest {
+
+    private static final long USER_ID = 7;
+    private static final long PORTFOLIO_ID = 3;
+
+    private final PortfolioRepository portfolioRepository = mock(PortfolioRepository.class);
+    private final HoldingRepository holdingRepository = mock(HoldingRepository.class);
+    private final PriceService priceService = mock(PriceService.class);
+    private PortfolioServiceImpl portfolioService;
+
+    @BeforeEach
+    void setUp() {
+        portfolioService = new PortfolioServiceImpl(portfolioRepository, mock(UserRepository.class),
+                mock(AccountLockService.class), holdingRepository, priceService, mock(OrderRepository.class),
+                mock(LimitOrderRepository.class), mock(StopOrderRepository.class));
+        when(portfolioRepository.findByIdAndUserId(PORTFOLIO_ID, USER_ID))
+                .thenReturn(Optional.of(Portfolio.builder().id(PORTFOLIO_ID).name("Main").build()));
+    }
+
+    @Test
+    void valuesHoldingsAtCurrentPrice() {
+        holdings(holding(1, "AAPL", "10", "150.00", "190.50"));
+
+        PortfolioResponse portfolio = portfolioService.getPortfolioById(USER_ID, PORTFOLIO_ID);
+
+        HoldingResponse aapl = portfolio.getHoldings().get(0);
+        assertThat(aapl.getCurrentValue()).isEqualByComparingTo("1905.00");
+        assertThat(aapl.getProfitLoss()).isEqualByComparingTo("405.00");
+        assertThat(aapl.getProfitLossPercent()).isEqualByComparingTo("27.00");
+        assertThat(portfolio.getTotalValue()).isEqualByComparingTo("1905.00");
+    }
+
+    @Test
+    void holdingTooLargeForFixedPointIsValuedAtCostWithoutFailingThePortfolio() {
+        holdings(holding(1, "AAPL", "10", "150.00", "190.50"),
+                holding(2, "WHALE", "1000000000", "1000000000", "1000000001"));
+
+        PortfolioResponse portfolio = portfolioService.getPortfolioById(USER_ID, PORTFOLIO_ID);
+
+        HoldingResponse whale = portfolio.getHoldings().get(1);
+        assertThat(whale.getCurrentValue()).isEqualByComparingTo("1000000000000000000");
+        assertThat(whale.getProfitLoss()).isNull();
+        assertThat(portfolio.getHoldings().get(0).getProfitLoss()).isEqualByComparingTo("405.00");
+        assertThat(portfolio.getTotalValue()).isEqualByComparingTo("1000000000000001905.00");
+    }
+
+    private void holdings(Holding... holdings) {
+        when(holdingRepository.findByPortfolioIdWithAsset(PORTFOLIO_ID)).thenReturn(List.of(holdings));
+    }
+
+    private Holding holding(long assetId, String symbol, String quantity, String averageBuyPrice, String price) {
+        Asset asset = Asset.builder().id(assetId).symbol(symbol).type(AssetType.STOCK).build();
+        when(priceService.getPriceReactive(symbol, AssetType.STOCK))
+                .thenReturn(Mono.just(PriceResponse.builder().symbol(symbol).price(new BigDecimal(price)).build()));
+        return Holding.builder()
+                .id(assetId)
+                .asset(asset)
+                .quantity(new BigDecimal(quantity))
+                .averageBuyPrice(new BigDecimal(averageBuyPrice))
+                .build();
+    }
+}
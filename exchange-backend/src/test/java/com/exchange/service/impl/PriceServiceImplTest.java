@@ -0,0 +1,99 @@
+package com.exchange.service.impl;
+
+import com.exchange.cache.QuoteCache;
+import com.exchange.cache.RefreshBudget;
+import com.exchange.dto.response.PriceResponse;
+import com.exchange.enums.AssetType;
+import com.exchange.event.PriceTickPublisher;
+import com.exchange.marketdata.CandleHistory;
+import com.exchange.marketdata.CoinbaseTickerStream;
+import com.exchange.marketdata.StockQuoteRouter;
+import com.exchange.service.CoinbaseService;
+import com.exchange.service.PolygonService;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PriceServiceImplTest {
+
+    private static final Duration CACHE_TTL = Duration.ofSeconds(600);
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final StockQuoteRouter stockQuoteRouter = mock(StockQuoteRouter.class);
+    private final CaffeineCacheManager cacheManager = new CaffeineCacheManager(QuoteCache.CACHE_NAME);
+    private PriceServiceImpl priceService;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager.setCaffeine(Caffeine.newBuilder().expireAfterWrite(CACHE_TTL).ticker(nanos::get));
+        // No refresh budget: stale hits are served without a background reload
+        QuoteCache quoteCache = new QuoteCache(cacheManager, new SimpleMeterRegistry(), new RefreshBudget(0, 0), 60, 15, 1);
+        priceService = new PriceServiceImpl(mock(PolygonService.class), mock(CoinbaseService.class),
+                mock(PriceTickPublisher.class), quoteCache, mock(CoinbaseTickerStream.class), stockQuoteRouter,
+                mock(CandleHistory.class));
+        when(stockQuoteRouter.quote("AAPL")).thenReturn(Mono.fromSupplier(() -> quote("AAPL", "190.50")));
+    }
+
+    @Test
+    void repeatedLookupsReachUpstreamOncePerTtl() {
+        for (int i = 0; i < 50; i++) {
+            assertThat(priceService.getCurrentPrice("AAPL", AssetType.STOCK)).isEqualByComparingTo("190.50");
+        }
+        verify(stockQuoteRouter, times(1)).quote("AAPL");
+
+        nanos.addAndGet(CACHE_TTL.minusSeconds(1).toNanos());
+        priceService.getCurrentPrice("AAPL", AssetType.STOCK);
+        verify(stockQuoteRouter, times(1)).quote("AAPL");
+
+        nanos.addAndGet(Duration.ofSeconds(2).toNanos());
+        for (int i = 0; i < 50; i++) {
+            priceService.getCurrentPrice("AAPL", AssetType.STOCK);
+        }
+        verify(stockQuoteRouter, times(2)).quote("AAPL");
+    }
+
+    @Test
+    void executionPriceReloadsQuotePastFreshWindow() {
+        cacheStaleQuote("AAPL", "180.00");
+
+        assertThat(priceService.getCurrentPrice("AAPL", AssetType.STOCK)).isEqualByComparingTo("180.00");
+        assertThat(priceService.getExecutionPrice("AAPL", AssetType.STOCK)).isEqualByComparingTo("190.50");
+        verify(stockQuoteRouter, times(1)).quote("AAPL");
+    }
+
+    @Test
+    void executionPriceFailsRatherThanUseStaleQuote() {
+        cacheStaleQuote("AAPL", "180.00");
+        when(stockQuoteRouter.quote("AAPL")).thenReturn(Mono.error(new IllegalStateException("providers down")));
+
+        assertThatThrownBy(() -> priceService.getExecutionPrice("AAPL", AssetType.STOCK))
+                .hasMessageContaining("providers down");
+        assertThat(priceService.getCurrentPrice("AAPL", AssetType.STOCK)).isEqualByComparingTo("180.00");
+    }
+
+    /** Cached directly: going through the cache would stamp the quote as fetched now. */
+    private void cacheStaleQuote(String symbol, String price) {
+        PriceResponse stale = quote(symbol, price);
+        stale.setFetchedAt(Instant.now().minus(Duration.ofMinutes(5)));
+        cacheManager.getCache(QuoteCache.CACHE_NAME).put(AssetType.STOCK + ":" + symbol, stale);
+    }
+
+    private static PriceResponse quote(String symbol, String price) {
+        return PriceResponse.builder().symbol(symbol).price(new BigDecimal(price)).build();
+    }
+}